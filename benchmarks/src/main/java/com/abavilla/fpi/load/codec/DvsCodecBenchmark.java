@@ -0,0 +1,111 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import com.dtone.dvs.dto.Status;
+import com.dtone.dvs.dto.Transaction;
+import com.dtone.dvs.dto.TransactionFixed;
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.codecs.pojo.PojoCodecProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link DvsCodecProvider}, covering the codec lookup done by the driver and encoding and decoding
+ * a DVS transaction.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DvsCodecBenchmark {
+
+  DvsCodecProvider provider;
+
+  CodecRegistry registry;
+
+  Codec<Transaction> codec;
+
+  Transaction transaction;
+
+  BsonDocument encoded;
+
+  @Setup
+  public void setup() {
+    provider = new DvsCodecProvider();
+    registry = CodecRegistries.fromRegistries(
+      CodecRegistries.fromProviders(provider),
+      MongoClientSettings.getDefaultCodecRegistry(),
+      CodecRegistries.fromProviders(PojoCodecProvider.builder().automatic(true).build()));
+    codec = provider.get(Transaction.class, registry);
+
+    transaction = new TransactionFixed();
+    transaction.setId(987654321L);
+    transaction.setExternalId("6543a1b2c3d4e5f601234567");
+    var status = new Status();
+    status.setId(70000L);
+    status.setMessage("COMPLETED");
+    transaction.setStatus(status);
+    encoded = encode();
+  }
+
+  @Benchmark
+  public Codec<Transaction> lookupCodec() {
+    return provider.get(Transaction.class, registry);
+  }
+
+  @Benchmark
+  public Codec<String> lookupUnrelatedCodec() {
+    return provider.get(String.class, registry);
+  }
+
+  @Benchmark
+  public BsonDocument encode() {
+    var document = new BsonDocument();
+    codec.encode(new BsonDocumentWriter(document), transaction, EncoderContext.builder().build());
+    return document;
+  }
+
+  @Benchmark
+  public Transaction decode() {
+    return codec.decode(new BsonDocumentReader(encoded), DecoderContext.builder().build());
+  }
+}
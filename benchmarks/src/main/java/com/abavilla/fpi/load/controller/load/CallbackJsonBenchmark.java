@@ -0,0 +1,116 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.controller.load;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.abavilla.fpi.fw.util.MapperUtil;
+import com.abavilla.fpi.load.dto.load.gl.GLRewardsCallbackDto;
+import com.dtone.dvs.dto.Transaction;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for reading provider callbacks, parsing the body to a {@link JsonNode} then converting it with
+ * {@link MapperUtil#convert} against reading the raw body straight to the dto as {@link CallbackResource} does.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CallbackJsonBenchmark {
+
+  static final String GL_CALLBACK = """
+    {"outboundRewardRequest": {"transaction_id": 918273645, "status": "SUCCESS", "promo": "LOAD50",
+     "timestamp": "Thu Nov 02 2023 08:15:30 GMT+0000 (UTC)", "address": "9171234567"}}""";
+
+  static final String DTONE_CALLBACK = """
+    {"id": 987654321, "external_id": "6543a1b2c3d4e5f601234567",
+     "creation_date": "2023-11-02T08:15:30.000000000Z", "confirmation_date": "2023-11-02T08:15:31.000000000Z",
+     "status": {"id": 70000, "message": "COMPLETED"}, "operator_reference": "AB12CD34"}""";
+
+  JsonNode glNode;
+
+  JsonNode dtOneNode;
+
+  byte[] glBody;
+
+  byte[] dtOneBody;
+
+  ObjectReader glReader;
+
+  ObjectReader dtOneReader;
+
+  @Setup
+  public void setup() throws JsonProcessingException {
+    glNode = MapperUtil.mapper().readTree(GL_CALLBACK);
+    dtOneNode = MapperUtil.mapper().readTree(DTONE_CALLBACK);
+    glBody = GL_CALLBACK.getBytes(StandardCharsets.UTF_8);
+    dtOneBody = DTONE_CALLBACK.getBytes(StandardCharsets.UTF_8);
+    glReader = MapperUtil.mapper().readerFor(GLRewardsCallbackDto.class);
+    dtOneReader = MapperUtil.mapper().readerFor(Transaction.class);
+  }
+
+  @Benchmark
+  public GLRewardsCallbackDto convertGLCallback() {
+    return MapperUtil.convert(glNode, GLRewardsCallbackDto.class);
+  }
+
+  @Benchmark
+  public Transaction convertDTOneCallback() {
+    return MapperUtil.convert(dtOneNode, Transaction.class);
+  }
+
+  @Benchmark
+  public GLRewardsCallbackDto parseAndConvertGLCallback() throws JsonProcessingException {
+    return MapperUtil.convert(MapperUtil.mapper().readTree(GL_CALLBACK), GLRewardsCallbackDto.class);
+  }
+
+  @Benchmark
+  public Transaction parseAndConvertDTOneCallback() throws JsonProcessingException {
+    return MapperUtil.convert(MapperUtil.mapper().readTree(DTONE_CALLBACK), Transaction.class);
+  }
+
+  @Benchmark
+  public GLRewardsCallbackDto readGLCallback() throws IOException {
+    return glReader.readValue(glBody);
+  }
+
+  @Benchmark
+  public Transaction readDTOneCallback() throws IOException {
+    return dtOneReader.readValue(dtOneBody);
+  }
+}
@@ -0,0 +1,129 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.engine.load;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.abavilla.fpi.load.entity.load.PromoSku;
+import com.abavilla.fpi.load.entity.load.ProviderOffer;
+import com.abavilla.fpi.load.service.load.AbsLoadProviderSvc;
+import com.abavilla.fpi.load.service.load.dtone.DTOneLoadSvc;
+import com.abavilla.fpi.load.service.load.gl.GLRewardsSvc;
+import com.abavilla.fpi.load.util.LoadConst;
+import com.abavilla.fpi.telco.ext.enums.ApiStatus;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the provider selection of {@link LoadEngine}, in both static and health routing modes, and
+ * for compiling the {@link RoutingTable} on a catalog change.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LoadEngineBenchmark {
+
+  @Param({"100", "2000"})
+  int catalogSize;
+
+  @Param({"static", "health"})
+  String routingMode;
+
+  List<AbsLoadProviderSvc> providers;
+
+  List<PromoSku> catalog;
+
+  LoadEngine engine;
+
+  int next;
+
+  @Setup
+  public void setup() {
+    var gl = new GLRewardsSvc();
+    gl.init();
+    var dtOne = new DTOneLoadSvc();
+    dtOne.init();
+    providers = List.of(gl, dtOne);
+
+    var random = new Random(42);
+    catalog = new ArrayList<>(catalogSize);
+    for (int i = 0; i < catalogSize; i++) {
+      var promo = new PromoSku();
+      promo.setId(new ObjectId());
+      promo.setOffers(List.of(
+        new ProviderOffer(LoadConst.PROV_GL, BigDecimal.valueOf(random.nextInt(100), 2), "GL" + i),
+        new ProviderOffer(LoadConst.PROV_DTONE, BigDecimal.valueOf(random.nextInt(100), 2),
+          String.valueOf(10000 + i))));
+      catalog.add(promo);
+    }
+
+    var healthTracker = new ProviderHealthTracker();
+    healthTracker.windowSize = 50;
+    healthTracker.minSamples = 10;
+    healthTracker.failureThreshold = 0.5;
+    healthTracker.slowCallThreshold = Duration.ofSeconds(15);
+    healthTracker.openDuration = Duration.ofSeconds(60);
+    for (int i = 0; i < 50; i++) { // populate the health windows
+      healthTracker.record(LoadConst.PROV_GL, TimeUnit.MILLISECONDS.toNanos(800 + i),
+        i % 10 == 0 ? ApiStatus.REJ : ApiStatus.WAIT);
+      healthTracker.record(LoadConst.PROV_DTONE, TimeUnit.MILLISECONDS.toNanos(400 + i), ApiStatus.WAIT);
+    }
+    var scorer = new LatencyWeightedScorer();
+    scorer.latencyWeight = 0.5;
+    scorer.errorWeight = 2;
+    scorer.rejectWeight = 2;
+
+    engine = new LoadEngine();
+    engine.routingMode = routingMode;
+    engine.healthTracker = healthTracker;
+    engine.scorer = scorer;
+    engine.compileRoutes(catalog, providers);
+  }
+
+  @Benchmark
+  public AbsLoadProviderSvc getProvider() {
+    next = (next + 1) % catalogSize;
+    return engine.getProvider(catalog.get(next));
+  }
+
+  @Benchmark
+  public RoutingTable compileRoutingTable() {
+    return RoutingTable.compile(catalog, providers);
+  }
+}
@@ -0,0 +1,131 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.mapper.load;
+
+import java.util.concurrent.TimeUnit;
+
+import com.abavilla.fpi.load.dto.load.LoadReqDto;
+import com.abavilla.fpi.load.dto.load.dtone.DVSCallbackDto;
+import com.abavilla.fpi.load.entity.dtone.DVSCallback;
+import com.abavilla.fpi.load.entity.load.RewardsTransStatus;
+import com.abavilla.fpi.load.ext.dto.LoadRespDto;
+import com.abavilla.fpi.load.mapper.load.dtone.DTOneMapper;
+import com.abavilla.fpi.load.mapper.load.dtone.DTOneMapperImpl;
+import com.abavilla.fpi.load.mapper.load.gl.GLMapperImpl;
+import com.abavilla.fpi.load.util.LoadConst;
+import com.abavilla.fpi.telco.ext.enums.ApiStatus;
+import com.dtone.dvs.dto.Status;
+import com.dtone.dvs.dto.Transaction;
+import com.dtone.dvs.dto.TransactionRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the MapStruct mappers on the load and callback paths, {@link RewardsTransStatusMapper} and
+ * {@link DTOneMapper}.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MapperBenchmark {
+
+  RewardsTransStatusMapper rewardsMapper;
+
+  DTOneMapper dtOneMapper;
+
+  LoadReqDto loadReq;
+
+  LoadRespDto loadResp;
+
+  Transaction transaction;
+
+  @Setup
+  public void setup() {
+    dtOneMapper = new DTOneMapperImpl();
+    rewardsMapper = new RewardsTransStatusMapperImpl(new LoadReqEntityMapperImpl());
+    rewardsMapper.dtOneMapper = dtOneMapper;
+    rewardsMapper.glMapper = new GLMapperImpl();
+
+    loadReq = new LoadReqDto();
+    loadReq.setMobile("09171234567");
+    loadReq.setAccountNo("09171234567");
+    loadReq.setSku("50");
+    loadReq.setTelco("Globe");
+    loadReq.setBotSource("FB_MSGR");
+    loadReq.setSendAckMsg(Boolean.TRUE);
+
+    var apiRequest = new TransactionRequest();
+    apiRequest.setExternalId("6543a1b2c3d4e5f601234567");
+    apiRequest.setProductId(12345L);
+    apiRequest.setCallbackUrl("https://example.com/fpi/load/callback/intlprov");
+
+    transaction = new Transaction();
+    transaction.setId(987654321L);
+    transaction.setExternalId("6543a1b2c3d4e5f601234567");
+    var status = new Status();
+    status.setId(LoadConst.DT_SUCCESS_STS);
+    status.setMessage("COMPLETED");
+    transaction.setStatus(status);
+
+    loadResp = new LoadRespDto();
+    loadResp.setStatus(ApiStatus.WAIT);
+    loadResp.setTransactionId("6543a1b2c3d4e5f601234567");
+    loadResp.setExtTransactionId("987654321");
+    loadResp.setApiRequest(apiRequest);
+    loadResp.setApiResponse(transaction);
+  }
+
+  @Benchmark
+  public RewardsTransStatus mapLoadRequest() {
+    var entity = new RewardsTransStatus();
+    rewardsMapper.mapLoadReqToEntity(loadReq, entity);
+    return entity;
+  }
+
+  @Benchmark
+  public RewardsTransStatus mapLoadResponse() {
+    var entity = new RewardsTransStatus();
+    rewardsMapper.mapLoadRespDtoToEntity(loadResp, entity);
+    return entity;
+  }
+
+  @Benchmark
+  public DVSCallback mapDTOneCallback() {
+    DVSCallbackDto dto = dtOneMapper.mapDTOneTransactionToCallbackDto(transaction);
+    return dtOneMapper.mapDTOneRespToEntity(dto);
+  }
+
+  @Benchmark
+  public DVSCallback mapDTOneCallbackDirect() {
+    return dtOneMapper.mapDTOneTransactionToEntity(transaction);
+  }
+}
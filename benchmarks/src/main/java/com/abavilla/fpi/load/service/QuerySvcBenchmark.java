@@ -0,0 +1,110 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.abavilla.fpi.load.dto.load.LoadReqDto;
+import com.google.i18n.phonenumbers.PhoneNumberToCarrierMapper;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for parsing a load query in {@link QuerySvc}, from tokenizing the query to resolving the
+ * operator of the number.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class QuerySvcBenchmark {
+
+  /**
+   * Numeric sku with carrier detection, keyword sku with explicit network and flag, and an account number
+   */
+  @Param({"50 09171234567", "GOSURF50 09981234567 smart false", "CIGNAL200 8881234567"})
+  String query;
+
+  QuerySvc querySvc;
+
+  String[] tokens;
+
+  QueryDedupWindow dedupWindow;
+
+  long sequence;
+
+  @Setup
+  public void setup() {
+    dedupWindow = new QueryDedupWindow();
+    dedupWindow.init(Duration.ofSeconds(1), 6, 16); // short window so unique keys keep expiring
+    var phMobileClassifier = new PhMobileClassifier();
+    phMobileClassifier.phoneNumberUtil = PhoneNumberUtil.getInstance();
+    phMobileClassifier.carrierMapper = PhoneNumberToCarrierMapper.getInstance();
+    phMobileClassifier.config = ConfigProvider.getConfig();
+    phMobileClassifier.enabled = true;
+    phMobileClassifier.derive = true;
+    phMobileClassifier.refresh();
+    var msisdnNormalizer = new MsisdnNormalizer();
+    msisdnNormalizer.phoneNumberUtil = phMobileClassifier.phoneNumberUtil;
+    msisdnNormalizer.carrierMapper = phMobileClassifier.carrierMapper;
+    msisdnNormalizer.phMobileClassifier = phMobileClassifier;
+    msisdnNormalizer.maxSize = 10000;
+    querySvc = new QuerySvc();
+    querySvc.msisdnNormalizer = msisdnNormalizer;
+    tokens = QuerySvc.tokenize(query);
+  }
+
+  @Benchmark
+  public String[] tokenize() {
+    return QuerySvc.tokenize(query);
+  }
+
+  @Benchmark
+  public boolean dedupDuplicate() {
+    dedupWindow.tryAcquire("fpiUser", query);
+    return dedupWindow.tryAcquire("fpiUser", query);
+  }
+
+  @Benchmark
+  public boolean dedupUnique() {
+    return dedupWindow.tryAcquire("fpiUser", query + sequence++);
+  }
+
+  @Benchmark
+  public LoadReqDto buildLoadRequest() {
+    var network = tokens.length > 2 ? tokens[2] : "";
+    return querySvc.buildLoadRequest(tokens[1], tokens[0], network, Boolean.TRUE, "FB_MSGR");
+  }
+}
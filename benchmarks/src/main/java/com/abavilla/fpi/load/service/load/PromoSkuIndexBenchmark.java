@@ -0,0 +1,252 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service.load;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.abavilla.fpi.fw.entity.enums.IBaseEnum;
+import com.abavilla.fpi.load.entity.enums.SkuType;
+import com.abavilla.fpi.load.entity.load.Pricing;
+import com.abavilla.fpi.load.entity.load.PromoSku;
+import com.abavilla.fpi.load.entity.load.ProviderOffer;
+import com.abavilla.fpi.load.util.LoadConst;
+import com.abavilla.fpi.telco.ext.enums.Telco;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.reactivestreams.client.MongoClients;
+import io.quarkus.mongodb.FindOptions;
+import io.quarkus.mongodb.impl.ReactiveMongoClientImpl;
+import io.quarkus.mongodb.reactive.ReactiveMongoClient;
+import io.quarkus.mongodb.reactive.ReactiveMongoCollection;
+import io.quarkus.mongodb.reactive.ReactiveMongoDatabase;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for promo lookups through {@link PromoSkuIndex}, against the Mongo query of
+ * {@link com.abavilla.fpi.load.repo.load.PromoSkuRepo} it replaced, and for building the index on a catalog
+ * reload.
+ * <p>
+ * The Mongo benchmarks need a server, given by the {@code fpi.bench.mongo-uri} system property (defaults to
+ * {@code mongodb://localhost:27017}). The catalog is written to a scratch database with the indexes of the
+ * changelog, and dropped after the trial. Exclude them with {@code -e mongo} when no server is around.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PromoSkuIndexBenchmark {
+
+  private static final int LOOKUPS = 1024;
+
+  private static final Telco[] TELCOS = {Telco.GLOBE, Telco.SMART, Telco.DITO};
+
+  @Param({"100", "2000"})
+  int catalogSize;
+
+  List<PromoSku> ranked;
+
+  PromoSkuIndex index;
+
+  Telco[] telcos;
+
+  String[] keywords;
+
+  int next;
+
+  @Setup
+  public void setup() {
+    var random = new Random(42);
+    var catalog = new ArrayList<PromoSku>(catalogSize);
+    for (int i = 0; i < catalogSize; i++) {
+      var promo = new PromoSku();
+      promo.setId(new ObjectId());
+      promo.setTelco(TELCOS[i % TELCOS.length]);
+      if (i % 4 == 0) { // a quarter of the catalog are ranged load
+        promo.setType(SkuType.RANGED);
+        var denomination = new Pricing();
+        var min = 5 + random.nextInt(50);
+        denomination.setMin(BigDecimal.valueOf(min));
+        denomination.setMax(BigDecimal.valueOf(min + random.nextInt(1000)));
+        promo.setDenomination(denomination);
+      } else {
+        promo.setType(i % 8 == 1 ? SkuType.CREDITS : SkuType.BUNDLE);
+        promo.setKeywords(List.of("PROMO" + i, String.valueOf(10 + random.nextInt(500))));
+      }
+      promo.setOffers(List.of(
+        new ProviderOffer(LoadConst.PROV_GL, BigDecimal.valueOf(random.nextInt(100), 2), "GL" + i),
+        new ProviderOffer(LoadConst.PROV_DTONE, BigDecimal.valueOf(random.nextInt(100), 2),
+          String.valueOf(10000 + i))));
+      catalog.add(promo);
+    }
+    ranked = catalog.stream().sorted(PromoSkuCatalog.SKU_RANKING).toList();
+    index = PromoSkuIndex.build(ranked);
+
+    telcos = new Telco[LOOKUPS];
+    keywords = new String[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      telcos[i] = TELCOS[random.nextInt(TELCOS.length)];
+      keywords[i] = switch (random.nextInt(4)) {
+        case 0 -> "PROMO" + random.nextInt(catalogSize);
+        case 1 -> String.valueOf(random.nextInt(1100));
+        case 2 -> "PROMO" + (catalogSize + random.nextInt(catalogSize)); // misses
+        default -> String.valueOf(10 + random.nextInt(500));
+      };
+    }
+  }
+
+  @Benchmark
+  public PromoSku resolveByTelco() {
+    next = (next + 1) & (LOOKUPS - 1);
+    return index.resolve(telcos[next], keywords[next]);
+  }
+
+  @Benchmark
+  public PromoSku resolveByKeyword() {
+    next = (next + 1) & (LOOKUPS - 1);
+    return index.resolve(keywords[next]);
+  }
+
+  @Benchmark
+  public PromoSkuIndex buildIndex() {
+    return PromoSkuIndex.build(ranked);
+  }
+
+  @Benchmark
+  public Document mongoFindByTelco(MongoCatalog mongo) {
+    next = (next + 1) & (LOOKUPS - 1);
+    return mongo.findFirst(Filters.and(
+      Filters.eq("telco.value", telcos[next].getValue()),
+      MongoCatalog.matchesKeyword(keywords[next])));
+  }
+
+  @Benchmark
+  public Document mongoFindByKeyword(MongoCatalog mongo) {
+    next = (next + 1) & (LOOKUPS - 1);
+    return mongo.findFirst(MongoCatalog.matchesKeyword(keywords[next]));
+  }
+
+  /**
+   * Copy of the benchmark catalog in Mongo, queried with the same filter, sort and indexes as the repository.
+   */
+  @State(Scope.Benchmark)
+  public static class MongoCatalog {
+
+    private static final FindOptions RANKED_FIRST = new FindOptions()
+      .sort(Sorts.orderBy(Sorts.descending("offers.wholesaleDiscount"), Sorts.ascending("type.ord")))
+      .limit(1);
+
+    ReactiveMongoClient client;
+
+    ReactiveMongoDatabase database;
+
+    ReactiveMongoCollection<Document> collection;
+
+    @Setup(Level.Trial)
+    public void setup(PromoSkuIndexBenchmark benchmark) {
+      client = new ReactiveMongoClientImpl(MongoClients.create(
+        System.getProperty("fpi.bench.mongo-uri", "mongodb://localhost:27017")));
+      database = client.getDatabase("fpi-bench-" + new ObjectId());
+      collection = database.getCollection("promo_sku");
+      collection.createIndex(Indexes.ascending("telco.value", "keywords", "type.value",
+        "denomination.min", "denomination.max"), new IndexOptions().name("promoLookupNdx"))
+        .await().indefinitely();
+      collection.createIndex(Indexes.ascending("offers.wholesaleDiscount"),
+        new IndexOptions().name("wholesaleDiscount")).await().indefinitely();
+      collection.createIndex(Indexes.ascending("type.ord"), new IndexOptions().name("skuType"))
+        .await().indefinitely();
+      collection.insertMany(benchmark.ranked.stream().map(MongoCatalog::toDocument).toList())
+        .await().indefinitely();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      database.drop().await().indefinitely();
+      client.close();
+    }
+
+    Document findFirst(Bson filter) {
+      return collection.find(filter, RANKED_FIRST).collect().first().await().indefinitely();
+    }
+
+    /**
+     * Same filter as the keyword lookups of {@link com.abavilla.fpi.load.repo.load.PromoSkuRepo}.
+     */
+    static Bson matchesKeyword(String keyword) {
+      var amount = NumberUtils.toInt(keyword);
+      return Filters.or(
+        Filters.and(
+          Filters.eq("keywords", keyword),
+          Filters.in("type.value", SkuType.BUNDLE.getValue(), SkuType.CREDITS.getValue())),
+        Filters.and(
+          Filters.eq("type.value", SkuType.RANGED.getValue()),
+          Filters.lte("denomination.min", amount),
+          Filters.gte("denomination.max", amount)));
+    }
+
+    private static Document toDocument(PromoSku promo) {
+      var document = new Document("_id", promo.getId())
+        .append("type", toDocument(promo.getType()))
+        .append("telco", toDocument(promo.getTelco()))
+        .append("offers", promo.getOffers().stream().map(offer -> new Document()
+          .append("providerName", offer.getProviderName())
+          .append("wholesaleDiscount", new Decimal128(offer.getWholesaleDiscount()))
+          .append("productCode", offer.getProductCode())).toList());
+      if (promo.getKeywords() != null) {
+        document.append("keywords", promo.getKeywords());
+      }
+      if (promo.getDenomination() != null) {
+        document.append("denomination", new Document()
+          .append("min", new Decimal128(promo.getDenomination().getMin()))
+          .append("max", new Decimal128(promo.getDenomination().getMax())));
+      }
+      return document;
+    }
+
+    private static Document toDocument(IBaseEnum value) {
+      return new Document("ord", value.getId()).append("value", value.getValue());
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link B32Util}, used for every load sms reference.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class B32UtilBenchmark {
+
+  @Param({"1234567", "9007199254740991"})
+  long number;
+
+  String encoded;
+
+  String encodedWithCheck;
+
+  char[] charBuffer;
+
+  ByteBuffer byteBuffer;
+
+  @Setup
+  public void setup() {
+    charBuffer = new char[32];
+    byteBuffer = ByteBuffer.allocate(32);
+    encoded = B32Util.encode(number, false, LoadUtil.STANDARD_ID_LENGTH, LoadUtil.STANDARD_ID_LENGTH);
+    encodedWithCheck = B32Util.encode(number, true);
+  }
+
+  @Benchmark
+  public String encodeBlocked() {
+    return B32Util.encode(number, false, LoadUtil.STANDARD_ID_LENGTH, LoadUtil.STANDARD_ID_LENGTH);
+  }
+
+  @Benchmark
+  public char[] encodeBlockedToChars() {
+    B32Util.encodeTo(number, false, LoadUtil.STANDARD_ID_LENGTH, LoadUtil.STANDARD_ID_LENGTH, charBuffer, 0);
+    return charBuffer;
+  }
+
+  @Benchmark
+  public ByteBuffer encodeBlockedToBytes() {
+    byteBuffer.clear();
+    B32Util.encodeTo(number, false, LoadUtil.STANDARD_ID_LENGTH, LoadUtil.STANDARD_ID_LENGTH, byteBuffer);
+    return byteBuffer;
+  }
+
+  @Benchmark
+  public long decodeBlocked() throws IOException {
+    return B32Util.decode(encoded);
+  }
+
+  @Benchmark
+  public long decodeWithCheckChar() throws IOException {
+    return B32Util.decode(encodedWithCheck, true);
+  }
+}
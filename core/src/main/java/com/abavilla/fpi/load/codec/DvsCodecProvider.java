@@ -18,7 +18,9 @@
 
 package com.abavilla.fpi.load.codec;
 
-import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.dtone.dvs.dto.Benefit;
 import com.dtone.dvs.dto.BenefitFixed;
@@ -49,11 +51,13 @@ import org.bson.codecs.pojo.PojoCodecProvider;
  */
 public class DvsCodecProvider implements CodecProvider {
 
-  @SuppressWarnings("rawtypes")
-  private static final List<Class> discriminatorClasses;
+  /**
+   * DVS API classes stored with a discriminator, as their concrete type is only known at runtime
+   */
+  static final Set<Class<?>> discriminatorClasses;
 
   static {
-    discriminatorClasses = List.of(
+    discriminatorClasses = Set.of(
       Transaction.class, TransactionRanged.class, TransactionFixed.class,
       Product.class, ProductRanged.class, ProductFixed.class,
       ProductPrice.class, ProductPriceRanged.class, ProductPriceFixed.class,
@@ -62,12 +66,39 @@ public class DvsCodecProvider implements CodecProvider {
     );
   }
 
+  /**
+   * Codecs already built, a provider instance is bound to the single registry it was registered in
+   */
+  private final Map<Class<?>, Codec<?>> codecs = new ConcurrentHashMap<>();
+
   @Override
+  @SuppressWarnings("unchecked")
   public <T> Codec<T> get(Class<T> clazz, CodecRegistry registry) {
-    if (discriminatorClasses.contains(clazz)) {
-      return buildDiscriminatorCodec(clazz, registry);
+    if (!discriminatorClasses.contains(clazz)) {
+      return null; // Don't throw here, this tells Mongo this provider doesn't provide a codec for the requested clazz
+    }
+    var codec = (Codec<T>) codecs.get(clazz);
+    if (codec == null) {
+      // not computeIfAbsent, building a codec looks up the codecs of its properties through this provider
+      var built = buildDiscriminatorCodec(clazz, registry);
+      codec = (Codec<T>) codecs.putIfAbsent(clazz, built);
+      if (codec == null) {
+        codec = built;
+      }
     }
-    return null; // Don't throw here, this tells
+    return codec;
+  }
+
+  /**
+   * Resolves the codecs of all DVS API classes through the registry, so the first callback stored after startup
+   * does not pay for building them.
+   *
+   * @param registry Registry this provider is registered in
+   * @return Number of codecs resolved
+   */
+  public static int warmUp(CodecRegistry registry) {
+    discriminatorClasses.forEach(registry::get);
+    return discriminatorClasses.size();
   }
 
   private static <T> Codec<T> buildDiscriminatorCodec(Class<T> clazz, CodecRegistry registry) {
@@ -0,0 +1,48 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.codec;
+
+import com.abavilla.fpi.load.repo.load.RewardsTransRepo;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Resolves the {@link DvsCodecProvider} codecs at startup, through the registry used by the collections.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class DvsCodecWarmup {
+
+  @Inject
+  RewardsTransRepo rewardsTransRepo;
+
+  void onStart(@Observes StartupEvent ev) {
+    var start = System.nanoTime();
+    try {
+      var count = DvsCodecProvider.warmUp(rewardsTransRepo.mongoCollection().getCodecRegistry());
+      Log.info("Resolved " + count + " DVS codecs in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+    } catch (RuntimeException e) {
+      Log.warn("Unable to warm up DVS codecs, they will be built on first use", e);
+    }
+  }
+}
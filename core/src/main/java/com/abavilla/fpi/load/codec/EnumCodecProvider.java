@@ -19,6 +19,7 @@
 package com.abavilla.fpi.load.codec;
 
 import com.abavilla.fpi.fw.codec.IEnumCodecProvider;
+import com.abavilla.fpi.load.entity.enums.InboxState;
 import com.abavilla.fpi.load.entity.enums.SkuType;
 import com.abavilla.fpi.telco.ext.codec.ApiStatusCodec;
 import com.abavilla.fpi.telco.ext.codec.BotSourceCodec;
@@ -53,6 +54,8 @@ public class EnumCodecProvider implements IEnumCodecProvider {
       return (Codec<T>) new SkuTypeCodec();
     } else if (clazz == BotSource.class) {
       return (Codec<T>) new BotSourceCodec();
+    } else if (clazz == InboxState.class) {
+      return (Codec<T>) new InboxStateCodec();
     }
     return null; // Don't throw here, this tells Mongo this provider doesn't provide a decoder for the requested clazz
   }
@@ -18,16 +18,20 @@
 
 package com.abavilla.fpi.load.controller.load;
 
+import java.io.IOException;
+
 import com.abavilla.fpi.fw.controller.AbsBaseResource;
+import com.abavilla.fpi.fw.dto.IDto;
 import com.abavilla.fpi.fw.dto.impl.NullDto;
 import com.abavilla.fpi.fw.dto.impl.RespDto;
+import com.abavilla.fpi.fw.exceptions.FPISvcEx;
 import com.abavilla.fpi.fw.util.MapperUtil;
 import com.abavilla.fpi.load.config.ApiKeyConfig;
 import com.abavilla.fpi.load.dto.load.gl.GLRewardsCallbackDto;
 import com.abavilla.fpi.load.entity.load.RewardsTransStatus;
 import com.abavilla.fpi.load.service.load.RewardsCallbackSvc;
 import com.dtone.dvs.dto.Transaction;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
@@ -37,6 +41,8 @@ import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
 import org.apache.commons.lang3.StringUtils;
+import org.jboss.resteasy.reactive.RestResponse;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
 
 /**
  * Endpoints for receiving the status for the load transaction.
@@ -49,18 +55,53 @@ public class CallbackResource
   @Inject
   ApiKeyConfig apiKeyConfig;
 
+  /**
+   * Reader for Globe Labs rewards callbacks, bound once so the body is parsed straight to the dto
+   */
+  private final ObjectReader glCallbackReader = MapperUtil.mapper().readerFor(GLRewardsCallbackDto.class);
+
+  /**
+   * Reader for DT One DVS transaction callbacks
+   */
+  private final ObjectReader dtOneCallbackReader = MapperUtil.mapper().readerFor(Transaction.class);
+
+  /**
+   * Receives a provider callback, the api key selects the provider and with it the type the body is
+   * parsed to, so the body is read once and never materialized as a json tree.
+   *
+   * @param apiKey Api key given to the provider
+   * @param body   Raw callback body
+   * @return {@link RespDto} acknowledgement
+   */
   @Path("{apiKey}")
   @POST
   public Uni<RespDto<NullDto>> callback(@PathParam("apiKey") String apiKey,
-                                        JsonNode body) {
+                                        byte[] body) {
     if (StringUtils.equals(apiKey, apiKeyConfig.getGenericApiKey())) {
-      return service.storeCallback(MapperUtil.convert(body, GLRewardsCallbackDto.class));
+      return service.storeCallback(this.<GLRewardsCallbackDto>read(glCallbackReader, body));
     } else if (StringUtils.equals(apiKey, "intlprov")) {
-      return service.storeCallback(MapperUtil.convert(body, Transaction.class));
+      return service.storeCallback(this.<Transaction>read(dtOneCallbackReader, body));
     } else {
       throw new WebApplicationException(Response
           .status(HttpResponseStatus.UNAUTHORIZED.code())
           .build());
     }
   }
+
+  private <T> T read(ObjectReader reader, byte[] body) {
+    try {
+      return reader.readValue(body);
+    } catch (IOException e) {
+      throw new FPISvcEx("Invalid callback: " + e.getMessage(), RestResponse.StatusCode.BAD_REQUEST);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @ServerExceptionMapper
+  protected RestResponse<RespDto<IDto>> mapException(FPISvcEx x) {
+    return super.mapException(x);
+  }
 }
@@ -0,0 +1,89 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.controller.load;
+
+import com.abavilla.fpi.fw.controller.AbsBaseResource;
+import com.abavilla.fpi.fw.dto.IDto;
+import com.abavilla.fpi.fw.dto.impl.RespDto;
+import com.abavilla.fpi.fw.exceptions.FPISvcEx;
+import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.load.dto.load.PromoSkuDto;
+import com.abavilla.fpi.load.dto.load.dtone.CatalogSyncDto;
+import com.abavilla.fpi.load.entity.load.PromoSku;
+import com.abavilla.fpi.load.service.load.PromoSkuSvc;
+import com.abavilla.fpi.load.service.load.dtone.DTOneCatalogSyncSvc;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import org.jboss.resteasy.reactive.RestResponse;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
+
+/**
+ * Endpoints for syncing the provider offers of the promos with the live provider product catalogs.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@Path("/fpi/load/sku-sync")
+public class CatalogSyncResource extends AbsBaseResource<PromoSkuDto, PromoSku, PromoSkuSvc> {
+
+  @Inject
+  DTOneCatalogSyncSvc dtOneSyncSvc;
+
+  /**
+   * Reports the DT One offers that differ from the live DT One products without changing them.
+   *
+   * @return {@link RespDto} containing the {@link CatalogSyncDto}
+   */
+  @GET
+  @Path("dtone")
+  public Uni<RespDto<CatalogSyncDto>> reportDTOne() {
+    return dtOneSyncSvc.sync(true).map(CatalogSyncResource::toResp);
+  }
+
+  /**
+   * Applies the live DT One products to the DT One offers.
+   *
+   * @return {@link RespDto} containing the {@link CatalogSyncDto}
+   */
+  @POST
+  @Path("dtone")
+  public Uni<RespDto<CatalogSyncDto>> syncDTOne() {
+    return dtOneSyncSvc.sync(false).map(CatalogSyncResource::toResp);
+  }
+
+  private static RespDto<CatalogSyncDto> toResp(CatalogSyncDto sync) {
+    var resp = new RespDto<CatalogSyncDto>();
+    resp.setResp(sync);
+    resp.setTimestamp(DateUtil.nowAsStr());
+    resp.setStatus(HttpResponseStatus.OK.reasonPhrase());
+    return resp;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @ServerExceptionMapper
+  protected RestResponse<RespDto<IDto>> mapException(FPISvcEx x) {
+    return super.mapException(x);
+  }
+}
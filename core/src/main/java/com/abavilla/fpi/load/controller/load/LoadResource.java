@@ -18,20 +18,41 @@
 
 package com.abavilla.fpi.load.controller.load;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 import com.abavilla.fpi.fw.controller.AbsBaseResource;
 import com.abavilla.fpi.fw.dto.IDto;
 import com.abavilla.fpi.fw.dto.impl.RespDto;
 import com.abavilla.fpi.fw.exceptions.FPISvcEx;
 import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.fw.util.MapperUtil;
+import com.abavilla.fpi.load.dto.load.LoadBatchItemDto;
+import com.abavilla.fpi.load.dto.load.LoadRefBatchDto;
+import com.abavilla.fpi.load.dto.load.LoadRefDto;
 import com.abavilla.fpi.load.dto.load.LoadReqDto;
 import com.abavilla.fpi.load.dto.load.gl.GLRewardsReqDto;
 import com.abavilla.fpi.load.entity.load.RewardsTransStatus;
 import com.abavilla.fpi.load.ext.dto.LoadRespDto;
+import com.abavilla.fpi.load.service.load.RewardsBatchSvc;
 import com.abavilla.fpi.load.service.load.RewardsSvc;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
 import org.jboss.resteasy.reactive.RestResponse;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+import org.jboss.resteasy.reactive.common.util.RestMediaType;
 import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
 
 /**
@@ -43,6 +64,9 @@ import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
 public class LoadResource
     extends AbsBaseResource<GLRewardsReqDto, RewardsTransStatus, RewardsSvc> {
 
+  @Inject
+  RewardsBatchSvc batchSvc;
+
   @POST
   public Uni<RespDto<LoadRespDto>> loadUp(LoadReqDto loadReq) {
     return service.reloadNumber(loadReq).map(loadRespDto -> {
@@ -54,6 +78,90 @@ public class LoadResource
     });
   }
 
+  /**
+   * Submits a batch of load requests, streaming the outcome of each request as newline delimited json in
+   * the order they complete.
+   *
+   * @param loadReqs Load requests
+   * @return {@link Multi} of {@link LoadBatchItemDto}
+   */
+  @POST
+  @Path("batch")
+  @Consumes(MediaType.APPLICATION_JSON)
+  @Produces(RestMediaType.APPLICATION_NDJSON)
+  @RestStreamElementType(MediaType.APPLICATION_JSON)
+  public Multi<LoadBatchItemDto> loadUpBatch(List<LoadReqDto> loadReqs) {
+    return batchSvc.reloadBatch(loadReqs == null ? List.of() : loadReqs);
+  }
+
+  /**
+   * Submits a batch of load requests given as newline delimited json, streaming the outcome of each
+   * request as newline delimited json in the order they complete. The body is parsed as it is read and
+   * reading stops once the batch is known to exceed the maximum size.
+   *
+   * @param body Load requests, one json object per line
+   * @return {@link Multi} of {@link LoadBatchItemDto}
+   */
+  @POST
+  @Path("batch")
+  @Blocking
+  @Consumes(RestMediaType.APPLICATION_NDJSON)
+  @Produces(RestMediaType.APPLICATION_NDJSON)
+  @RestStreamElementType(MediaType.APPLICATION_JSON)
+  public Multi<LoadBatchItemDto> loadUpBatchNdjson(InputStream body) {
+    var loadReqs = new ArrayList<LoadReqDto>();
+    try (var it = MapperUtil.mapper().readerFor(LoadReqDto.class).<LoadReqDto>readValues(
+      body == null ? InputStream.nullInputStream() : body)) {
+      // one request past the maximum is enough for the batch to be rejected
+      while (loadReqs.size() <= batchSvc.getMaxBatchSize() && it.hasNextValue()) {
+        loadReqs.add(it.nextValue());
+      }
+    } catch (IOException e) {
+      throw new FPISvcEx("Invalid load request batch: " + e.getMessage(),
+        RestResponse.StatusCode.BAD_REQUEST);
+    }
+    return batchSvc.reloadBatch(loadReqs);
+  }
+
+  /**
+   * Resolves a load sms id quoted by a customer to its rewards transaction.
+   *
+   * @param loadSmsId Load sms id, e.g. {@code G0000-00AB}
+   * @return {@link RespDto} containing the {@link LoadRefDto}
+   */
+  @GET
+  @Path("ref/{loadSmsId}")
+  public Uni<RespDto<LoadRefDto>> getByLoadSmsId(@PathParam("loadSmsId") String loadSmsId) {
+    return service.findByLoadSmsId(loadSmsId).map(ref -> {
+      var resp = new RespDto<LoadRefDto>();
+      resp.setResp(ref);
+      resp.setTimestamp(DateUtil.nowAsStr());
+      resp.setStatus(HttpResponseStatus.OK.reasonPhrase());
+      return resp;
+    });
+  }
+
+  /**
+   * Resolves a batch of load sms ids to their rewards transactions, ids that cannot be resolved are
+   * returned with an error.
+   *
+   * @param loadSmsIds Load sms ids
+   * @return {@link RespDto} containing the {@link LoadRefBatchDto}
+   */
+  @POST
+  @Path("ref")
+  public Uni<RespDto<LoadRefBatchDto>> getByLoadSmsIds(List<String> loadSmsIds) {
+    return service.findByLoadSmsIds(loadSmsIds == null ? List.of() : loadSmsIds).map(refs -> {
+      var batch = new LoadRefBatchDto();
+      batch.setRefs(refs);
+      var resp = new RespDto<LoadRefBatchDto>();
+      resp.setResp(batch);
+      resp.setTimestamp(DateUtil.nowAsStr());
+      resp.setStatus(HttpResponseStatus.OK.reasonPhrase());
+      return resp;
+    });
+  }
+
   /**
    * {@inheritDoc}
    */
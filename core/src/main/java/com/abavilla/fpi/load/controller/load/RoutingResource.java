@@ -0,0 +1,96 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.controller.load;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import com.abavilla.fpi.fw.dto.impl.RespDto;
+import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.load.dto.load.ProviderHealthDto;
+import com.abavilla.fpi.load.dto.load.ProviderRouteDto;
+import com.abavilla.fpi.load.dto.load.RoutingHealthDto;
+import com.abavilla.fpi.load.dto.load.RoutingTableDto;
+import com.abavilla.fpi.load.engine.load.LoadEngine;
+import com.abavilla.fpi.load.engine.load.ProviderHealthTracker;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+
+/**
+ * Diagnostic endpoints for the provider routing of the {@link LoadEngine}.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@Path("/fpi/load/routes")
+public class RoutingResource {
+
+  @Inject
+  LoadEngine loadEngine;
+
+  @Inject
+  ProviderHealthTracker healthTracker;
+
+  /**
+   * Retrieves the compiled provider routes per promo.
+   *
+   * @return {@link RespDto} containing the {@link RoutingTableDto}
+   */
+  @GET
+  public Uni<RespDto<RoutingTableDto>> getRoutes() {
+    var routes = new LinkedHashMap<String, List<ProviderRouteDto>>();
+    loadEngine.getRoutingTable().asMap().forEach((promoId, promoRoutes) ->
+      routes.put(promoId.toString(), promoRoutes.stream()
+        .map(route -> new ProviderRouteDto(route.provider().getProviderName(), route.productCode(),
+          route.wholesaleDiscount(), route.priority()))
+        .toList()));
+    var table = new RoutingTableDto();
+    table.setRoutes(routes);
+
+    var resp = new RespDto<RoutingTableDto>();
+    resp.setResp(table);
+    resp.setTimestamp(DateUtil.nowAsStr());
+    resp.setStatus(HttpResponseStatus.OK.reasonPhrase());
+    return Uni.createFrom().item(resp);
+  }
+
+  /**
+   * Retrieves the rolling health and circuit state of the load providers.
+   *
+   * @return {@link RespDto} containing the {@link RoutingHealthDto}
+   */
+  @GET
+  @Path("health")
+  public Uni<RespDto<RoutingHealthDto>> getHealth() {
+    var health = new RoutingHealthDto();
+    health.setFailoverEnabled(loadEngine.isFailoverEnabled());
+    health.setProviders(healthTracker.snapshots().stream()
+      .map(snapshot -> new ProviderHealthDto(snapshot.providerName(), snapshot.state().name(),
+        snapshot.samples(), snapshot.avgLatencyMs(), snapshot.errorRate(), snapshot.rejectRate()))
+      .toList());
+
+    var resp = new RespDto<RoutingHealthDto>();
+    resp.setResp(health);
+    resp.setTimestamp(DateUtil.nowAsStr());
+    resp.setStatus(HttpResponseStatus.OK.reasonPhrase());
+    return Uni.createFrom().item(resp);
+  }
+}
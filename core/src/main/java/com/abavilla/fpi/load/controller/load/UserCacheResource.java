@@ -0,0 +1,85 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.controller.load;
+
+import com.abavilla.fpi.fw.dto.impl.RespDto;
+import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.load.dto.load.UserCacheStatsDto;
+import com.abavilla.fpi.load.service.load.UserCache;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+
+/**
+ * Admin endpoints for the {@link UserCache}.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@Path("/fpi/load/admin/user-cache")
+public class UserCacheResource {
+
+  @Inject
+  UserCache userCache;
+
+  /**
+   * Retrieves the cache statistics.
+   *
+   * @return {@link RespDto} containing the {@link UserCacheStatsDto}
+   */
+  @GET
+  public Uni<RespDto<UserCacheStatsDto>> getStats() {
+    return Uni.createFrom().item(buildResp(HttpResponseStatus.OK.reasonPhrase()));
+  }
+
+  /**
+   * Evicts all users from the cache.
+   *
+   * @return {@link RespDto} containing the {@link UserCacheStatsDto} after eviction
+   */
+  @DELETE
+  public Uni<RespDto<UserCacheStatsDto>> evictAll() {
+    var removed = userCache.evictAll();
+    return Uni.createFrom().item(buildResp("Evicted " + removed + " user(s)"));
+  }
+
+  /**
+   * Evicts a single user from the cache.
+   *
+   * @param id Id of the user
+   * @return {@link RespDto} containing the {@link UserCacheStatsDto} after eviction
+   */
+  @DELETE
+  @Path("{id}")
+  public Uni<RespDto<UserCacheStatsDto>> evict(@PathParam("id") String id) {
+    var status = userCache.evict(id) ? "Evicted " + id : "Not cached " + id;
+    return Uni.createFrom().item(buildResp(status));
+  }
+
+  private RespDto<UserCacheStatsDto> buildResp(String status) {
+    var resp = new RespDto<UserCacheStatsDto>();
+    resp.setResp(userCache.stats());
+    resp.setTimestamp(DateUtil.nowAsStr());
+    resp.setStatus(status);
+    return resp;
+  }
+}
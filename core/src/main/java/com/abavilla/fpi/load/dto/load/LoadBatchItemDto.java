@@ -0,0 +1,58 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.dto.load;
+
+import com.abavilla.fpi.fw.dto.AbsDto;
+import com.abavilla.fpi.telco.ext.enums.ApiStatus;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object containing the outcome of a single load request of a batch.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@RegisterForReflection
+@NoArgsConstructor
+public class LoadBatchItemDto extends AbsDto {
+
+  /**
+   * Position of the load request in the submitted batch, results are streamed in completion order
+   */
+  private int index;
+
+  private String mobile;
+
+  private String sku;
+
+  private ApiStatus status;
+
+  private String error;
+
+  /**
+   * Id of the rewards transaction, {@code null} if the request was rejected before it was logged
+   */
+  private String transactionId;
+
+  private String smsTransactionId;
+}
@@ -0,0 +1,86 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.dto.load;
+
+import java.time.LocalDateTime;
+
+import com.abavilla.fpi.fw.dto.AbsFieldDto;
+import com.abavilla.fpi.telco.ext.enums.ApiStatus;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object containing the rewards transaction a load sms id resolves to.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@RegisterForReflection
+@NoArgsConstructor
+public class LoadRefDto extends AbsFieldDto {
+
+  /**
+   * Load sms id as given in the lookup
+   */
+  private String loadSmsId;
+
+  /**
+   * Provider transaction id decoded from the load sms id
+   */
+  private String transactionId;
+
+  /**
+   * Load provider of the transaction, {@code null} if not found
+   */
+  private String loadProvider;
+
+  /**
+   * Id of the rewards transaction, {@code null} if not found
+   */
+  private String rewardsTransId;
+
+  /**
+   * Mobile number that was loaded
+   */
+  private String mobile;
+
+  /**
+   * Sku that was loaded
+   */
+  private String sku;
+
+  /**
+   * Latest status received for the transaction
+   */
+  private ApiStatus status;
+
+  private String fpiUser;
+
+  private LocalDateTime dateCreated;
+
+  private LocalDateTime dateUpdated;
+
+  /**
+   * Reason the load sms id could not be resolved, {@code null} if found
+   */
+  private String error;
+}
@@ -19,6 +19,8 @@
 package com.abavilla.fpi.load.dto.load;
 
 import com.abavilla.fpi.fw.dto.AbsDto;
+import com.abavilla.fpi.load.util.NormalizedMsisdn;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -36,4 +38,10 @@ public class LoadReqDto extends AbsDto {
   private String telco;
   private String botSource;
   private Boolean sendAckMsg;
+
+  /**
+   * Parsed {@link #mobile}, attached once so it is not parsed again down the load flow
+   */
+  @JsonIgnore
+  private transient NormalizedMsisdn normalizedMobile;
 }
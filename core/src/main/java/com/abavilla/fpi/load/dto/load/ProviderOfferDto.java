@@ -41,6 +41,9 @@ import org.bson.codecs.pojo.annotations.BsonDiscriminator;
 @BsonDiscriminator
 public class ProviderOfferDto extends AbsFieldDto {
   private String providerName;
+  /**
+   * Discount off the retail price as a fraction from 0 to 1, e.g. 0.05 for 5%
+   */
   private BigDecimal wholesaleDiscount;
   private String productCode;
 }
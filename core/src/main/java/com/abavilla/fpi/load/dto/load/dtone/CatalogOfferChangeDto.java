@@ -0,0 +1,76 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.dto.load.dtone;
+
+import java.math.BigDecimal;
+
+import com.abavilla.fpi.fw.dto.AbsFieldDto;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object containing a change to a DT One offer of a promo found by the catalog sync.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@RegisterForReflection
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogOfferChangeDto extends AbsFieldDto {
+
+  /**
+   * Id of the promo
+   */
+  private String skuId;
+
+  /**
+   * Name of the promo
+   */
+  private String skuName;
+
+  /**
+   * Change to the offer, either {@code update}, {@code remap} or {@code remove}
+   */
+  private String action;
+
+  /**
+   * Product code of the offer in the database
+   */
+  private String productCode;
+
+  /**
+   * Live product code, {@code null} if the offer is removed
+   */
+  private String newProductCode;
+
+  /**
+   * Wholesale discount of the offer in the database
+   */
+  private BigDecimal wholesaleDiscount;
+
+  /**
+   * Live wholesale discount, {@code null} if the offer is removed
+   */
+  private BigDecimal newWholesaleDiscount;
+}
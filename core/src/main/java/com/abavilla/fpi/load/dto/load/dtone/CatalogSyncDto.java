@@ -0,0 +1,64 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.dto.load.dtone;
+
+import java.util.List;
+
+import com.abavilla.fpi.fw.dto.AbsDto;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object containing the result of a sync of the DT One product catalog to the promo offers.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@RegisterForReflection
+@NoArgsConstructor
+public class CatalogSyncDto extends AbsDto {
+
+  /**
+   * Whether the changes were only reported and not written
+   */
+  private boolean dryRun;
+
+  /**
+   * Number of product pages fetched from DT One
+   */
+  private int pages;
+
+  /**
+   * Number of live products fetched from DT One
+   */
+  private int products;
+
+  /**
+   * Offers that differ from the live products
+   */
+  private List<CatalogOfferChangeDto> changes;
+
+  /**
+   * Number of promos modified, always zero on a dry run
+   */
+  private long modified;
+}
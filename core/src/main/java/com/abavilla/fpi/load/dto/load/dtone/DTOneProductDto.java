@@ -0,0 +1,83 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.dto.load.dtone;
+
+import com.abavilla.fpi.fw.dto.AbsFieldDto;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Product of the DVS {@code GET /v1/products} listing, only the fields used by the catalog sync.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@Data
+@EqualsAndHashCode(callSuper = false)
+@NoArgsConstructor
+@RegisterForReflection
+public class DTOneProductDto extends AbsFieldDto {
+
+  /**
+   * DVS product id, used as the product code of the offers
+   */
+  private Long id;
+
+  /**
+   * Product type, e.g. {@code FIXED_VALUE_RECHARGE}
+   */
+  private String type;
+
+  private Operator operator;
+
+  /**
+   * Amount received by the subscriber
+   */
+  private Amount destination;
+
+  private Prices prices;
+
+  @Data
+  @EqualsAndHashCode(callSuper = false)
+  @NoArgsConstructor
+  @RegisterForReflection
+  public static class Operator extends AbsFieldDto {
+    private Long id;
+    private String name;
+  }
+
+  @Data
+  @EqualsAndHashCode(callSuper = false)
+  @NoArgsConstructor
+  @RegisterForReflection
+  public static class Amount extends AbsFieldDto {
+    private Double amount;
+    private String unit;
+  }
+
+  @Data
+  @EqualsAndHashCode(callSuper = false)
+  @NoArgsConstructor
+  @RegisterForReflection
+  public static class Prices extends AbsFieldDto {
+    private Amount wholesale;
+    private Amount retail;
+  }
+}
@@ -0,0 +1,42 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.engine.load;
+
+/**
+ * State of the circuit breaker guarding a load provider.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public enum CircuitState {
+
+  /**
+   * Provider is healthy, requests are routed normally
+   */
+  CLOSED,
+
+  /**
+   * Provider is degraded, requests are routed to the next provider carrying the promo
+   */
+  OPEN,
+
+  /**
+   * Open duration elapsed, requests are let through to probe if the provider recovered
+   */
+  HALF_OPEN
+}
@@ -0,0 +1,63 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.engine.load;
+
+import io.quarkus.arc.DefaultBean;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Default {@link ProviderScorer}, starts from the cost ordering and pushes a provider down the list
+ * as its latency, error rate and rejection rate grow.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@DefaultBean
+@ApplicationScoped
+public class LatencyWeightedScorer implements ProviderScorer {
+
+  /**
+   * Penalty per second of average latency
+   */
+  @ConfigProperty(name = "fpi.load.routing.score.latency-weight", defaultValue = "0.5")
+  double latencyWeight;
+
+  /**
+   * Penalty for a provider failing every call
+   */
+  @ConfigProperty(name = "fpi.load.routing.score.error-weight", defaultValue = "2")
+  double errorWeight;
+
+  /**
+   * Penalty for a provider rejecting every call
+   */
+  @ConfigProperty(name = "fpi.load.routing.score.reject-weight", defaultValue = "2")
+  double rejectWeight;
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double score(int position, ProviderRoute route, ProviderHealth.Snapshot health) {
+    return position +
+      latencyWeight * health.avgLatencyMs() / 1000d +
+      errorWeight * health.errorRate() +
+      rejectWeight * health.rejectRate();
+  }
+}
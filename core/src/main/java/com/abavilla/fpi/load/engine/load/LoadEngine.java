@@ -18,41 +18,140 @@
 
 package com.abavilla.fpi.load.engine.load;
 
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import com.abavilla.fpi.fw.engine.AbsEngine;
 import com.abavilla.fpi.load.entity.load.PromoSku;
-import com.abavilla.fpi.load.entity.load.ProviderOffer;
 import com.abavilla.fpi.load.service.load.AbsLoadProviderSvc;
+import io.quarkus.logging.Log;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 @ApplicationScoped
 public class LoadEngine extends AbsEngine<AbsLoadProviderSvc, PromoSku> {
+
+  /**
+   * Routing mode, {@code static} always follows the cost ordering, {@code health} skips providers with an
+   * open circuit, orders the rest by {@link ProviderScorer} and fails over within the same request
+   */
+  @ConfigProperty(name = "fpi.load.routing.mode", defaultValue = "static")
+  String routingMode;
+
+  @Inject
+  ProviderHealthTracker healthTracker;
+
+  @Inject
+  ProviderScorer scorer;
+
+  /**
+   * Precompiled provider routes, replaced as a whole whenever the promo catalog changes
+   */
+  private volatile RoutingTable routingTable = RoutingTable.EMPTY;
+
   @Override
   public AbsLoadProviderSvc getProvider(PromoSku promo) {
-    final List<String> promoProviders = promo.getOffers()
-        .stream()
-        .sorted(Comparator.comparing(ProviderOffer::getWholesaleDiscount).reversed()) // sort list by wallet cost
-        .map(ProviderOffer::getProviderName).toList();
-
-    var provider = providers.stream()
-        .filter(loadProvider ->
-            promoProviders.stream()
-                .anyMatch(name -> // only use provider which carry the promo
-                    StringUtils.equals(name, loadProvider.getProviderName())
-                )).min((o1, o2) -> {
-                  int compare = // if provider has same wallet cost, if the same, use priority
-                      Integer.compare(promoProviders.indexOf(o1.getProviderName()),
-                          promoProviders.indexOf(o2.getProviderName()));
-                  if (compare != 0) {
-                    return compare;
-                  } else {
-                    return Long.compare(o1.getPriority(), o2.getPriority());
-                  }
-        });
-
-    return provider.orElse(null);
+    var routes = getCandidates(promo);
+    return routes.isEmpty() ? null : routes.get(0).provider();
+  }
+
+  /**
+   * Retrieves the provider candidates in the order they should be tried for the promo. When routing by
+   * health, providers with an open circuit are dropped and the rest are ordered by score, if every
+   * provider is open the cost ordering is kept so the request is still attempted. This has no side effect
+   * on the circuits, the probe of a half open provider is only claimed once the request is sent to it.
+   *
+   * @param promo Promo to load
+   * @return Ordered routes, empty if no provider carries the promo
+   */
+  public List<ProviderRoute> getCandidates(PromoSku promo) {
+    var routes = getRoutes(promo);
+    if (!isFailoverEnabled() || routes.size() < 2) {
+      return routes;
+    }
+    var candidates = IntStream.range(0, routes.size())
+      .filter(i -> healthTracker.canRoute(routes.get(i).provider().getProviderName()))
+      .boxed()
+      .sorted(Comparator.comparingDouble(i -> scorer.score(i, routes.get(i),
+        healthTracker.snapshot(routes.get(i).provider().getProviderName()))))
+      .map(routes::get)
+      .toList();
+    return candidates.isEmpty() ? routes : candidates;
+  }
+
+  /**
+   * Checks if requests should fail over to the next candidate provider when rejected.
+   *
+   * @return {@code true} if routing by provider health
+   */
+  public boolean isFailoverEnabled() {
+    return "health".equalsIgnoreCase(routingMode);
+  }
+
+  /**
+   * Retrieves the ordered provider candidates for the promo, compiling them on the spot if the promo
+   * is not yet in the routing table.
+   *
+   * @param promo Promo to load
+   * @return Ordered routes, empty if no provider carries the promo
+   */
+  public List<ProviderRoute> getRoutes(PromoSku promo) {
+    var routes = routingTable.get(promo.getId());
+    if (routes == null) {
+      routes = RoutingTable.compile(promo, loadProviders());
+    }
+    return routes;
+  }
+
+  /**
+   * Rebuilds the routing table for the given promos and swaps it in atomically.
+   *
+   * @param promos All promos in the catalog
+   */
+  public void compileRoutes(Collection<PromoSku> promos) {
+    compileRoutes(promos, loadProviders());
+  }
+
+  /**
+   * Rebuilds the routing table for the given promos and providers and swaps it in atomically.
+   *
+   * @param promos    All promos in the catalog
+   * @param providers Load providers to route to
+   */
+  void compileRoutes(Collection<PromoSku> promos, List<AbsLoadProviderSvc> providers) {
+    routingTable = RoutingTable.compile(promos, providers);
+    Log.info("Compiled provider routes for " + routingTable.asMap().size() + " promo sku");
+  }
+
+  /**
+   * Retrieves the current routing table, for diagnostics.
+   *
+   * @return {@link RoutingTable} currently in use
+   */
+  public RoutingTable getRoutingTable() {
+    return routingTable;
+  }
+
+  /**
+   * Retrieves the names of the load providers sharing the given initial, used to resolve the provider of a
+   * load sms reference.
+   *
+   * @param initial First character of the provider name, case-insensitive
+   * @return Names of the matching providers
+   */
+  public List<String> getProviderNamesByInitial(char initial) {
+    return loadProviders().stream()
+      .map(AbsLoadProviderSvc::getProviderName)
+      .filter(name -> StringUtils.isNotEmpty(name) &&
+        Character.toUpperCase(name.charAt(0)) == Character.toUpperCase(initial))
+      .toList();
+  }
+
+  private List<AbsLoadProviderSvc> loadProviders() {
+    return providers.stream().map(AbsLoadProviderSvc.class::cast).toList();
   }
 }
@@ -0,0 +1,209 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.engine.load;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Rolling window of the outcome and latency of the last calls to a load provider, along with the circuit
+ * breaker state derived from it.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public class ProviderHealth {
+
+  static final byte OUTCOME_SUCCESS = 0;
+  static final byte OUTCOME_REJECTED = 1;
+  static final byte OUTCOME_ERROR = 2;
+
+  private final String providerName;
+  private final long[] latencies;
+  private final byte[] outcomes;
+  private final int minSamples;
+  private final double failureThreshold;
+  private final long slowCallNanos;
+  private final long openNanos;
+  private final LongSupplier clock;
+
+  private int next;
+  private int count;
+  private CircuitState state = CircuitState.CLOSED;
+  private long openedAt;
+
+  /**
+   * Set while the single call allowed through the half open circuit has not completed
+   */
+  private boolean probeInFlight;
+  private long probeStartedAt;
+
+  public ProviderHealth(String providerName, int windowSize, int minSamples, double failureThreshold,
+                        Duration slowCallThreshold, Duration openDuration) {
+    this(providerName, windowSize, minSamples, failureThreshold, slowCallThreshold, openDuration,
+      System::nanoTime);
+  }
+
+  ProviderHealth(String providerName, int windowSize, int minSamples, double failureThreshold,
+                 Duration slowCallThreshold, Duration openDuration, LongSupplier clock) {
+    this.clock = clock;
+    this.providerName = providerName;
+    this.latencies = new long[windowSize];
+    this.outcomes = new byte[windowSize];
+    this.minSamples = minSamples;
+    this.failureThreshold = failureThreshold;
+    this.slowCallNanos = slowCallThreshold.toNanos();
+    this.openNanos = openDuration.toNanos();
+  }
+
+  /**
+   * Records the outcome of a call and updates the circuit state.
+   *
+   * @param latencyNanos Duration of the call
+   * @param outcome      One of the {@code OUTCOME_*} values
+   */
+  synchronized void record(long latencyNanos, byte outcome) {
+    latencies[next] = latencyNanos;
+    outcomes[next] = outcome;
+    next = (next + 1) % latencies.length;
+    count = Math.min(count + 1, latencies.length);
+
+    var now = clock.getAsLong();
+    refreshState(now);
+    if (state == CircuitState.HALF_OPEN) {
+      // only the probe decides, calls started before it (e.g. before the circuit opened) are just sampled
+      if (probeInFlight && now - latencyNanos >= probeStartedAt) {
+        probeInFlight = false;
+        if (isFailure(latencyNanos, outcome)) {
+          open(now);
+        } else { // probe succeeded, start over with a clean window
+          state = CircuitState.CLOSED;
+          next = 0;
+          count = 0;
+        }
+      }
+    } else if (state == CircuitState.CLOSED && count >= minSamples && failureRatio() >= failureThreshold) {
+      open(now);
+    }
+  }
+
+  /**
+   * Checks if a request can be routed to the provider, without claiming anything, so it is safe to call
+   * while filtering and ordering candidates. Once the open duration passes the provider is routable again
+   * until a probe is claimed through {@link #tryAcquireProbe()}, and stays unroutable while that probe is in
+   * flight, or until the slow call threshold passes without its outcome, e.g. when the probe was never sent.
+   *
+   * @return {@code false} while the circuit is open or a probe is in flight
+   */
+  synchronized boolean canRoute() {
+    var now = clock.getAsLong();
+    refreshState(now);
+    if (state != CircuitState.HALF_OPEN) {
+      return state == CircuitState.CLOSED;
+    }
+    return !isProbing(now);
+  }
+
+  /**
+   * Claims the call about to be sent to the provider. While the circuit is half open only a single call is
+   * let through as a probe, its outcome closes or reopens the circuit.
+   *
+   * @return {@code true} if the call may be sent, always while the circuit is closed
+   */
+  synchronized boolean tryAcquireProbe() {
+    var now = clock.getAsLong();
+    refreshState(now);
+    if (state != CircuitState.HALF_OPEN) {
+      return state == CircuitState.CLOSED;
+    }
+    if (isProbing(now)) {
+      return false;
+    }
+    probeInFlight = true;
+    probeStartedAt = now;
+    return true;
+  }
+
+  /**
+   * Takes a consistent copy of the current statistics.
+   *
+   * @return {@link Snapshot} of the provider health
+   */
+  synchronized Snapshot snapshot() {
+    refreshState(clock.getAsLong());
+    long totalLatency = 0;
+    int rejected = 0;
+    int errors = 0;
+    for (int i = 0; i < count; i++) {
+      totalLatency += latencies[i];
+      if (outcomes[i] == OUTCOME_REJECTED) {
+        rejected++;
+      } else if (outcomes[i] == OUTCOME_ERROR) {
+        errors++;
+      }
+    }
+    return new Snapshot(providerName, state, count,
+      count == 0 ? 0 : Duration.ofNanos(totalLatency / count).toMillis(),
+      count == 0 ? 0 : (double) errors / count,
+      count == 0 ? 0 : (double) rejected / count);
+  }
+
+  private void refreshState(long now) {
+    if (state == CircuitState.OPEN && now - openedAt >= openNanos) {
+      state = CircuitState.HALF_OPEN;
+    }
+  }
+
+  private boolean isProbing(long now) {
+    return probeInFlight && now - probeStartedAt < slowCallNanos;
+  }
+
+  private void open(long now) {
+    state = CircuitState.OPEN;
+    openedAt = now;
+    probeInFlight = false;
+  }
+
+  private double failureRatio() {
+    int failures = 0;
+    for (int i = 0; i < count; i++) {
+      if (isFailure(latencies[i], outcomes[i])) {
+        failures++;
+      }
+    }
+    return (double) failures / count;
+  }
+
+  private boolean isFailure(long latencyNanos, byte outcome) {
+    return outcome != OUTCOME_SUCCESS || latencyNanos >= slowCallNanos;
+  }
+
+  /**
+   * Point in time statistics of a load provider.
+   *
+   * @param providerName Name of the provider
+   * @param state        Circuit state
+   * @param samples      Number of calls in the window
+   * @param avgLatencyMs Average call latency in milliseconds
+   * @param errorRate    Ratio of calls that failed or got no response
+   * @param rejectRate   Ratio of calls rejected by the provider
+   */
+  public record Snapshot(String providerName, CircuitState state, int samples,
+                         long avgLatencyMs, double errorRate, double rejectRate) {
+  }
+}
@@ -0,0 +1,136 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.engine.load;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.abavilla.fpi.telco.ext.enums.ApiStatus;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Tracks the rolling latency, error rate and rejection rate of every load provider.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class ProviderHealthTracker {
+
+  /**
+   * Number of most recent calls kept per provider
+   */
+  @ConfigProperty(name = "fpi.load.routing.health.window-size", defaultValue = "50")
+  int windowSize;
+
+  /**
+   * Minimum calls in the window before the circuit can open
+   */
+  @ConfigProperty(name = "fpi.load.routing.health.min-samples", defaultValue = "10")
+  int minSamples;
+
+  /**
+   * Ratio of failed, rejected or slow calls that opens the circuit
+   */
+  @ConfigProperty(name = "fpi.load.routing.health.failure-threshold", defaultValue = "0.5")
+  double failureThreshold;
+
+  /**
+   * Calls taking longer than this are counted as failures
+   */
+  @ConfigProperty(name = "fpi.load.routing.health.slow-call-threshold", defaultValue = "15S")
+  Duration slowCallThreshold;
+
+  /**
+   * Time the circuit stays open before probing the provider again
+   */
+  @ConfigProperty(name = "fpi.load.routing.health.open-duration", defaultValue = "60S")
+  Duration openDuration;
+
+  private final Map<String, ProviderHealth> providers = new ConcurrentHashMap<>();
+
+  /**
+   * Records the result of a provider call.
+   *
+   * @param providerName Name of the provider
+   * @param latencyNanos Duration of the call
+   * @param status       Status returned for the load, {@code null} if the call failed
+   */
+  public void record(String providerName, long latencyNanos, ApiStatus status) {
+    byte outcome;
+    if (status == ApiStatus.WAIT) {
+      outcome = ProviderHealth.OUTCOME_SUCCESS;
+    } else if (status == ApiStatus.REJ) {
+      outcome = ProviderHealth.OUTCOME_REJECTED;
+    } else { // no response from provider
+      outcome = ProviderHealth.OUTCOME_ERROR;
+    }
+    health(providerName).record(latencyNanos, outcome);
+  }
+
+  /**
+   * Checks if the provider circuit allows routing requests to it, without claiming the half open probe.
+   *
+   * @param providerName Name of the provider
+   * @return {@code false} if the circuit is open or its probe is in flight
+   */
+  public boolean canRoute(String providerName) {
+    return health(providerName).canRoute();
+  }
+
+  /**
+   * Claims the call about to be sent to the provider, the single probe if its circuit is half open.
+   *
+   * @param providerName Name of the provider
+   * @return {@code false} if the circuit is open or its probe is already in flight
+   */
+  public boolean tryAcquireProbe(String providerName) {
+    return health(providerName).tryAcquireProbe();
+  }
+
+  /**
+   * Retrieves the current statistics of the provider.
+   *
+   * @param providerName Name of the provider
+   * @return {@link ProviderHealth.Snapshot} of the provider
+   */
+  public ProviderHealth.Snapshot snapshot(String providerName) {
+    return health(providerName).snapshot();
+  }
+
+  /**
+   * Retrieves the current statistics of all providers that were called at least once.
+   *
+   * @return list of {@link ProviderHealth.Snapshot}
+   */
+  public List<ProviderHealth.Snapshot> snapshots() {
+    return providers.values().stream()
+      .map(ProviderHealth::snapshot)
+      .sorted(Comparator.comparing(ProviderHealth.Snapshot::providerName))
+      .toList();
+  }
+
+  private ProviderHealth health(String providerName) {
+    return providers.computeIfAbsent(providerName, name -> new ProviderHealth(name, windowSize,
+      minSamples, failureThreshold, slowCallThreshold, openDuration));
+  }
+}
@@ -0,0 +1,257 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.engine.load;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.abavilla.fpi.load.exceptions.ProviderThrottledEx;
+import io.smallrye.mutiny.Uni;
+
+/**
+ * Token bucket rate limiter and concurrency bulkhead in front of a single load provider. Calls finding no
+ * permit wait in a bounded FIFO queue, and are turned away once the queue is full or their wait runs out.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public class ProviderLimiter {
+
+  private final String providerName;
+  private final double permitsPerNano;
+  private final double burst;
+  private final int maxConcurrent;
+  private final int queueSize;
+  private final long maxWaitNanos;
+  private final ScheduledExecutorService scheduler;
+
+  private final Deque<Waiter> queue = new ArrayDeque<>();
+  private double tokens;
+  private long refilledAt;
+  private int active;
+  private boolean drainScheduled;
+
+  /**
+   * Creates the limiter, starting with a full bucket.
+   *
+   * @param providerName  Name of the provider
+   * @param ratePerSecond Permits added to the bucket per second, {@code 0} for no rate limit
+   * @param burst         Capacity of the bucket, {@code 0} for one second worth of permits
+   * @param maxConcurrent Calls in flight at once, {@code 0} for no limit
+   * @param queueSize     Calls allowed to wait for a permit
+   * @param maxWait       Time a call may wait for a permit
+   * @param scheduler     Executor for refills and wait timeouts
+   */
+  public ProviderLimiter(String providerName, double ratePerSecond, int burst, int maxConcurrent,
+                         int queueSize, Duration maxWait, ScheduledExecutorService scheduler) {
+    this.providerName = providerName;
+    this.permitsPerNano = Math.max(0, ratePerSecond) / TimeUnit.SECONDS.toNanos(1);
+    this.burst = burst > 0 ? burst : Math.max(1, ratePerSecond);
+    this.maxConcurrent = maxConcurrent > 0 ? maxConcurrent : Integer.MAX_VALUE;
+    this.queueSize = Math.max(0, queueSize);
+    this.maxWaitNanos = maxWait.toNanos();
+    this.scheduler = scheduler;
+    this.tokens = this.burst;
+    this.refilledAt = System.nanoTime();
+  }
+
+  /**
+   * Takes a permit on subscription, waiting in the queue if none is available.
+   *
+   * @return {@link Uni} of the {@link Permit}, to be released once the provider call completes, fails with
+   * {@link ProviderThrottledEx} if the queue is full or no permit was available within the maximum wait
+   */
+  Uni<Permit> acquire() {
+    return Uni.createFrom().deferred(() -> {
+      var waiter = new Waiter(System.nanoTime());
+      synchronized (this) {
+        refill(waiter.enqueuedAt);
+        if (queue.isEmpty() && hasPermit()) {
+          take();
+          return Uni.createFrom().item(new Permit(0));
+        }
+        if (queue.size() >= queueSize) {
+          return Uni.createFrom().failure(new ProviderThrottledEx(providerName, ProviderThrottledEx.QUEUE_FULL));
+        }
+        queue.add(waiter);
+        waiter.timeout = scheduler.schedule(() -> expire(waiter), maxWaitNanos, TimeUnit.NANOSECONDS);
+        scheduleDrain();
+      }
+      waiter.future.whenComplete((permit, ex) -> {
+        if (waiter.future.isCancelled()) { // subscriber gone while waiting
+          remove(waiter);
+        }
+      });
+      return Uni.createFrom().completionStage(waiter.future)
+        .onCancellation().invoke(() -> { // granted just as the subscriber went away
+          if (waiter.future.isDone() && !waiter.future.isCompletedExceptionally()) {
+            waiter.future.join().release();
+          }
+        });
+    });
+  }
+
+  /**
+   * Retrieves the number of calls waiting for a permit.
+   *
+   * @return queue depth
+   */
+  synchronized int queueDepth() {
+    return queue.size();
+  }
+
+  /**
+   * Retrieves the number of calls holding a permit.
+   *
+   * @return calls in flight
+   */
+  synchronized int inFlight() {
+    return active;
+  }
+
+  private boolean hasPermit() {
+    return active < maxConcurrent && (permitsPerNano == 0 || tokens >= 1);
+  }
+
+  private void take() {
+    active++;
+    if (permitsPerNano > 0) {
+      tokens--;
+    }
+  }
+
+  private void refill(long now) {
+    if (permitsPerNano > 0) {
+      tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+    }
+    refilledAt = now;
+  }
+
+  /**
+   * Hands permits to the waiting calls in order, must hold the lock.
+   *
+   * @return the waiters granted a permit, to be completed outside the lock
+   */
+  private List<Waiter> drain() {
+    refill(System.nanoTime());
+    List<Waiter> granted = List.of();
+    while (!queue.isEmpty() && hasPermit()) {
+      if (granted.isEmpty()) {
+        granted = new ArrayList<>();
+      }
+      granted.add(queue.poll());
+      take();
+    }
+    scheduleDrain();
+    return granted;
+  }
+
+  /**
+   * Schedules a drain for when the next token is due if the head of the queue only waits for the rate
+   * limit, a call completing drains the queue by itself. Must hold the lock.
+   */
+  private void scheduleDrain() {
+    if (!queue.isEmpty() && active < maxConcurrent && permitsPerNano > 0 && !drainScheduled) {
+      drainScheduled = true;
+      var delay = (long) Math.ceil((1 - tokens) / permitsPerNano);
+      scheduler.schedule(() -> {
+        List<Waiter> granted;
+        synchronized (this) {
+          drainScheduled = false;
+          granted = drain();
+        }
+        grant(granted);
+      }, Math.max(0, delay), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void grant(List<Waiter> granted) {
+    var now = System.nanoTime();
+    for (var waiter : granted) {
+      waiter.timeout.cancel(false);
+      var permit = new Permit(now - waiter.enqueuedAt);
+      if (!waiter.future.complete(permit)) { // cancelled in the meantime
+        permit.release();
+      }
+    }
+  }
+
+  private void expire(Waiter waiter) {
+    if (remove(waiter)) {
+      waiter.future.completeExceptionally(new ProviderThrottledEx(providerName, ProviderThrottledEx.TIMEOUT));
+    }
+  }
+
+  private synchronized boolean remove(Waiter waiter) {
+    return queue.remove(waiter);
+  }
+
+  private static class Waiter {
+    private final long enqueuedAt;
+    private final CompletableFuture<Permit> future = new CompletableFuture<>();
+    private ScheduledFuture<?> timeout;
+
+    private Waiter(long enqueuedAt) {
+      this.enqueuedAt = enqueuedAt;
+    }
+  }
+
+  /**
+   * Permission to make one provider call, released exactly once however many times {@link #release()}
+   * is called.
+   */
+  public class Permit {
+    private final long waitNanos;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Permit(long waitNanos) {
+      this.waitNanos = waitNanos;
+    }
+
+    /**
+     * Retrieves the time spent waiting for the permit.
+     *
+     * @return wait in nanoseconds
+     */
+    public long waitNanos() {
+      return waitNanos;
+    }
+
+    /**
+     * Returns the permit, letting the next waiting call through.
+     */
+    public void release() {
+      if (released.compareAndSet(false, true)) {
+        List<Waiter> granted;
+        synchronized (ProviderLimiter.this) {
+          active--;
+          granted = drain();
+        }
+        grant(granted);
+      }
+    }
+  }
+}
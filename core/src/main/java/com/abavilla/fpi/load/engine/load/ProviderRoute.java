@@ -0,0 +1,37 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.engine.load;
+
+import java.math.BigDecimal;
+
+import com.abavilla.fpi.load.service.load.AbsLoadProviderSvc;
+
+/**
+ * A load provider candidate for a promo, as compiled in the {@link RoutingTable}.
+ *
+ * @param provider          Load provider service
+ * @param productCode       Product code of the promo on the provider
+ * @param wholesaleDiscount Discount given by the provider for the promo
+ * @param priority          Static priority of the provider, lower is preferred
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public record ProviderRoute(AbsLoadProviderSvc provider, String productCode,
+                            BigDecimal wholesaleDiscount, long priority) {
+}
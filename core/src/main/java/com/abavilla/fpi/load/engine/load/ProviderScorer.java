@@ -0,0 +1,38 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.engine.load;
+
+/**
+ * Scoring function used by the {@link LoadEngine} to order provider candidates when routing by health,
+ * implement as a CDI bean to replace the default {@link LatencyWeightedScorer}.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public interface ProviderScorer {
+
+  /**
+   * Scores a provider candidate, lower is preferred.
+   *
+   * @param position Position of the route in the cost ordered routing table
+   * @param route    Provider route
+   * @param health   Current health of the provider
+   * @return the score
+   */
+  double score(int position, ProviderRoute route, ProviderHealth.Snapshot health);
+}
@@ -0,0 +1,127 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.engine.load;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.abavilla.fpi.load.exceptions.ProviderThrottledEx;
+import com.abavilla.fpi.load.service.LoadMetrics;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Keeps the calls to each load provider within its rate limit and concurrency limit, so spikes queue up
+ * briefly on our side instead of being rejected by the provider. Each setting can be overridden per
+ * provider with {@code fpi.load.throttle.provider.<providerName>.<setting>}.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class ProviderThrottle {
+
+  private static final String PROVIDER_PREFIX = "fpi.load.throttle.provider.";
+
+  @ConfigProperty(name = "fpi.load.throttle.enabled", defaultValue = "true")
+  boolean enabled;
+
+  /**
+   * Calls per second allowed to a provider, {@code 0} for no rate limit
+   */
+  @ConfigProperty(name = "fpi.load.throttle.rate", defaultValue = "20")
+  double rate;
+
+  /**
+   * Calls allowed at once after an idle period, {@code 0} for one second worth of calls
+   */
+  @ConfigProperty(name = "fpi.load.throttle.burst", defaultValue = "0")
+  int burst;
+
+  /**
+   * Calls in flight to a provider at once, {@code 0} for no limit
+   */
+  @ConfigProperty(name = "fpi.load.throttle.max-concurrent", defaultValue = "32")
+  int maxConcurrent;
+
+  /**
+   * Calls allowed to wait for a permit, further calls are turned away at once
+   */
+  @ConfigProperty(name = "fpi.load.throttle.queue-size", defaultValue = "200")
+  int queueSize;
+
+  /**
+   * Time a call may wait for a permit before it is turned away
+   */
+  @ConfigProperty(name = "fpi.load.throttle.max-wait", defaultValue = "5S")
+  Duration maxWait;
+
+  @Inject
+  Config config;
+
+  @Inject
+  LoadMetrics loadMetrics;
+
+  private final Map<String, ProviderLimiter> limiters = new ConcurrentHashMap<>();
+
+  /**
+   * Makes the provider call once the provider throttle lets it through.
+   *
+   * @param providerName Name of the provider
+   * @param call         Provider call, subscribed to only once a permit is taken
+   * @param <T>          Type of the response
+   * @return the response of the call, or fails with {@link ProviderThrottledEx} if the provider is saturated
+   */
+  public <T> Uni<T> throttle(String providerName, Supplier<Uni<T>> call) {
+    if (!enabled) {
+      return Uni.createFrom().deferred(() -> call.get());
+    }
+    return limiter(providerName).acquire()
+      .onFailure(ProviderThrottledEx.class).invoke(ex ->
+        loadMetrics.countThrottled(providerName, ((ProviderThrottledEx) ex).getReason()))
+      .chain(permit -> {
+        loadMetrics.recordThrottleWait(providerName, permit.waitNanos());
+        return Uni.createFrom().deferred(() -> call.get())
+          .onTermination().invoke(permit::release);
+      });
+  }
+
+  private ProviderLimiter limiter(String providerName) {
+    return limiters.computeIfAbsent(providerName, name -> {
+      var limiter = new ProviderLimiter(name,
+        setting(name, "rate", Double.class, rate),
+        setting(name, "burst", Integer.class, burst),
+        setting(name, "max-concurrent", Integer.class, maxConcurrent),
+        setting(name, "queue-size", Integer.class, queueSize),
+        setting(name, "max-wait", Duration.class, maxWait),
+        Infrastructure.getDefaultWorkerPool());
+      loadMetrics.gaugeThrottle(name, limiter, ProviderLimiter::queueDepth, ProviderLimiter::inFlight);
+      return limiter;
+    });
+  }
+
+  private <T> T setting(String providerName, String name, Class<T> type, T defaultValue) {
+    return config.getOptionalValue(PROVIDER_PREFIX + providerName + "." + name, type).orElse(defaultValue);
+  }
+}
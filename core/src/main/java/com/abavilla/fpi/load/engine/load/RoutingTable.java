@@ -0,0 +1,117 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.engine.load;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.abavilla.fpi.load.entity.load.PromoSku;
+import com.abavilla.fpi.load.entity.load.ProviderOffer;
+import com.abavilla.fpi.load.service.load.AbsLoadProviderSvc;
+import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
+
+/**
+ * Immutable table of ordered {@link ProviderRoute} candidates per {@link PromoSku} id.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public final class RoutingTable {
+
+  /**
+   * Table with no routes
+   */
+  public static final RoutingTable EMPTY = new RoutingTable(Map.of());
+
+  private final Map<ObjectId, List<ProviderRoute>> routes;
+
+  private RoutingTable(Map<ObjectId, List<ProviderRoute>> routes) {
+    this.routes = routes;
+  }
+
+  /**
+   * Compiles the routes of every promo.
+   *
+   * @param promos    Promos to compile
+   * @param providers Available load providers
+   * @return the routing table
+   */
+  public static RoutingTable compile(Collection<PromoSku> promos, List<AbsLoadProviderSvc> providers) {
+    var routes = new HashMap<ObjectId, List<ProviderRoute>>(promos.size() * 2);
+    for (var promo : promos) {
+      if (promo.getId() != null) {
+        routes.put(promo.getId(), compile(promo, providers));
+      }
+    }
+    return new RoutingTable(Map.copyOf(routes));
+  }
+
+  /**
+   * Orders the providers carrying the promo by wallet cost, the provider with the highest wholesale discount first.
+   * If a provider is listed more than once in the offers, its best offer is used. Providers with the same offer
+   * position are then ordered by priority.
+   *
+   * @param promo     Promo to compile
+   * @param providers Available load providers
+   * @return Ordered routes, empty if no provider carries the promo
+   */
+  public static List<ProviderRoute> compile(PromoSku promo, List<AbsLoadProviderSvc> providers) {
+    if (promo.getOffers() == null) {
+      return List.of();
+    }
+    var offers = promo.getOffers().stream()
+      .sorted(Comparator.comparing(ProviderOffer::getWholesaleDiscount,
+        Comparator.nullsLast(Comparator.reverseOrder()))) // sort list by wallet cost
+      .toList();
+
+    var candidates = new ArrayList<ProviderRoute>();
+    for (var offer : offers) {
+      providers.stream()
+        .filter(provider -> StringUtils.equals(offer.getProviderName(), provider.getProviderName()))
+        .filter(provider -> candidates.stream().noneMatch(route -> route.provider() == provider))
+        .sorted(Comparator.comparingLong(AbsLoadProviderSvc::getPriority))
+        .forEach(provider -> candidates.add(new ProviderRoute(provider, offer.getProductCode(),
+          offer.getWholesaleDiscount(), provider.getPriority())));
+    }
+    return List.copyOf(candidates);
+  }
+
+  /**
+   * Retrieves the compiled routes of the promo.
+   *
+   * @param promoId Promo id
+   * @return Ordered routes, {@code null} if the promo is not in the table
+   */
+  public List<ProviderRoute> get(ObjectId promoId) {
+    return promoId == null ? null : routes.get(promoId);
+  }
+
+  /**
+   * Read only view of the whole table.
+   *
+   * @return Routes keyed by promo id
+   */
+  public Map<ObjectId, List<ProviderRoute>> asMap() {
+    return routes;
+  }
+}
@@ -0,0 +1,67 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.entity.load;
+
+import java.time.LocalDateTime;
+
+import com.abavilla.fpi.fw.entity.mongo.AbsMongoField;
+import com.abavilla.fpi.telco.ext.enums.ApiStatus;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.bson.codecs.pojo.annotations.BsonDiscriminator;
+
+/**
+ * Outcome of an acknowledgement message sent on one channel after a provider callback.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@RegisterForReflection
+@NoArgsConstructor
+@BsonDiscriminator
+public class AckStatus extends AbsMongoField {
+
+  /**
+   * Channel the message was sent on, see {@code LoadConst.ACK_CH_*}
+   */
+  private String channel;
+
+  /**
+   * Result of the send, see {@code LoadConst.ACK_*}
+   */
+  private String outcome;
+
+  /**
+   * Load status reported by the callback that triggered the message
+   */
+  private ApiStatus loadStatus;
+
+  /**
+   * Error encountered while sending, if any
+   */
+  private String error;
+
+  /**
+   * Time the send completed or gave up
+   */
+  private LocalDateTime dateSent;
+}
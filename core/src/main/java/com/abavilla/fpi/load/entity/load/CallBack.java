@@ -28,6 +28,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.bson.codecs.pojo.annotations.BsonDiscriminator;
+import org.bson.types.ObjectId;
 
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -38,4 +39,9 @@ public class CallBack extends AbsMongoField {
   private AbsMongoItem content;
   private ApiStatus status;
   private LocalDateTime dateReceived;
+
+  /**
+   * Id of the callback inbox entry the callback was applied from, guards against applying it twice
+   */
+  private ObjectId inboxId;
 }
@@ -0,0 +1,93 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.entity.load;
+
+import java.time.LocalDateTime;
+
+import com.abavilla.fpi.fw.entity.mongo.AbsMongoItem;
+import com.abavilla.fpi.load.entity.enums.InboxState;
+import com.abavilla.fpi.telco.ext.enums.ApiStatus;
+import io.quarkus.mongodb.panache.common.MongoEntity;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.bson.codecs.pojo.annotations.BsonDiscriminator;
+
+/**
+ * Provider callback received but not yet applied to its {@link RewardsTransStatus}. Entries are claimed by
+ * a worker through a time limited lease, so an entry whose worker died is picked up again once the lease
+ * expires. Callbacks arriving before their transaction id is known are parked until released by the load
+ * request or until they expire.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@RegisterForReflection
+@NoArgsConstructor
+@BsonDiscriminator
+@MongoEntity(collection = "callback_inbox")
+public class CallbackInbox extends AbsMongoItem {
+
+  /**
+   * Callback as received from the provider
+   */
+  private AbsMongoItem content;
+
+  /**
+   * Load status reported by the callback
+   */
+  private ApiStatus status;
+
+  /**
+   * Provider that sent the callback
+   */
+  private String loadProvider;
+
+  /**
+   * Provider transaction id the callback refers to
+   */
+  private Long transactionId;
+
+  /**
+   * Processing state of the entry
+   */
+  private InboxState state;
+
+  /**
+   * Number of times the entry was claimed
+   */
+  private int attempts;
+
+  /**
+   * Time until the current claim is held by a worker
+   */
+  private LocalDateTime lockedUntil;
+
+  /**
+   * Time until a callback received ahead of its transaction waits to be matched before it is treated as a leak
+   */
+  private LocalDateTime parkedUntil;
+
+  /**
+   * W3C trace context of the callback request, so processing continues its trace
+   */
+  private String traceparent;
+}
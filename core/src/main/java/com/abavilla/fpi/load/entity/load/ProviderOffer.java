@@ -28,6 +28,11 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.bson.codecs.pojo.annotations.BsonDiscriminator;
 
+/**
+ * Offer of a promo by a load provider.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
 @Data
 @EqualsAndHashCode(callSuper = false)
 @RegisterForReflection
@@ -35,7 +40,20 @@ import org.bson.codecs.pojo.annotations.BsonDiscriminator;
 @AllArgsConstructor
 @BsonDiscriminator
 public class ProviderOffer extends AbsMongoField {
+
+  /**
+   * Name of the load provider, e.g. {@code GlobeLabs}
+   */
   private String providerName;
+
+  /**
+   * Discount of the provider's wholesale price off the retail price, as a fraction from 0 to 1 (e.g. 0.05 for
+   * 5%). Offers of different providers are ranked by this value so all of them must use the same unit.
+   */
   private BigDecimal wholesaleDiscount;
+
+  /**
+   * Product code of the promo at the provider
+   */
   private String productCode;
 }
@@ -45,8 +45,10 @@ public class RewardsTransStatus extends AbsMongoItem {
   private AbsMongoField apiRequest;
   private AbsMongoField apiResponse;
   private List<CallBack> apiCallback;
+  private List<AckStatus> ackStatus;
   private BotSource source;
   private String fpiUser;
+  private String traceparent;
 
   public List<CallBack> getApiCallback() {
     if (apiCallback == null) {
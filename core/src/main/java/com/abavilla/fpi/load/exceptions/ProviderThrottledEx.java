@@ -0,0 +1,61 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.exceptions;
+
+import com.abavilla.fpi.fw.exceptions.FPISvcEx;
+import lombok.Getter;
+import lombok.ToString;
+import org.jboss.resteasy.reactive.RestResponse;
+
+/**
+ * Raised when a load is turned away before reaching the provider because its rate limit or concurrency
+ * limit is saturated. The load was never sent, so it is safe to retry or fail over to another provider.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@Getter
+@ToString(callSuper = true)
+public class ProviderThrottledEx extends FPISvcEx {
+
+  /**
+   * Wait queue of the provider is full
+   */
+  public static final String QUEUE_FULL = "queue-full";
+
+  /**
+   * No permit was available within the maximum wait
+   */
+  public static final String TIMEOUT = "timeout";
+
+  /**
+   * Name of the throttled provider
+   */
+  private final String providerName;
+
+  /**
+   * Either {@link #QUEUE_FULL} or {@link #TIMEOUT}
+   */
+  private final String reason;
+
+  public ProviderThrottledEx(String providerName, String reason) {
+    super(providerName + " is busy, try again later", RestResponse.StatusCode.TOO_MANY_REQUESTS);
+    this.providerName = providerName;
+    this.reason = reason;
+  }
+}
@@ -23,6 +23,7 @@ import java.util.List;
 import com.abavilla.fpi.fw.entity.mongo.AbsMongoField;
 import com.abavilla.fpi.fw.mapper.IMapper;
 import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.load.dto.load.LoadRefDto;
 import com.abavilla.fpi.load.dto.load.LoadReqDto;
 import com.abavilla.fpi.load.dto.load.gl.GLRewardsReqDto;
 import com.abavilla.fpi.load.dto.load.gl.GLRewardsRespDto;
@@ -37,12 +38,14 @@ import com.dtone.dvs.dto.Transaction;
 import com.dtone.dvs.dto.TransactionRequest;
 import jakarta.inject.Inject;
 import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
 import org.mapstruct.BeanMapping;
 import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingConstants;
 import org.mapstruct.MappingTarget;
+import org.mapstruct.Named;
 
 @Mapper(componentModel = MappingConstants.ComponentModel.CDI,
     injectionStrategy = InjectionStrategy.CONSTRUCTOR, uses = LoadReqEntityMapper.class)
@@ -68,6 +71,13 @@ public abstract class RewardsTransStatusMapper implements IMapper {
   public abstract void mapLoadReqToEntity(LoadReqDto loadReqDto,
                                           @MappingTarget RewardsTransStatus dest);
 
+  @Mapping(target = "rewardsTransId", source = "id", qualifiedByName = "objectIdToHex")
+  @Mapping(target = "mobile", source = "loadRequest.mobile")
+  @Mapping(target = "sku", source = "loadRequest.sku")
+  @Mapping(target = "status", source = "apiCallback", qualifiedByName = "latestCallbackStatus")
+  @Mapping(target = "error", ignore = true)
+  public abstract LoadRefDto mapEntityToLoadRef(RewardsTransStatus rewardsTransStatus);
+
   /**
    * Adds initial callback
    * @return initial callback list
@@ -93,6 +103,16 @@ public abstract class RewardsTransStatusMapper implements IMapper {
     return field;
   }
 
+  @Named("latestCallbackStatus")
+  ApiStatus latestCallbackStatus(List<CallBack> callBacks) {
+    return callBacks == null || callBacks.isEmpty() ? null : callBacks.get(callBacks.size() - 1).getStatus();
+  }
+
+  @Named("objectIdToHex")
+  String objectIdToHex(ObjectId id) {
+    return id == null ? null : id.toHexString();
+  }
+
   BotSource strToBotSource(String value) {
     return StringUtils.isNotBlank(value) ? BotSource.fromValue(value) : null;
   }
@@ -66,6 +66,20 @@ public interface DTOneMapper extends IMapper {
   @Mapping(target = "loadProvider", constant = LoadConst.PROV_DTONE)
   DVSCallback mapDTOneRespToEntity(DVSCallbackDto dto);
 
+  @Mapping(target = "id", ignore = true)
+  @Mapping(target = "dtOneId", source = "id")
+  @Mapping(target = "loadProvider", constant = LoadConst.PROV_DTONE)
+  DVSCallback mapDTOneTransactionToEntity(Transaction dto);
+
+  @AfterMapping
+  default void postMapDTOneTransactionToEntity(Transaction dvsCallbackTransaction, @MappingTarget DVSCallback dvsCallback) {
+    if (dvsCallbackTransaction instanceof TransactionFixed fixed && ObjectUtils.isNotEmpty(fixed.getBenefits())) {
+      dvsCallback.setBenefits(new ArrayList<>(fixed.getBenefits()));
+    } else if (dvsCallbackTransaction instanceof TransactionRanged ranged && ObjectUtils.isNotEmpty(ranged.getBenefits())) {
+      dvsCallback.setBenefits(new ArrayList<>(ranged.getBenefits()));
+    }
+  }
+
   @Mapping(target = "dtOneId", source = "id")
   DVSCallbackDto mapDTOneTransactionToCallbackDto(Transaction dto);
 
@@ -0,0 +1,79 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.repo;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import io.quarkus.mongodb.FindOptions;
+import io.quarkus.mongodb.reactive.ReactiveMongoCollection;
+
+/**
+ * Where a repository sends its reads and how long the server may spend on each of its queries, declared by
+ * each repository through {@code fpi.load.mongo.<collection>.read-preference} and
+ * {@code fpi.load.mongo.<collection>.max-time}.
+ *
+ * @param readPreference Members the reads are routed to
+ * @param maxTime        Server-side time limit of a query, zero for none
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public record MongoReadOptions(ReadPreference readPreference, Duration maxTime) {
+
+  /**
+   * Creates the options from their configured values.
+   *
+   * @param readPreference Read preference name, e.g. {@code primary} or {@code secondaryPreferred}
+   * @param maxTime        Server-side time limit of a query, zero for none
+   * @return the {@link MongoReadOptions}
+   */
+  public static MongoReadOptions of(String readPreference, Duration maxTime) {
+    return new MongoReadOptions(ReadPreference.valueOf(readPreference), maxTime);
+  }
+
+  /**
+   * Routes the reads of the collection according to the read preference.
+   *
+   * @param collection Collection of the repository
+   * @param <T>        Type of the documents
+   * @return the collection with the read preference applied
+   */
+  public <T> ReactiveMongoCollection<T> route(ReactiveMongoCollection<T> collection) {
+    return collection.withReadPreference(readPreference);
+  }
+
+  /**
+   * Creates find options bounded by the max time.
+   *
+   * @return new {@link FindOptions}
+   */
+  public FindOptions find() {
+    return new FindOptions().maxTime(maxTime.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates find and update options bounded by the max time.
+   *
+   * @return new {@link FindOneAndUpdateOptions}
+   */
+  public FindOneAndUpdateOptions findOneAndUpdate() {
+    return new FindOneAndUpdateOptions().maxTime(maxTime.toMillis(), TimeUnit.MILLISECONDS);
+  }
+}
@@ -18,10 +18,10 @@
 
 package com.abavilla.fpi.load.repo;
 
-import java.util.Optional;
-
 import com.abavilla.fpi.fw.repo.AbsMongoRepo;
 import com.abavilla.fpi.load.entity.Query;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 
@@ -34,11 +34,27 @@ import jakarta.enterprise.context.ApplicationScoped;
 public class QueryRepo extends AbsMongoRepo<Query> {
 
   /**
-   * Finds {@link Query} by query string.
+   * Inserts the query, relying on the unique {@code query} index to reject a duplicate within a single
+   * write.
+   *
+   * @param query Query to insert
+   * @return {@code true} if inserted, {@code false} if the user already sent the same query
+   */
+  public Uni<Boolean> insertIfAbsent(Query query) {
+    return mongoCollection().insertOne(query).replaceWith(Boolean.TRUE)
+      .onFailure(ex -> ex instanceof MongoWriteException writeEx &&
+        writeEx.getError().getCategory() == ErrorCategory.DUPLICATE_KEY)
+      .recoverWithItem(Boolean.FALSE);
+  }
+
+  /**
+   * Removes a query so the user can send it again.
    *
-   * @return {@link Query} object containing the load query
+   * @param query   Query string
+   * @param fpiUser User who sent the query
+   * @return number of queries removed
    */
-  public Uni<Optional<Query>> findByQuery(String query, String fpiUser) {
-    return find("{ 'query' : ?1, 'fpiUser' : ?2 }", query, fpiUser).firstResultOptional();
+  public Uni<Long> deleteByQuery(String query, String fpiUser) {
+    return delete("{ 'query' : ?1, 'fpiUser' : ?2 }", query, fpiUser);
   }
 }
@@ -0,0 +1,102 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.repo.load;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import com.abavilla.fpi.fw.repo.AbsMongoRepo;
+import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.load.entity.enums.InboxState;
+import com.abavilla.fpi.load.entity.load.CallbackInbox;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.types.ObjectId;
+
+@ApplicationScoped
+public class CallbackInboxRepo extends AbsMongoRepo<CallbackInbox> {
+
+  /**
+   * Atomically claims the oldest entry that is pending, whose lease has expired or that has been parked past
+   * its expiry.
+   *
+   * @param lease Duration the claim is held before another worker can take over
+   * @return the claimed {@link CallbackInbox}, {@code null} if there is nothing to process
+   */
+  public Uni<CallbackInbox> claimNext(Duration lease) {
+    var now = DateUtil.now();
+    return mongoCollection().findOneAndUpdate(
+      Filters.or(
+        Filters.eq("state.ord", InboxState.PENDING.getId()),
+        Filters.and(
+          Filters.eq("state.ord", InboxState.PROCESSING.getId()),
+          Filters.lt("lockedUntil", now)),
+        Filters.and(
+          Filters.eq("state.ord", InboxState.PARKED.getId()),
+          Filters.lt("parkedUntil", now))),
+      Updates.combine(
+        Updates.set("state", InboxState.PROCESSING),
+        Updates.set("lockedUntil", now.plus(lease)),
+        Updates.set("dateUpdated", now),
+        Updates.inc("attempts", 1)),
+      new FindOneAndUpdateOptions()
+        .sort(Sorts.ascending("dateCreated"))
+        .returnDocument(ReturnDocument.AFTER));
+  }
+
+  /**
+   * Parks a claimed entry until its transaction is stored or the given time passes.
+   *
+   * @param id          Id of the inbox entry
+   * @param parkedUntil Expiry of the parked entry
+   * @return {@link UpdateResult}
+   */
+  public Uni<UpdateResult> park(ObjectId id, LocalDateTime parkedUntil) {
+    return mongoCollection().updateOne(Filters.eq(id),
+      Updates.combine(
+        Updates.set("state", InboxState.PARKED),
+        Updates.set("parkedUntil", parkedUntil),
+        Updates.set("dateUpdated", DateUtil.now()),
+        Updates.unset("lockedUntil")));
+  }
+
+  /**
+   * Makes the parked callbacks of a transaction available to the workers again.
+   *
+   * @param provider      Provider that sent the callbacks
+   * @param transactionId Provider transaction id
+   * @return {@link UpdateResult}
+   */
+  public Uni<UpdateResult> releaseParked(String provider, Long transactionId) {
+    return mongoCollection().updateMany(
+      Filters.and(
+        Filters.eq("state.ord", InboxState.PARKED.getId()),
+        Filters.eq("loadProvider", provider),
+        Filters.eq("transactionId", transactionId)),
+      Updates.combine(
+        Updates.set("state", InboxState.PENDING),
+        Updates.set("dateUpdated", DateUtil.now())));
+  }
+}
@@ -16,93 +16,151 @@
  * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
  ******************************************************************************/
 
+
 package com.abavilla.fpi.load.repo.load;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
 import com.abavilla.fpi.fw.repo.AbsMongoRepo;
+import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.load.entity.enums.SkuType;
 import com.abavilla.fpi.load.entity.load.PromoSku;
+import com.abavilla.fpi.load.repo.MongoReadOptions;
 import com.abavilla.fpi.telco.ext.enums.Telco;
-import io.quarkus.panache.common.Sort;
+import com.mongodb.ReadPreference;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.apache.commons.lang3.math.NumberUtils;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 @ApplicationScoped
 public class PromoSkuRepo extends AbsMongoRepo<PromoSku> {
 
+  /**
+   * Single promo lookups tolerate a slightly stale catalog, so they can be served by secondaries. The full
+   * catalog is always read from the primary, see {@link #listCatalog()}.
+   */
+  @ConfigProperty(name = "fpi.load.mongo.promo-sku.read-preference", defaultValue = "secondaryPreferred")
+  String readPreference;
+
+  @ConfigProperty(name = "fpi.load.mongo.promo-sku.max-time", defaultValue = "5S")
+  Duration maxTime;
+
+  private MongoReadOptions readOptions;
+
+  @PostConstruct
+  void init() {
+    readOptions = MongoReadOptions.of(readPreference, maxTime);
+  }
+
   public Uni<Optional<PromoSku>> findByTelcoAndDenominationOrKeyword(Telco telco, String keyword) {
-    return find("""
-            {
-              $and: [
-                { 'telco.value': ?1 },
-                {
-                  $or: [
-                    {
-                       $and: [
-                         {'keywords': ?2},
-                         {
-                           $or: [
-                             {'type.value': 'Bundle' },
-                             {'type.value': 'Credits' }
-                           ]
-                         }
-                       ]
-                    },
-                    {
-                       $and: [
-                         { 'type.value': 'Ranged' },
-                         { 'denomination.min': { $lte: ?3 } },
-                         { 'denomination.max': { $gte: ?3 } }
-                       ]
-                    }
-                  ]
-                }
-              ]
-            }
-            """,
-        Sort.by("offers.wholesaleDiscount", Sort.Direction.Descending)
-          .and("type.ord", Sort.Direction.Ascending),
-        telco.getValue(),
-        keyword,
-        NumberUtils.toInt(keyword)
-    ).firstResultOptional();
+    return findFirst(Filters.and(
+      Filters.eq("telco.value", telco.getValue()),
+      matchesKeyword(keyword)));
   }
 
   public Uni<Optional<PromoSku>> findByKeyword(String keyword) {
-    return find("""
-            {
-              $and: [
-                {
-                  $or: [
-                    {
-                       $and: [
-                         {'keywords': ?1},
-                         {
-                           $or: [
-                             {'type.value': 'Bundle' },
-                             {'type.value': 'Credits' }
-                           ]
-                         }
-                       ]
-                    },
-                    {
-                       $and: [
-                         { 'type.value': 'Ranged' },
-                         { 'denomination.min': { $lte: ?2 } },
-                         { 'denomination.max': { $gte: ?2 } }
-                       ]
-                    }
-                  ]
-                }
-              ]
-            }
-            """,
-      Sort.by("offers.wholesaleDiscount", Sort.Direction.Descending)
-        .and("type.ord", Sort.Direction.Ascending),
-        keyword,
-        NumberUtils.toInt(keyword)
-    ).firstResultOptional();
+    return findFirst(matchesKeyword(keyword));
+  }
+
+  /**
+   * Loads the whole catalog from the primary. The catalog is reloaded right after a change is published and
+   * after writes to it, a lagging secondary could miss that change and leave the in-memory catalog stale
+   * until the next unrelated write.
+   *
+   * @return all {@link PromoSku}
+   */
+  public Uni<List<PromoSku>> listCatalog() {
+    return mongoCollection().withReadPreference(ReadPreference.primary())
+      .find(readOptions.find()).collect().asList();
   }
 
+  /**
+   * Builds an update of the product code and wholesale discount of a provider offer, matched by its current
+   * product code so that offers edited since the promo was read are left alone.
+   *
+   * @param skuId             Id of the promo
+   * @param providerName      Provider of the offer
+   * @param productCode       Current product code of the offer
+   * @param newProductCode    Product code to set
+   * @param wholesaleDiscount Wholesale discount to set
+   * @return Update for {@link #bulkWrite(List)}
+   */
+  public WriteModel<PromoSku> updateOffer(ObjectId skuId, String providerName, String productCode,
+                                          String newProductCode, BigDecimal wholesaleDiscount) {
+    return new UpdateOneModel<>(Filters.eq("_id", skuId),
+      Updates.combine(
+        Updates.set("offers.$[offer].productCode", newProductCode),
+        Updates.set("offers.$[offer].wholesaleDiscount", wholesaleDiscount),
+        Updates.set("dateUpdated", DateUtil.now())),
+      new UpdateOptions().arrayFilters(List.of(Filters.and(
+        Filters.eq("offer.providerName", providerName),
+        Filters.eq("offer.productCode", productCode)))));
+  }
+
+  /**
+   * Builds the removal of a provider offer from a promo.
+   *
+   * @param skuId        Id of the promo
+   * @param providerName Provider of the offer
+   * @param productCode  Product code of the offer
+   * @return Update for {@link #bulkWrite(List)}
+   */
+  public WriteModel<PromoSku> removeOffer(ObjectId skuId, String providerName, String productCode) {
+    return new UpdateOneModel<>(Filters.eq("_id", skuId),
+      Updates.combine(
+        Updates.pull("offers", Filters.and(
+          Filters.eq("providerName", providerName),
+          Filters.eq("productCode", productCode))),
+        Updates.set("dateUpdated", DateUtil.now())));
+  }
+
+  /**
+   * Applies the offer updates in a single unordered bulk write.
+   *
+   * @param updates Updates built by {@link #updateOffer} and {@link #removeOffer}
+   * @return Result of the bulk write
+   */
+  public Uni<BulkWriteResult> bulkWrite(List<WriteModel<PromoSku>> updates) {
+    return mongoCollection().bulkWrite(updates, new BulkWriteOptions().ordered(false));
+  }
+
+  private Uni<Optional<PromoSku>> findFirst(Bson filter) {
+    return readOptions.route(mongoCollection())
+      .find(filter, readOptions.find()
+        .sort(Sorts.orderBy(Sorts.descending("offers.wholesaleDiscount"), Sorts.ascending("type.ord")))
+        .limit(1))
+      .collect().first()
+      .map(Optional::ofNullable);
+  }
+
+  /**
+   * Matches bundle and credit promos by keyword, and ranged promos whose denomination range covers the
+   * keyword as an amount.
+   */
+  private static Bson matchesKeyword(String keyword) {
+    var amount = NumberUtils.toInt(keyword);
+    return Filters.or(
+      Filters.and(
+        Filters.eq("keywords", keyword),
+        Filters.in("type.value", SkuType.BUNDLE.getValue(), SkuType.CREDITS.getValue())),
+      Filters.and(
+        Filters.eq("type.value", SkuType.RANGED.getValue()),
+        Filters.lte("denomination.min", amount),
+        Filters.gte("denomination.max", amount)));
+  }
 }
@@ -18,16 +18,150 @@
 
 package com.abavilla.fpi.load.repo.load;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import com.abavilla.fpi.fw.exceptions.ApiSvcEx;
 import com.abavilla.fpi.fw.repo.AbsMongoRepo;
+import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.load.entity.load.AckStatus;
+import com.abavilla.fpi.load.entity.load.CallBack;
 import com.abavilla.fpi.load.entity.load.RewardsTransStatus;
+import com.abavilla.fpi.load.repo.MongoReadOptions;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
 import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 @ApplicationScoped
 public class RewardsTransRepo extends AbsMongoRepo<RewardsTransStatus> {
+
+  /**
+   * Callbacks are matched right after the provider response is stored, so reads stay on the primary
+   */
+  @ConfigProperty(name = "fpi.load.mongo.rewards-log.read-preference", defaultValue = "primary")
+  String readPreference;
+
+  @ConfigProperty(name = "fpi.load.mongo.rewards-log.max-time", defaultValue = "10S")
+  Duration maxTime;
+
+  private MongoReadOptions readOptions;
+
+  @PostConstruct
+  void init() {
+    readOptions = MongoReadOptions.of(readPreference, maxTime);
+  }
+
   public Uni<Optional<RewardsTransStatus>> findByRespTransIdAndProvider(String transId, String provider) {
-    return find("transactionId = ?1 and loadProvider = ?2", transId, provider).firstResultOptional();
+    return readOptions.route(mongoCollection())
+      .find(Filters.and(Filters.eq("transactionId", transId), Filters.eq("loadProvider", provider)),
+        readOptions.find().limit(1))
+      .collect().first()
+      .map(Optional::ofNullable);
+  }
+
+  /**
+   * Finds the transactions of any of the given providers matching any of the given provider transaction ids
+   * in a single query, served by the {@code transactionId_loadProvider} index
+   * ({@code {transactionId: 1, loadProvider: 1}}).
+   *
+   * @param transIds  Provider transaction ids
+   * @param providers Load provider names
+   * @return the matching {@link RewardsTransStatus}, in no particular order
+   */
+  public Uni<List<RewardsTransStatus>> findByRespTransIdsAndProviders(Collection<String> transIds,
+                                                                      Collection<String> providers) {
+    return readOptions.route(mongoCollection())
+      .find(Filters.and(Filters.in("loadProvider", providers), Filters.in("transactionId", transIds)),
+        readOptions.find())
+      .collect().asList();
+  }
+
+  /**
+   * Inserts a new transaction, its id must already be assigned.
+   *
+   * @param rewardsTrans Transaction to insert
+   * @return the inserted {@link RewardsTransStatus}
+   */
+  public Uni<RewardsTransStatus> insert(RewardsTransStatus rewardsTrans) {
+    return mongoCollection().insertOne(rewardsTrans).replaceWith(rewardsTrans);
+  }
+
+  /**
+   * Inserts a transaction unless a transaction with the same id already exists, used when replaying writes
+   * that may have already reached the database.
+   *
+   * @param rewardsTrans Transaction to insert
+   * @return {@code true} if inserted, {@code false} if it already existed
+   */
+  public Uni<Boolean> insertIfAbsent(RewardsTransStatus rewardsTrans) {
+    return mongoCollection().insertOne(rewardsTrans).replaceWith(Boolean.TRUE)
+      .onFailure(ex -> ex instanceof MongoWriteException writeEx &&
+        writeEx.getError().getCategory() == ErrorCategory.DUPLICATE_KEY)
+      .recoverWithItem(Boolean.FALSE);
+  }
+
+  /**
+   * Stores the provider response of a transaction, setting only the fields filled after the provider call
+   * and appending its initial callbacks so callbacks pushed in the meantime are kept.
+   *
+   * @param rewardsTrans Transaction with the provider response mapped
+   * @return the given {@link RewardsTransStatus}, fails with {@link ApiSvcEx} if it no longer exists
+   */
+  public Uni<RewardsTransStatus> updateLoadResponse(RewardsTransStatus rewardsTrans) {
+    return mongoCollection().updateOne(Filters.eq(rewardsTrans.getId()),
+        Updates.combine(
+          Updates.set("loadProvider", rewardsTrans.getLoadProvider()),
+          Updates.set("transactionId", rewardsTrans.getTransactionId()),
+          Updates.set("loadSmsId", rewardsTrans.getLoadSmsId()),
+          Updates.set("apiRequest", rewardsTrans.getApiRequest()),
+          Updates.set("apiResponse", rewardsTrans.getApiResponse()),
+          Updates.pushEach("apiCallback", rewardsTrans.getApiCallback()),
+          Updates.set("dateUpdated", rewardsTrans.getDateUpdated())))
+      .map(result -> {
+        if (result.getMatchedCount() == 0) {
+          throw new ApiSvcEx("Rewards transaction removed: " + rewardsTrans.getId());
+        }
+        return rewardsTrans;
+      });
+  }
+
+  /**
+   * Appends a callback to the transaction in a single atomic update, without rewriting the rest of the
+   * document. A callback from the inbox is only appended if no callback from the same inbox entry is there
+   * yet, so an entry processed again after a crash or lease expiry is not applied twice.
+   *
+   * @param id       Id of the rewards transaction
+   * @param callBack Callback to append
+   * @return the updated {@link RewardsTransStatus}, {@code null} if not found or already applied
+   */
+  public Uni<RewardsTransStatus> pushCallback(ObjectId id, CallBack callBack) {
+    var filter = callBack.getInboxId() == null ? Filters.eq(id) :
+      Filters.and(Filters.eq(id), Filters.ne("apiCallback.inboxId", callBack.getInboxId()));
+    return mongoCollection().findOneAndUpdate(filter,
+      Updates.combine(
+        Updates.push("apiCallback", callBack),
+        Updates.set("dateUpdated", DateUtil.now())),
+      readOptions.findOneAndUpdate().returnDocument(ReturnDocument.AFTER));
+  }
+
+  /**
+   * Records the outcome of an acknowledgement message on the transaction.
+   *
+   * @param id        Id of the rewards transaction
+   * @param ackStatus Outcome to append
+   * @return {@link UpdateResult}
+   */
+  public Uni<UpdateResult> pushAckStatus(ObjectId id, AckStatus ackStatus) {
+    return mongoCollection().updateOne(Filters.eq(id), Updates.push("ackStatus", ackStatus));
   }
 }
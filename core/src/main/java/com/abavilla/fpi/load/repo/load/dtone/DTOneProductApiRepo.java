@@ -0,0 +1,63 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.repo.load.dtone;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import com.abavilla.fpi.fw.rest.IApi;
+import com.abavilla.fpi.load.dto.load.dtone.DTOneProductDto;
+import io.smallrye.mutiny.Uni;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.rest.client.annotation.ClientHeaderParam;
+import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
+import org.jboss.resteasy.reactive.RestResponse;
+
+/**
+ * Product listing of the DVS api, paged through the {@link #NEXT_PAGE} response header.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@RegisterRestClient(configKey = "dtone-api")
+@ClientHeaderParam(name = HttpHeaders.AUTHORIZATION, value = "{basicAuth}")
+public interface DTOneProductApiRepo extends IApi {
+
+  /**
+   * Number of the next page, absent on the last page
+   */
+  String NEXT_PAGE = "X-Next-Page";
+
+  @GET
+  @Path("/v1/products")
+  Uni<RestResponse<List<DTOneProductDto>>> getProducts(@QueryParam("country_iso_code") String countryIsoCode,
+                                                      @QueryParam("page") int page,
+                                                      @QueryParam("per_page") int perPage);
+
+  default String basicAuth() {
+    var config = ConfigProvider.getConfig();
+    var credentials = config.getValue("com.dtone.api-key", String.class) + ":" +
+      config.getValue("com.dtone.api-secret", String.class);
+    return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+  }
+}
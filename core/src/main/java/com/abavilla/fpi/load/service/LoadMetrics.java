@@ -0,0 +1,332 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.load.entity.load.RewardsTransStatus;
+import com.abavilla.fpi.telco.ext.enums.ApiStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Timers and counters for each stage of the load lifecycle, from the query to the acknowledgement messages,
+ * exported through the Prometheus endpoint.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class LoadMetrics {
+
+  static final String QUERY_PARSE = "fpi.load.query.parse";
+
+  static final String QUERY_DEDUP = "fpi.load.query.dedup";
+
+  static final String SKU_LOOKUP = "fpi.load.sku.lookup";
+
+  static final String PROVIDER_SELECT = "fpi.load.provider.select";
+
+  static final String PROVIDER_CALL = "fpi.load.provider.call";
+
+  static final String REWARDS_LOG_WRITE = "fpi.load.rewards-log.write";
+
+  static final String CALLBACK_LAG = "fpi.load.callback.lag";
+
+  static final String ACK_SEND = "fpi.load.ack.send";
+
+  static final String LEAK_WRITE = "fpi.load.leak.write";
+
+  static final String END_TO_END = "fpi.load.end-to-end";
+
+  static final String THROTTLE_WAIT = "fpi.load.throttle.wait";
+
+  static final String THROTTLE_REJECTED = "fpi.load.throttle.rejected";
+
+  static final String THROTTLE_QUEUE = "fpi.load.throttle.queue";
+
+  static final String THROTTLE_IN_FLIGHT = "fpi.load.throttle.in-flight";
+
+  static final String CATALOG_SYNC = "fpi.load.catalog-sync";
+
+  static final String CATALOG_SYNC_CHANGE = "fpi.load.catalog-sync.changes";
+
+  static final String USER_CACHE_GETS = "fpi.load.user-cache.gets";
+
+  static final String USER_CACHE_EVICTIONS = "fpi.load.user-cache.evictions";
+
+  static final String USER_CACHE_SIZE = "fpi.load.user-cache.size";
+
+  public static final String DEDUP_ACCEPTED = "accepted";
+
+  public static final String DEDUP_DUPLICATE = "duplicate";
+
+  public static final String WRITE_INSERT = "insert";
+
+  public static final String WRITE_JOURNAL = "journal";
+
+  public static final String WRITE_UPDATE = "update";
+
+  public static final String WRITE_CALLBACK = "callback";
+
+  private static final String NONE = "none";
+
+  private static final String ERROR = "error";
+
+  private static final String SUCCESS = "success";
+
+  @Inject
+  MeterRegistry registry;
+
+  /**
+   * Records the time taken to tokenize a load query.
+   *
+   * @param nanos Elapsed time
+   */
+  public void recordQueryParse(long nanos) {
+    registry.timer(QUERY_PARSE).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records the duplicate check of a query, in memory and in the database.
+   *
+   * @param nanos   Elapsed time
+   * @param outcome {@link #DEDUP_ACCEPTED}, {@link #DEDUP_DUPLICATE}, or {@code null} if the check failed
+   */
+  public void recordDedup(long nanos, String outcome) {
+    registry.timer(QUERY_DEDUP, "outcome", StringUtils.defaultString(outcome, ERROR))
+      .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records the promo sku lookup of a load request.
+   *
+   * @param nanos Elapsed time
+   * @param found Whether a promo was found, {@code null} if the lookup failed
+   */
+  public void recordSkuLookup(long nanos, Boolean found) {
+    registry.timer(SKU_LOOKUP, "found", found == null ? ERROR : found.toString())
+      .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records the selection of the provider candidates for a promo.
+   *
+   * @param nanos Elapsed time
+   */
+  public void recordProviderSelection(long nanos) {
+    registry.timer(PROVIDER_SELECT).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records a call to a load provider api.
+   *
+   * @param provider Load provider name
+   * @param status   Status returned, {@code null} if the call failed
+   * @param nanos    Elapsed time
+   */
+  public void recordProviderCall(String provider, ApiStatus status, long nanos) {
+    Timer.builder(PROVIDER_CALL)
+      .tag("provider", StringUtils.defaultString(provider, NONE))
+      .tag("status", status == null ? ERROR : status.name())
+      .publishPercentileHistogram()
+      .register(registry)
+      .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records a write to the rewards log.
+   *
+   * @param op      {@link #WRITE_INSERT}, {@link #WRITE_JOURNAL}, {@link #WRITE_UPDATE} or {@link #WRITE_CALLBACK}
+   * @param success Whether the write succeeded
+   * @param nanos   Elapsed time
+   */
+  public void recordRewardsLogWrite(String op, boolean success, long nanos) {
+    registry.timer(REWARDS_LOG_WRITE, "op", op, "outcome", success ? SUCCESS : ERROR)
+      .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Records the time from receiving a callback to it being fully processed.
+   *
+   * @param provider Load provider that sent the callback
+   * @param received When the callback was received
+   */
+  public void recordCallbackLag(String provider, LocalDateTime received) {
+    if (received != null) {
+      registry.timer(CALLBACK_LAG, "provider", StringUtils.defaultString(provider, NONE))
+        .record(Duration.between(received, DateUtil.now()));
+    }
+  }
+
+  /**
+   * Records the send of an acknowledgement message.
+   *
+   * @param channel Acknowledgement channel
+   * @param outcome Outcome of the send
+   * @param nanos   Elapsed time
+   */
+  public void recordAck(String channel, String outcome, long nanos) {
+    registry.timer(ACK_SEND, "channel", channel, "outcome", outcome)
+      .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Counts a callback written to the leak collection.
+   *
+   * @param provider Load provider that sent the callback
+   * @param success  Whether the leak was saved
+   */
+  public void countLeak(String provider, boolean success) {
+    Counter.builder(LEAK_WRITE)
+      .tag("provider", StringUtils.defaultString(provider, NONE))
+      .tag("outcome", success ? SUCCESS : ERROR)
+      .register(registry)
+      .increment();
+  }
+
+  /**
+   * Records the time from the load query being accepted, when the rewards transaction is created, to the
+   * delivered callback being applied.
+   *
+   * @param trans Delivered rewards transaction
+   */
+  public void recordDelivered(RewardsTransStatus trans) {
+    if (trans.getDateCreated() == null) {
+      return;
+    }
+    var telco = trans.getLoadRequest() == null || trans.getLoadRequest().getTelco() == null ?
+      NONE : trans.getLoadRequest().getTelco().name();
+    Timer.builder(END_TO_END)
+      .description("Load query received to delivered callback")
+      .tag("provider", StringUtils.defaultString(trans.getLoadProvider(), NONE))
+      .tag("telco", telco)
+      .publishPercentileHistogram()
+      .minimumExpectedValue(Duration.ofSeconds(1))
+      .maximumExpectedValue(Duration.ofHours(1))
+      .register(registry)
+      .record(Duration.between(trans.getDateCreated(), DateUtil.now()));
+  }
+
+  /**
+   * Records the time a provider call waited for a permit of the provider throttle.
+   *
+   * @param provider Load provider name
+   * @param nanos    Time waited
+   */
+  public void recordThrottleWait(String provider, long nanos) {
+    Timer.builder(THROTTLE_WAIT)
+      .tag("provider", StringUtils.defaultString(provider, NONE))
+      .publishPercentileHistogram()
+      .register(registry)
+      .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Counts a provider call turned away by the provider throttle.
+   *
+   * @param provider Load provider name
+   * @param reason   Why the call was turned away
+   */
+  public void countThrottled(String provider, String reason) {
+    registry.counter(THROTTLE_REJECTED, "provider", StringUtils.defaultString(provider, NONE), "reason", reason)
+      .increment();
+  }
+
+  /**
+   * Exports the queue depth and calls in flight of a provider throttle.
+   *
+   * @param provider   Load provider name
+   * @param throttle   Throttle of the provider
+   * @param queueDepth Reads the calls waiting for a permit
+   * @param inFlight   Reads the calls holding a permit
+   * @param <T>        Type of the throttle
+   */
+  public <T> void gaugeThrottle(String provider, T throttle, ToDoubleFunction<T> queueDepth,
+                                ToDoubleFunction<T> inFlight) {
+    Gauge.builder(THROTTLE_QUEUE, throttle, queueDepth)
+      .tag("provider", StringUtils.defaultString(provider, NONE))
+      .register(registry);
+    Gauge.builder(THROTTLE_IN_FLIGHT, throttle, inFlight)
+      .tag("provider", StringUtils.defaultString(provider, NONE))
+      .register(registry);
+  }
+
+  /**
+   * Exports the lookups, evictions and size of the loader user cache, read from the cache when scraped.
+   *
+   * @param cache     The user cache
+   * @param hits      Reads the lookups served from cache
+   * @param misses    Reads the lookups that called the user api
+   * @param evictions Reads the users removed from cache
+   * @param size      Reads the users currently cached
+   * @param <T>       Type of the cache
+   */
+  public <T> void bindUserCache(T cache, ToDoubleFunction<T> hits, ToDoubleFunction<T> misses,
+                                ToDoubleFunction<T> evictions, ToDoubleFunction<T> size) {
+    FunctionCounter.builder(USER_CACHE_GETS, cache, hits)
+      .tag("result", "hit")
+      .register(registry);
+    FunctionCounter.builder(USER_CACHE_GETS, cache, misses)
+      .tag("result", "miss")
+      .register(registry);
+    FunctionCounter.builder(USER_CACHE_EVICTIONS, cache, evictions)
+      .register(registry);
+    Gauge.builder(USER_CACHE_SIZE, cache, size)
+      .register(registry);
+  }
+
+  /**
+   * Records a provider catalog sync run.
+   *
+   * @param provider Load provider name
+   * @param dryRun   Whether the changes were only reported
+   * @param success  Whether the run completed
+   * @param nanos    Elapsed time
+   */
+  public void recordCatalogSync(String provider, boolean dryRun, boolean success, long nanos) {
+    Timer.builder(CATALOG_SYNC)
+      .tag("provider", StringUtils.defaultString(provider, NONE))
+      .tag("dry-run", String.valueOf(dryRun))
+      .tag("outcome", success ? SUCCESS : ERROR)
+      .register(registry)
+      .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Counts offers changed by a provider catalog sync.
+   *
+   * @param provider Load provider name
+   * @param action   Change applied to the offer
+   * @param count    Number of offers changed
+   */
+  public void countCatalogChanges(String provider, String action, int count) {
+    registry.counter(CATALOG_SYNC_CHANGE, "provider", StringUtils.defaultString(provider, NONE), "action", action)
+      .increment(count);
+  }
+}
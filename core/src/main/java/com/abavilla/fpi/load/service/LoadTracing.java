@@ -0,0 +1,144 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Spans for the load lifecycle that are not covered by the server, rest client and mongo instrumentation,
+ * and the W3C {@code traceparent} persisted with a transaction so its asynchronous callback can link back
+ * to the trace of the originating query.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class LoadTracing {
+
+  private static final String TRACEPARENT_VERSION = "00";
+
+  @Inject
+  Tracer tracer;
+
+  /**
+   * Formats the current span context as a W3C {@code traceparent}.
+   *
+   * @return the traceparent, {@code null} if there is no active trace
+   */
+  public String currentTraceparent() {
+    var ctx = Span.current().getSpanContext();
+    if (!ctx.isValid()) {
+      return null;
+    }
+    return String.join("-", TRACEPARENT_VERSION, ctx.getTraceId(), ctx.getSpanId(),
+      ctx.getTraceFlags().asHex());
+  }
+
+  /**
+   * Parses a W3C {@code traceparent} persisted with {@link #currentTraceparent()}.
+   *
+   * @param traceparent Persisted traceparent
+   * @return the remote {@link SpanContext}, {@code null} if blank or malformed
+   */
+  public static SpanContext parseTraceparent(String traceparent) {
+    var parts = StringUtils.split(traceparent, '-');
+    if (parts == null || parts.length != 4 || !TRACEPARENT_VERSION.equals(parts[0]) || parts[3].length() != 2) {
+      return null;
+    }
+    var ctx = SpanContext.createFromRemoteParent(parts[1], parts[2],
+      TraceFlags.fromHex(parts[3], 0), TraceState.getDefault());
+    return ctx.isValid() ? ctx : null;
+  }
+
+  /**
+   * Runs the job in a new span, subscribing to it while the span is current so the instrumented calls it
+   * makes become children of the span.
+   *
+   * @param name   Span name
+   * @param kind   Span kind
+   * @param parent Remote parent, {@code null} to use the current context
+   * @param link   Span to link to, e.g. the originating query of a callback, {@code null} if none
+   * @param job    Job to run
+   * @param <T>    Type of item
+   * @return {@link Uni} of the job, ending the span on its completion or cancellation
+   */
+  public <T> Uni<T> traced(String name, SpanKind kind, SpanContext parent, SpanContext link,
+                           Supplier<Uni<T>> job) {
+    return Uni.createFrom().emitter(emitter -> {
+      var builder = tracer.spanBuilder(name).setSpanKind(kind);
+      if (parent != null) {
+        builder.setParent(Context.root().with(Span.wrap(parent)));
+      }
+      if (link != null) {
+        builder.addLink(link);
+      }
+      var span = builder.startSpan();
+      var ended = new AtomicBoolean();
+      try (var ignored = span.makeCurrent()) {
+        var subscription = Uni.createFrom().deferred(job::get).subscribe().with(item -> {
+          if (ended.compareAndSet(false, true)) {
+            span.end();
+          }
+          emitter.complete(item);
+        }, ex -> {
+          if (ended.compareAndSet(false, true)) {
+            span.recordException(ex);
+            span.setStatus(StatusCode.ERROR);
+            span.end();
+          }
+          emitter.fail(ex);
+        });
+        // propagate cancellation to the job, runs right away if it already completed
+        emitter.onTermination(() -> {
+          subscription.cancel();
+          if (ended.compareAndSet(false, true)) {
+            span.addEvent("cancelled");
+            span.end();
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Runs the job in a new span under the current context.
+   *
+   * @param name Span name
+   * @param kind Span kind
+   * @param job  Job to run
+   * @param <T>  Type of item
+   * @return {@link Uni} of the job, ending the span on its completion
+   */
+  public <T> Uni<T> traced(String name, SpanKind kind, Supplier<Uni<T>> job) {
+    return traced(name, kind, null, null, job);
+  }
+}
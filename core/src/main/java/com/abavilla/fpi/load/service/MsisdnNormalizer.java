@@ -0,0 +1,140 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.abavilla.fpi.load.dto.load.LoadReqDto;
+import com.abavilla.fpi.load.util.LoadConst;
+import com.abavilla.fpi.load.util.NormalizedMsisdn;
+import com.abavilla.fpi.telco.ext.enums.Telco;
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberToCarrierMapper;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Parses mobile numbers into {@link NormalizedMsisdn}, keeping the most recently used numbers so a number is
+ * parsed once from the query down to the provider call and the acknowledgement message.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class MsisdnNormalizer {
+
+  /**
+   * Utility library for detecting and formatting phone numbers
+   */
+  @Inject
+  PhoneNumberUtil phoneNumberUtil;
+
+  /**
+   * Utility library for detecting the operator of phone numbers
+   */
+  @Inject
+  PhoneNumberToCarrierMapper carrierMapper;
+
+  /**
+   * Fast path for common Philippine mobile numbers
+   */
+  @Inject
+  PhMobileClassifier phMobileClassifier;
+
+  /**
+   * Maximum number of parsed numbers kept
+   */
+  @ConfigProperty(name = "fpi.load.msisdn-cache.max-size", defaultValue = "10000")
+  int maxSize;
+
+  /**
+   * Least recently used numbers, access ordered
+   */
+  private final Map<String, NormalizedMsisdn> cache = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, NormalizedMsisdn> eldest) {
+      return size() > maxSize;
+    }
+  };
+
+  /**
+   * Parses the number, or returns it from cache if recently parsed.
+   *
+   * @param mobile Mobile number as given
+   * @return {@link NormalizedMsisdn}
+   */
+  public NormalizedMsisdn normalize(String mobile) {
+    synchronized (cache) {
+      var cached = cache.get(mobile);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    // parse outside the lock, a number parsed twice concurrently yields the same value
+    var normalized = parse(mobile);
+    synchronized (cache) {
+      cache.put(mobile, normalized);
+    }
+    return normalized;
+  }
+
+  /**
+   * Retrieves the normalized mobile number of the load request, parsing it and attaching it to the request if
+   * not yet done for its current mobile number.
+   *
+   * @param loadReq Load request
+   * @return {@link NormalizedMsisdn} of the mobile number of the request
+   */
+  public NormalizedMsisdn normalize(LoadReqDto loadReq) {
+    var normalized = loadReq.getNormalizedMobile();
+    if (normalized == null || !StringUtils.equals(normalized.raw(), loadReq.getMobile())) {
+      normalized = normalize(loadReq.getMobile());
+      loadReq.setNormalizedMobile(normalized);
+    }
+    return normalized;
+  }
+
+  private NormalizedMsisdn parse(String mobile) {
+    int start = PhMobileClassifier.significantStart(mobile);
+    var knownCarrier = phMobileClassifier.carrierOf(mobile, start);
+    if (knownCarrier != null) {
+      var significant = mobile.substring(start);
+      return new NormalizedMsisdn(mobile, true, true, "+63" + significant,
+        "0" + significant.substring(0, 3) + ' ' + significant.substring(3, 6) + ' ' + significant.substring(6),
+        significant, knownCarrier, Telco.fromValue(knownCarrier));
+    }
+
+    try {
+      var number = phoneNumberUtil.parse(mobile, LoadConst.PH_REGION_CODE);
+      var valid = phoneNumberUtil.isValidNumber(number);
+      var national = phoneNumberUtil.format(number, PhoneNumberUtil.PhoneNumberFormat.NATIONAL);
+      var carrier = valid ? carrierMapper.getNameForValidNumber(number, LoadConst.DEFAULT_LOCALE) :
+        StringUtils.EMPTY;
+      return new NormalizedMsisdn(mobile, true, valid,
+        phoneNumberUtil.format(number, PhoneNumberUtil.PhoneNumberFormat.E164), national,
+        StringUtils.substring(StringUtils.deleteWhitespace(national), 1), // remove first digit 0
+        carrier, Telco.fromValue(carrier));
+    } catch (NumberParseException ex) {
+      return new NormalizedMsisdn(mobile, false, false, null, null, null, StringUtils.EMPTY, Telco.UNKNOWN);
+    }
+  }
+}
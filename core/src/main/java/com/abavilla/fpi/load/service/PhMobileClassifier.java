@@ -0,0 +1,220 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service;
+
+import java.util.List;
+
+import com.abavilla.fpi.load.util.LoadConst;
+import com.google.i18n.phonenumbers.PhoneNumberToCarrierMapper;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Recognizes Philippine mobile numbers written as {@code 09XXXXXXXXX}, {@code 9XXXXXXXXX},
+ * {@code 639XXXXXXXXX} or {@code +639XXXXXXXXX} and resolves their carrier from a table of five digit
+ * prefixes, without parsing or allocating. Anything else, including prefixes missing from the table, is left
+ * to {@link PhoneNumberUtil}.
+ *
+ * <p>The table is derived from the carrier data of libphonenumber so both paths agree, a prefix is only
+ * included if the lowest, middle and highest number of its range are valid and share the same carrier.
+ * Entries from {@code fpi.load.ph-prefix.overrides}, written as {@code <prefix>=<carrier>} with a prefix of
+ * three to five digits starting with 9, are applied on top, e.g. for newly allocated ranges.</p>
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class PhMobileClassifier {
+
+  private static final int PREFIX_DIGITS = 5;
+
+  private static final int SUBSCRIBER_DIGITS = 5;
+
+  /**
+   * Number of five digit prefixes starting with 9
+   */
+  private static final int PREFIX_COUNT = 10_000;
+
+  private static final int SUBSCRIBER_RANGE = 100_000;
+
+  private static final int PH_COUNTRY_CODE = 63;
+
+  /**
+   * Number of digits of the national significant number of a mobile number, e.g. {@code 9171234567}
+   */
+  public static final int SIGNIFICANT_DIGITS = PREFIX_DIGITS + SUBSCRIBER_DIGITS;
+
+  @Inject
+  PhoneNumberUtil phoneNumberUtil;
+
+  @Inject
+  PhoneNumberToCarrierMapper carrierMapper;
+
+  @Inject
+  Config config;
+
+  /**
+   * Whether the fast path is used at all
+   */
+  @ConfigProperty(name = "fpi.load.ph-prefix.enabled", defaultValue = "true")
+  boolean enabled;
+
+  /**
+   * Whether the table is derived from the libphonenumber carrier data, otherwise only overrides are used
+   */
+  @ConfigProperty(name = "fpi.load.ph-prefix.derive", defaultValue = "true")
+  boolean derive;
+
+  /**
+   * Carrier name of each five digit prefix, indexed by the prefix without the leading 9
+   */
+  private volatile Table table = Table.EMPTY;
+
+  void onStart(@Observes StartupEvent ev) {
+    refresh();
+  }
+
+  /**
+   * Rebuilds the prefix table, re-reading the overrides from config.
+   *
+   * @return number of prefixes in the table
+   */
+  public int refresh() {
+    var carriers = new String[PREFIX_COUNT];
+    if (enabled) {
+      if (derive) {
+        deriveFromCarrierData(carriers);
+      }
+      applyOverrides(carriers, config.getOptionalValues("fpi.load.ph-prefix.overrides", String.class)
+        .orElse(List.of()));
+    }
+    table = Table.of(carriers);
+    Log.info("Loaded " + table.size() + " PH mobile prefixes");
+    return table.size();
+  }
+
+  /**
+   * Finds where the ten digit national significant number starts if the number is written in one of the
+   * recognized forms.
+   *
+   * @param mobile Mobile number as given
+   * @return index of the leading 9 of the national significant number, -1 if not recognized
+   */
+  public static int significantStart(CharSequence mobile) {
+    if (mobile == null) {
+      return -1;
+    }
+    int start = switch (mobile.length()) {
+      case SIGNIFICANT_DIGITS -> 0;
+      case SIGNIFICANT_DIGITS + 1 -> mobile.charAt(0) == '0' ? 1 : -1;
+      case SIGNIFICANT_DIGITS + 2 -> mobile.charAt(0) == '6' && mobile.charAt(1) == '3' ? 2 : -1;
+      case SIGNIFICANT_DIGITS + 3 -> mobile.charAt(0) == '+' && mobile.charAt(1) == '6' &&
+        mobile.charAt(2) == '3' ? 3 : -1;
+      default -> -1;
+    };
+    if (start < 0 || mobile.charAt(start) != '9') {
+      return -1;
+    }
+    for (int i = start + 1; i < mobile.length(); i++) {
+      char c = mobile.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+    }
+    return start;
+  }
+
+  /**
+   * Resolves the carrier of the number from the prefix table.
+   *
+   * @param mobile Mobile number as given
+   * @param start  Index of the national significant number, from {@link #significantStart(CharSequence)}
+   * @return carrier name as given by libphonenumber, {@code null} if the prefix is not in the table
+   */
+  public String carrierOf(CharSequence mobile, int start) {
+    if (!enabled || start < 0) {
+      return null;
+    }
+    int index = 0;
+    for (int i = start + 1; i < start + PREFIX_DIGITS; i++) {
+      index = index * 10 + (mobile.charAt(i) - '0');
+    }
+    return table.carriers()[index];
+  }
+
+  private void deriveFromCarrierData(String[] carriers) {
+    var number = new Phonenumber.PhoneNumber().setCountryCode(PH_COUNTRY_CODE);
+    for (int index = 0; index < carriers.length; index++) {
+      long first = (9L * PREFIX_COUNT + index) * SUBSCRIBER_RANGE;
+      String carrier = null;
+      for (long sample : new long[] {first, first + SUBSCRIBER_RANGE / 2, first + SUBSCRIBER_RANGE - 1}) {
+        number.setNationalNumber(sample);
+        var sampleCarrier = phoneNumberUtil.isValidNumber(number) ?
+          carrierMapper.getNameForValidNumber(number, LoadConst.DEFAULT_LOCALE) : null;
+        if (StringUtils.isEmpty(sampleCarrier) || (carrier != null && !carrier.equals(sampleCarrier))) {
+          carrier = null;
+          break;
+        }
+        carrier = sampleCarrier;
+      }
+      carriers[index] = carrier;
+    }
+  }
+
+  private void applyOverrides(String[] carriers, List<String> overrides) {
+    for (var override : overrides) {
+      var prefix = StringUtils.trim(StringUtils.substringBefore(override, "="));
+      var carrier = StringUtils.trimToNull(StringUtils.substringAfter(override, "="));
+      if (carrier == null || !StringUtils.isNumeric(prefix) || prefix.length() < 3 ||
+        prefix.length() > PREFIX_DIGITS || prefix.charAt(0) != '9') {
+        Log.warn("Ignoring invalid PH mobile prefix override: " + override);
+        continue;
+      }
+      int width = (int) Math.pow(10, PREFIX_DIGITS - prefix.length());
+      int from = Integer.parseInt(prefix.substring(1)) * width;
+      for (int index = from; index < from + width; index++) {
+        carriers[index] = carrier;
+      }
+    }
+  }
+
+  /**
+   * Immutable prefix table, swapped as a whole on refresh.
+   */
+  private record Table(String[] carriers, int size) {
+    static final Table EMPTY = new Table(new String[PREFIX_COUNT], 0);
+
+    static Table of(String[] carriers) {
+      int size = 0;
+      for (var carrier : carriers) {
+        if (carrier != null) {
+          size++;
+        }
+      }
+      return new Table(carriers, size);
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * In-memory window of recently accepted load queries per user, answering most duplicates without a database
+ * round trip. The window is split into shards, each with its own lock, and every shard keeps a ring of
+ * time buckets, the oldest bucket is cleared as the window moves so entries expire without a sweeper.
+ *
+ * <p>It only covers queries accepted by this instance, the unique {@code query} index of {@code query_log}
+ * remains the authority for duplicates across instances and restarts.</p>
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class QueryDedupWindow {
+
+  /**
+   * Time a query is considered a duplicate after it was accepted
+   */
+  @ConfigProperty(name = "fpi.load.query-dedup.window", defaultValue = "30M")
+  Duration window;
+
+  /**
+   * Number of time buckets the window is divided into, more buckets expire entries closer to the window
+   */
+  @ConfigProperty(name = "fpi.load.query-dedup.buckets", defaultValue = "6")
+  int bucketCount;
+
+  /**
+   * Number of independently locked shards
+   */
+  @ConfigProperty(name = "fpi.load.query-dedup.shards", defaultValue = "16")
+  int shardCount;
+
+  private long bucketMillis;
+
+  private Shard[] shards;
+
+  @PostConstruct
+  void init() {
+    init(window, bucketCount, shardCount);
+  }
+
+  void init(Duration window, int bucketCount, int shardCount) {
+    this.window = window;
+    this.bucketCount = bucketCount;
+    this.shardCount = shardCount;
+    bucketMillis = Math.max(1, window.toMillis() / bucketCount);
+    shards = new Shard[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new Shard(bucketCount);
+    }
+  }
+
+  /**
+   * @return Time a query is considered a duplicate after it was accepted
+   */
+  public Duration getWindow() {
+    return window;
+  }
+
+  /**
+   * Records the query if it was not seen within the window.
+   *
+   * @param fpiUser User sending the query
+   * @param query   Load query
+   * @return {@code true} if recorded, {@code false} if it is a duplicate
+   */
+  public boolean tryAcquire(String fpiUser, String query) {
+    var key = key(fpiUser, query);
+    return shardOf(key).add(key, System.currentTimeMillis() / bucketMillis);
+  }
+
+  /**
+   * Forgets a recorded query, used when it could not be saved so it can be sent again.
+   *
+   * @param fpiUser User sending the query
+   * @param query   Load query
+   */
+  public void release(String fpiUser, String query) {
+    var key = key(fpiUser, query);
+    shardOf(key).remove(key);
+  }
+
+  private Shard shardOf(String key) {
+    return shards[Math.floorMod(key.hashCode(), shards.length)];
+  }
+
+  private static String key(String fpiUser, String query) {
+    return fpiUser + '\u0000' + query;
+  }
+
+  /**
+   * Ring of buckets, bucket {@code epoch % buckets} holds the keys added during that epoch.
+   */
+  private static final class Shard {
+    private final Set<String>[] buckets;
+
+    private final long[] epochs;
+
+    @SuppressWarnings("unchecked")
+    Shard(int bucketCount) {
+      buckets = new Set[bucketCount];
+      epochs = new long[bucketCount];
+      for (int i = 0; i < bucketCount; i++) {
+        buckets[i] = new HashSet<>();
+        epochs[i] = -1;
+      }
+    }
+
+    synchronized boolean add(String key, long epoch) {
+      for (int i = 0; i < buckets.length; i++) {
+        if (epoch - epochs[i] < buckets.length && buckets[i].contains(key)) {
+          return false;
+        }
+      }
+      int slot = (int) (epoch % buckets.length);
+      if (epochs[slot] != epoch) {
+        buckets[slot].clear();
+        epochs[slot] = epoch;
+      }
+      return buckets[slot].add(key);
+    }
+
+    synchronized void remove(String key) {
+      for (var bucket : buckets) {
+        bucket.remove(key);
+      }
+    }
+  }
+}
@@ -24,16 +24,13 @@ import com.abavilla.fpi.fw.service.AbsRepoSvc;
 import com.abavilla.fpi.fw.util.DateUtil;
 import com.abavilla.fpi.load.dto.load.LoadReqDto;
 import com.abavilla.fpi.load.entity.Query;
+import com.abavilla.fpi.load.exceptions.ProviderThrottledEx;
 import com.abavilla.fpi.load.ext.dto.LoadRespDto;
 import com.abavilla.fpi.load.ext.dto.QueryDto;
 import com.abavilla.fpi.load.mapper.QueryMapper;
 import com.abavilla.fpi.load.repo.QueryRepo;
 import com.abavilla.fpi.load.service.load.RewardsSvc;
-import com.abavilla.fpi.load.util.LoadConst;
 import com.abavilla.fpi.telco.ext.enums.Telco;
-import com.google.i18n.phonenumbers.NumberParseException;
-import com.google.i18n.phonenumbers.PhoneNumberToCarrierMapper;
-import com.google.i18n.phonenumbers.PhoneNumberUtil;
 import io.quarkus.logging.Log;
 import io.quarkus.security.identity.SecurityIdentity;
 import io.smallrye.mutiny.Uni;
@@ -64,22 +61,25 @@ public class QuerySvc extends AbsRepoSvc<QueryDto, Query, QueryRepo> {
   RewardsSvc rewardsSvc;
 
   /**
-   * Utility library for detecting and formatting phone numbers
+   * Parses phone numbers and detects their operator
    */
   @Inject
-  PhoneNumberUtil phoneNumberUtil;
+  MsisdnNormalizer msisdnNormalizer;
 
   /**
-   * Utility library for detecting the operator of phone numbers
+   * OIDC Identity provider
    */
   @Inject
-  PhoneNumberToCarrierMapper carrierMapper;
+  SecurityIdentity identity;
 
   /**
-   * OIDC Identity provider
+   * Recently accepted queries, for detecting duplicates without a database lookup
    */
   @Inject
-  SecurityIdentity identity;
+  QueryDedupWindow dedupWindow;
+
+  @Inject
+  LoadMetrics loadMetrics;
 
   /**
    * Process the load query to invoke load service.
@@ -89,43 +89,72 @@ public class QuerySvc extends AbsRepoSvc<QueryDto, Query, QueryRepo> {
    */
   public Uni<LoadRespDto> processQuery(QueryDto query) {
     Log.info("Processing query: " + query);
-    var tokens = StringUtils.split(query.getQuery(), null, 5);
+    var start = System.nanoTime();
+    var tokens = tokenize(query.getQuery());
+    loadMetrics.recordQueryParse(System.nanoTime() - start);
+
+    var fpiUser = identity.getPrincipal().getName();
+    var dedupStart = System.nanoTime();
+    if (!dedupWindow.tryAcquire(fpiUser, query.getQuery())) {
+      loadMetrics.recordDedup(System.nanoTime() - dedupStart, LoadMetrics.DEDUP_DUPLICATE);
+      return Uni.createFrom().failure(new FPISvcEx("Duplicate load request detected!",
+        Response.Status.BAD_REQUEST.getStatusCode()));
+    }
 
-    return repo.findByQuery(query.getQuery(), identity.getPrincipal().getName()).chain(found -> {
-      if (found.isPresent()) {
-        return Uni.createFrom().failure(new FPISvcEx("Duplicate load request detected!",
-          Response.Status.BAD_REQUEST.getStatusCode()));
-      }
-      return Uni.createFrom().voidItem();
-    }).chain(() -> {
-      Query log = mapToEntity(query);
-      log.setExpiry(DateUtil.now().plusMinutes(30));
-      log.setDateCreated(DateUtil.now());
-      log.setDateUpdated(DateUtil.now());
-      log.setFpiUser(identity.getPrincipal().getName());
-      return repo.persist(log);
-    }).chain(() -> {
-      if (tokens.length >= 2) {
-        var sku = tokens[0];
-        var msisdn = tokens[1];
-        var network = StringUtils.EMPTY;
-        var advertFlag = true;
-
-        if (tokens.length == 3) {
-          network = tokens[2];
-          if (Telco.fromValue(network) == Telco.UNKNOWN) {
-            advertFlag = BooleanUtils.toBoolean(tokens[2]);
+    Query log = mapToEntity(query);
+    log.setExpiry(DateUtil.now().plus(dedupWindow.getWindow()));
+    log.setDateCreated(DateUtil.now());
+    log.setDateUpdated(DateUtil.now());
+    log.setFpiUser(fpiUser);
+    return repo.insertIfAbsent(log)
+      .onItemOrFailure().invoke((inserted, ex) -> loadMetrics.recordDedup(System.nanoTime() - dedupStart,
+        ex != null ? null : inserted ? LoadMetrics.DEDUP_ACCEPTED : LoadMetrics.DEDUP_DUPLICATE))
+      .onFailure().invoke(() -> dedupWindow.release(fpiUser, query.getQuery()))
+      .chain(inserted -> {
+        if (!inserted) { // sent through another instance or before a restart, its expiry is unknown here
+          dedupWindow.release(fpiUser, query.getQuery());
+          return Uni.createFrom().failure(new FPISvcEx("Duplicate load request detected!",
+            Response.Status.BAD_REQUEST.getStatusCode()));
+        }
+        return Uni.createFrom().voidItem();
+      })
+      .chain(() -> {
+        if (tokens.length >= 2) {
+          var sku = tokens[0];
+          var msisdn = tokens[1];
+          var network = StringUtils.EMPTY;
+          var advertFlag = true;
+
+          if (tokens.length == 3) {
+            network = tokens[2];
+            if (Telco.fromValue(network) == Telco.UNKNOWN) {
+              advertFlag = BooleanUtils.toBoolean(tokens[2]);
+            }
+          } else if (tokens.length == 4) {
+            network = tokens[2];
+            advertFlag = BooleanUtils.toBoolean(tokens[3]);
           }
-        } else if (tokens.length == 4) {
-          network = tokens[2];
-          advertFlag = BooleanUtils.toBoolean(tokens[3]);
+
+          var loadReq = buildLoadRequest(msisdn, sku, network, advertFlag, query.getBotSource());
+          return rewardsSvc.reloadNumber(loadReq);
         }
+        throw new FPISvcEx("Invalid query: " + query.getQuery(), Response.Status.BAD_REQUEST.getStatusCode());
+      })
+      .onFailure(ProviderThrottledEx.class).call(() -> { // never sent to a provider, allow the retry
+        dedupWindow.release(fpiUser, query.getQuery());
+        return repo.deleteByQuery(query.getQuery(), fpiUser);
+      });
+  }
 
-        var loadReq = buildLoadRequest(msisdn, sku, network, advertFlag, query.getBotSource());
-        return rewardsSvc.reloadNumber(loadReq);
-      }
-      throw new FPISvcEx("Invalid query: " + query.getQuery(), Response.Status.BAD_REQUEST.getStatusCode());
-    });
+  /**
+   * Splits the query into its whitespace separated tokens: sku, mobile, and optionally network and
+   * acknowledgement flag.
+   *
+   * @param query Load query
+   * @return the tokens
+   */
+  static String[] tokenize(String query) {
+    return StringUtils.split(query, null, 5);
   }
 
   /**
@@ -136,22 +165,21 @@ public class QuerySvc extends AbsRepoSvc<QueryDto, Query, QueryRepo> {
    * @param network Telco or operator for mobile or account number
    * @return {@link LoadReqDto} Load request
    */
-  private LoadReqDto buildLoadRequest(String mobile, String sku, String network, Boolean advertFlag, String source) {
+  LoadReqDto buildLoadRequest(String mobile, String sku, String network, Boolean advertFlag, String source) {
     var loadReq = new LoadReqDto();
     var carrier = network;
 
-    try {
-      var number = phoneNumberUtil.parse(mobile, LoadConst.PH_REGION_CODE);
-      if (phoneNumberUtil.isValidNumber(number)) {
-        loadReq.setMobile(mobile);
-        if (StringUtils.isNumeric(sku)) { // if sku has letters, do not guess the telco, fixes cignal implicit declaration
-          // check if network given is blank or of unknown value
-          if (StringUtils.isBlank(network) || Telco.fromValue(network) == Telco.UNKNOWN) {
-            carrier = carrierMapper.getNameForValidNumber(number, LoadConst.DEFAULT_LOCALE);
-          }
+    var number = msisdnNormalizer.normalize(mobile);
+    if (number.valid()) {
+      loadReq.setMobile(mobile);
+      loadReq.setNormalizedMobile(number);
+      if (StringUtils.isNumeric(sku)) { // if sku has letters, do not guess the telco, fixes cignal implicit declaration
+        // check if network given is blank or of unknown value
+        if (StringUtils.isBlank(network) || Telco.fromValue(network) == Telco.UNKNOWN) {
+          carrier = number.carrier();
         }
       }
-    } catch (NumberParseException ex) {
+    } else if (!number.parsable()) {
       Log.warn("Invalid number: " + mobile + ", might be an account number");
     }
 
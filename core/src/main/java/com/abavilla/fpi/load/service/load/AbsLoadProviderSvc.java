@@ -20,16 +20,21 @@ package com.abavilla.fpi.load.service.load;
 
 import com.abavilla.fpi.fw.exceptions.FPISvcEx;
 import com.abavilla.fpi.load.dto.load.LoadReqDto;
+import com.abavilla.fpi.load.engine.load.ProviderHealthTracker;
+import com.abavilla.fpi.load.engine.load.ProviderThrottle;
 import com.abavilla.fpi.load.entity.load.PromoSku;
 import com.abavilla.fpi.load.entity.load.ProviderOffer;
 import com.abavilla.fpi.load.ext.dto.LoadRespDto;
-import com.abavilla.fpi.load.util.LoadConst;
-import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.abavilla.fpi.load.service.LoadMetrics;
+import com.abavilla.fpi.load.service.LoadTracing;
+import com.abavilla.fpi.load.service.MsisdnNormalizer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
 import io.smallrye.mutiny.Uni;
 import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.core.Response;
-import lombok.SneakyThrows;
 import org.apache.commons.lang3.StringUtils;
 
 public abstract class AbsLoadProviderSvc implements ILoadProviderSvc {
@@ -37,7 +42,19 @@ public abstract class AbsLoadProviderSvc implements ILoadProviderSvc {
   protected String providerName;
 
   @Inject
-  protected PhoneNumberUtil phoneNumberUtil;
+  protected MsisdnNormalizer msisdnNormalizer;
+
+  @Inject
+  protected ProviderHealthTracker healthTracker;
+
+  @Inject
+  protected ProviderThrottle providerThrottle;
+
+  @Inject
+  protected LoadMetrics loadMetrics;
+
+  @Inject
+  protected LoadTracing loadTracing;
 
   @PostConstruct
   final void constructObject() {
@@ -72,15 +89,30 @@ public abstract class AbsLoadProviderSvc implements ILoadProviderSvc {
       }
     }
 
-    return callSvc(req, promo);
+    return loadTracing.traced("load.provider.call", SpanKind.INTERNAL, () -> {
+      var span = Span.current();
+      span.setAttribute("fpi.load.provider", providerName);
+      span.setAttribute("fpi.load.transaction", StringUtils.defaultString(req.getTransactionId()));
+      // throttled calls never reach the provider, so they are kept out of its health and call metrics, a
+      // queued call resumes on another thread so it carries the span along
+      return providerThrottle.throttle(providerName, Context.current().wrapSupplier(() -> {
+        var start = System.nanoTime();
+        return callSvc(req, promo)
+          .onItemOrFailure().invoke((resp, ex) -> {
+            var elapsed = System.nanoTime() - start;
+            var status = resp == null ? null : resp.getStatus();
+            healthTracker.record(providerName, elapsed, status);
+            loadMetrics.recordProviderCall(providerName, status, elapsed);
+            span.setAttribute("fpi.load.status", status == null ? "ERROR" : status.name());
+          });
+      }));
+    });
   }
 
   protected abstract Uni<LoadRespDto> callSvc(LoadReqDto req, PromoSku promo);
 
-  @SneakyThrows
   protected boolean isValidPhoneNo(LoadReqDto loadReqDto) {
-    var phoneNo = phoneNumberUtil.parse(loadReqDto.getMobile(), LoadConst.PH_REGION_CODE);
-    return phoneNumberUtil.isValidNumber(phoneNo);
+    return msisdnNormalizer.normalize(loadReqDto).valid();
   }
 
   protected void parsePhoneNumber(LoadReqDto loadReqDto) {
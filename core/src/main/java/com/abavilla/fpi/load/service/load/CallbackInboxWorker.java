@@ -0,0 +1,163 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service.load;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.abavilla.fpi.load.entity.load.CallbackInbox;
+import com.abavilla.fpi.load.repo.load.CallbackInboxRepo;
+import com.abavilla.fpi.load.service.LoadMetrics;
+import com.abavilla.fpi.load.service.LoadTracing;
+import io.opentelemetry.api.trace.SpanKind;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Drains the {@code callback_inbox} collection with a bounded number of workers. Each worker claims one entry
+ * at a time and keeps going until the inbox is empty, so at most {@link #concurrency} callbacks are in flight
+ * regardless of how fast they arrive. Workers are started when a callback is stored and by a periodic poll,
+ * which also picks up entries left behind by a previous instance once their lease expires.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class CallbackInboxWorker {
+
+  @Inject
+  CallbackInboxRepo inboxRepo;
+
+  @Inject
+  RewardsCallbackSvc callbackSvc;
+
+  @Inject
+  LoadMetrics loadMetrics;
+
+  @Inject
+  LoadTracing loadTracing;
+
+  /**
+   * Maximum number of callbacks processed at the same time
+   */
+  @ConfigProperty(name = "fpi.load.callback-inbox.concurrency", defaultValue = "4")
+  int concurrency;
+
+  /**
+   * Time a worker holds a claimed callback before it is considered abandoned
+   */
+  @ConfigProperty(name = "fpi.load.callback-inbox.lease", defaultValue = "5M")
+  Duration lease;
+
+  /**
+   * Interval for checking the inbox for pending or abandoned callbacks
+   */
+  @ConfigProperty(name = "fpi.load.callback-inbox.poll-interval", defaultValue = "30S")
+  Duration pollInterval;
+
+  /**
+   * Number of claims after which a callback is moved to the leak collection
+   */
+  @ConfigProperty(name = "fpi.load.callback-inbox.max-attempts", defaultValue = "5")
+  int maxAttempts;
+
+  private final AtomicInteger activeWorkers = new AtomicInteger();
+
+  private Cancellable poller;
+
+  void onStart(@Observes StartupEvent ev) {
+    poller = Multi.createFrom().ticks().every(pollInterval)
+      .onOverflow().drop()
+      .subscribe().with(tick -> signalAll());
+    signalAll(); // resume callbacks left by a previous instance
+  }
+
+  void onStop(@Observes ShutdownEvent ev) {
+    if (poller != null) {
+      poller.cancel();
+    }
+  }
+
+  /**
+   * Starts a worker if the pool is not yet full, called after a callback is stored.
+   */
+  public void signal() {
+    int current;
+    while ((current = activeWorkers.get()) < concurrency) {
+      if (activeWorkers.compareAndSet(current, current + 1)) {
+        drain().subscribe().with(
+          ignored -> activeWorkers.decrementAndGet(),
+          ex -> {
+            Log.error("Callback inbox worker stopped", ex);
+            activeWorkers.decrementAndGet();
+          });
+        return;
+      }
+    }
+  }
+
+  private void signalAll() {
+    for (int i = 0; i < concurrency; i++) {
+      signal();
+    }
+  }
+
+  private Uni<Void> drain() {
+    return inboxRepo.claimNext(lease)
+      .chain(item -> item == null ?
+        Uni.createFrom().voidItem() :
+        process(item).chain(this::drain));
+  }
+
+  private Uni<Void> process(CallbackInbox item) {
+    // continues the trace of the callback request, which is linked to the originating query when applied
+    return loadTracing.traced("load.callback.process", SpanKind.CONSUMER,
+        LoadTracing.parseTraceparent(item.getTraceparent()), null, () -> processClaimed(item))
+      .onFailure().invoke(ex -> Log.error("Unable to process callback " + item.getTransactionId() +
+        ", retrying after lease expiry", ex))
+      .onFailure().recoverWithNull();
+  }
+
+  private Uni<Void> processClaimed(CallbackInbox item) {
+    Uni<Boolean> job;
+    if (item.getAttempts() > maxAttempts) {
+      job = callbackSvc.saveCallbackAsLeak(new IllegalStateException(
+          "Callback abandoned after " + maxAttempts + " attempts"), item.getContent(), item.getLoadProvider(),
+          item.getTransactionId())
+        .replaceWith(Boolean.TRUE);
+    } else {
+      job = callbackSvc.processCallback(item);
+    }
+    return job
+      .chain(done -> {
+        if (Boolean.TRUE.equals(done)) { // parked callbacks stay in the inbox
+          loadMetrics.recordCallbackLag(item.getLoadProvider(), item.getDateCreated());
+          return inboxRepo.deleteById(item.getId()).replaceWithVoid();
+        }
+        return Uni.createFrom().voidItem();
+      });
+  }
+}
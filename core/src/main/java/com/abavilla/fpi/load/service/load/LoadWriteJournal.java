@@ -0,0 +1,254 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service.load;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.abavilla.fpi.load.entity.load.RewardsTransStatus;
+import com.abavilla.fpi.load.repo.load.RewardsTransRepo;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.bson.BsonDocumentWrapper;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.json.JsonReader;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Local journal for the opt-in write-behind mode, where a rewards transaction is only inserted once the
+ * provider replies. The transaction is appended and synced to the journal before the provider is called and
+ * marked done after the insert, on startup every transaction without a done mark is inserted as it was
+ * before the call so a crash in between never loses a load that may have gone through.
+ *
+ * <p>Each line is either {@code B <transaction json>} for a transaction about to be sent or
+ * {@code D <id>} once it is in the database. The journal is truncated whenever no transaction is
+ * pending.</p>
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class LoadWriteJournal {
+
+  private static final String BEGIN = "B ";
+
+  private static final String DONE = "D ";
+
+  /**
+   * Whether rewards transactions are written once after the provider call instead of before and after
+   */
+  @ConfigProperty(name = "fpi.load.write-behind.enabled", defaultValue = "false")
+  boolean enabled;
+
+  /**
+   * Location of the journal file, must be on storage that survives a restart of the instance
+   */
+  @ConfigProperty(name = "fpi.load.write-behind.journal", defaultValue = "data/load-journal.log")
+  Path journal;
+
+  @Inject
+  RewardsTransRepo advRepo;
+
+  /**
+   * Ids of the transactions journaled but not yet inserted
+   */
+  private final Set<ObjectId> pending = ConcurrentHashMap.newKeySet();
+
+  private FileChannel channel;
+
+  private Codec<RewardsTransStatus> codec;
+
+  void onStart(@Observes StartupEvent ev) throws IOException {
+    if (!enabled) {
+      return;
+    }
+    codec = advRepo.mongoCollection().getCodecRegistry().get(RewardsTransStatus.class);
+    if (journal.getParent() != null) {
+      Files.createDirectories(journal.getParent());
+    }
+
+    // move the previous journal aside so new writes do not mix with the replay, keeping what is left of
+    // an earlier replay that did not finish
+    var replay = journal.resolveSibling(journal.getFileName() + ".replay");
+    if (Files.exists(journal)) {
+      if (Files.exists(replay)) {
+        Files.write(replay, Files.readAllBytes(journal), StandardOpenOption.APPEND);
+        Files.delete(journal);
+      } else {
+        Files.move(journal, replay);
+      }
+    }
+    channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+      StandardOpenOption.APPEND);
+    if (Files.exists(replay)) {
+      replay(replay);
+    }
+  }
+
+  void onStop(@Observes ShutdownEvent ev) throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  /**
+   * @return {@code true} if transactions are written after the provider call
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Checks whether the transaction was journaled and still needs to be inserted.
+   *
+   * @param id Id of the rewards transaction
+   * @return {@code true} if pending
+   */
+  public boolean isPending(ObjectId id) {
+    return pending.contains(id);
+  }
+
+  /**
+   * Durably records a transaction before its provider call.
+   *
+   * @param rewardsTrans Transaction before the provider call, its id must already be assigned
+   * @return {@link Uni} completing once the journal is synced to disk
+   */
+  public Uni<Void> begin(RewardsTransStatus rewardsTrans) {
+    var line = BEGIN + BsonDocumentWrapper.asBsonDocument(rewardsTrans, advRepo.mongoCollection()
+      .getCodecRegistry()).toJson() + "\n";
+    return Uni.createFrom().item(() -> {
+        synchronized (this) {
+          write(line, true);
+          pending.add(rewardsTrans.getId());
+        }
+        return Boolean.TRUE;
+      })
+      .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+      .replaceWithVoid();
+  }
+
+  /**
+   * Marks a journaled transaction as inserted. The mark is not synced, losing it only causes a redundant
+   * insert attempt on the next startup.
+   *
+   * @param id Id of the rewards transaction
+   * @return {@link Uni} completing once recorded
+   */
+  public Uni<Void> complete(ObjectId id) {
+    return Uni.createFrom().item(() -> {
+        synchronized (this) {
+          if (pending.remove(id)) {
+            if (pending.isEmpty()) {
+              truncate();
+            } else {
+              write(DONE + id.toHexString() + "\n", false);
+            }
+          }
+        }
+        return Boolean.TRUE;
+      })
+      .runSubscriptionOn(Infrastructure.getDefaultWorkerPool())
+      .replaceWithVoid();
+  }
+
+  /**
+   * Inserts the transactions left pending by the previous instance, the replay file is removed once all of
+   * them are in the database.
+   */
+  private void replay(Path replay) throws IOException {
+    var begun = new LinkedHashMap<String, String>();
+    try (var lines = Files.lines(replay, StandardCharsets.UTF_8)) {
+      lines.forEach(line -> {
+        if (line.startsWith(BEGIN)) {
+          var json = line.substring(BEGIN.length());
+          try {
+            begun.put(decode(json).getId().toHexString(), json);
+          } catch (RuntimeException e) {
+            // torn write of a crash during begin, the provider was never called
+            Log.warn("Skipping unreadable write-behind journal entry: " + line, e);
+          }
+        } else if (line.startsWith(DONE)) {
+          begun.remove(line.substring(DONE.length()).trim());
+        }
+      });
+    }
+    if (begun.isEmpty()) {
+      Files.delete(replay);
+      return;
+    }
+
+    Log.warn("Replaying " + begun.size() + " rewards transactions from write-behind journal");
+    Multi.createFrom().iterable(begun.values())
+      .onItem().transformToUniAndConcatenate(json -> advRepo.insertIfAbsent(decode(json)))
+      .collect().asList()
+      .subscribe().with(inserted -> {
+        try {
+          Files.delete(replay);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        Log.info("Write-behind journal replayed, " + inserted.stream().filter(Boolean::booleanValue).count() +
+          " transactions were missing");
+      }, ex -> Log.error("Unable to replay write-behind journal " + replay + ", retrying on next start", ex));
+  }
+
+  private RewardsTransStatus decode(String json) {
+    return codec.decode(new JsonReader(json), DecoderContext.builder().build());
+  }
+
+  private void write(String line, boolean sync) {
+    var buf = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+    try {
+      while (buf.hasRemaining()) {
+        channel.write(buf);
+      }
+      if (sync) {
+        channel.force(false);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to write to " + journal, e);
+    }
+  }
+
+  private void truncate() {
+    try {
+      channel.truncate(0);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to truncate " + journal, e);
+    }
+  }
+}
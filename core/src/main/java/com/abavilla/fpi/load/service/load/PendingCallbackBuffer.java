@@ -0,0 +1,87 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service.load;
+
+import java.time.Duration;
+
+import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.load.entity.load.CallbackInbox;
+import com.abavilla.fpi.load.repo.load.CallbackInboxRepo;
+import io.quarkus.logging.Log;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Correlation buffer for provider callbacks that arrive before the load request has stored the provider
+ * transaction id. Such callbacks are parked in the {@code callback_inbox} collection, so {@link RewardsSvc} can
+ * release them as soon as the id is written instead of the callback polling for it. Parked callbacks that are
+ * never matched expire and are moved to {@code rewards_leak} by the {@link CallbackInboxWorker}.
+ *
+ * <p>A callback may be parked by any instance, so every release updates the collection through the
+ * correlation index of the inbox, and wakes the local workers only if a parked callback was released.</p>
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class PendingCallbackBuffer {
+
+  @Inject
+  CallbackInboxRepo inboxRepo;
+
+  @Inject
+  CallbackInboxWorker inboxWorker;
+
+  /**
+   * Time a callback waits for its transaction before it is treated as a leak
+   */
+  @ConfigProperty(name = "fpi.load.callback-inbox.park-ttl", defaultValue = "10M")
+  Duration parkTtl;
+
+  /**
+   * Parks a callback until its transaction is stored.
+   *
+   * @param item Callback claimed from the inbox
+   * @return {@link Uni} completing once the callback is parked
+   */
+  public Uni<Void> park(CallbackInbox item) {
+    var parkedUntil = item.getParkedUntil() == null ?
+      DateUtil.now().plus(parkTtl) : item.getParkedUntil();
+    return inboxRepo.park(item.getId(), parkedUntil).replaceWithVoid();
+  }
+
+  /**
+   * Releases the callbacks parked for a transaction, if any, to be processed right away.
+   *
+   * @param provider      Provider of the transaction
+   * @param transactionId Provider transaction id
+   * @return {@link Uni} completing once the callbacks are released
+   */
+  public Uni<Void> release(String provider, Long transactionId) {
+    return inboxRepo.releaseParked(provider, transactionId)
+      .invoke(result -> {
+        if (result.getModifiedCount() > 0) {
+          Log.info("Released " + result.getModifiedCount() + " early callback for " + transactionId);
+          inboxWorker.signal();
+        }
+      })
+      .replaceWithVoid();
+  }
+}
@@ -0,0 +1,232 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service.load;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.abavilla.fpi.load.engine.load.LoadEngine;
+import com.abavilla.fpi.load.entity.load.PromoSku;
+import com.abavilla.fpi.load.entity.load.ProviderOffer;
+import com.abavilla.fpi.load.repo.load.PromoSkuRepo;
+import com.abavilla.fpi.telco.ext.enums.Telco;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * In-memory copy of the {@code promo_sku} collection used for answering SKU lookups without a round trip to
+ * MongoDB. The whole collection is loaded at startup and reloaded whenever a change is published on the
+ * collection's change stream, or periodically if change streams are not supported by the deployment
+ * (e.g. standalone mongod).
+ *
+ * <p>Lookups are resolved through a {@link PromoSkuIndex} and follow the same matching and ranking rules as {@link PromoSkuRepo#findByTelcoAndDenominationOrKeyword}
+ * and {@link PromoSkuRepo#findByKeyword}: highest wholesale discount first, then by sku type ordinal.</p>
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class PromoSkuCatalog {
+
+  /**
+   * Ranking used by the repository queries, sort by {@code offers.wholesaleDiscount} descending
+   * (array fields are compared by their largest element) then by {@code type.ord} ascending.
+   */
+  static final Comparator<PromoSku> SKU_RANKING = Comparator
+    .comparing(PromoSkuCatalog::maxWholesaleDiscount, Comparator.nullsLast(Comparator.reverseOrder()))
+    .thenComparingInt(PromoSkuCatalog::typeOrd)
+    .thenComparing(PromoSku::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+  @Inject
+  PromoSkuRepo repo;
+
+  @Inject
+  LoadEngine loadEngine;
+
+  /**
+   * Flag to serve lookups from memory, if disabled lookups will go directly to the database
+   */
+  @ConfigProperty(name = "fpi.load.sku-catalog.enabled", defaultValue = "true")
+  boolean enabled;
+
+  /**
+   * Interval for reloading the catalog when change streams are not available
+   */
+  @ConfigProperty(name = "fpi.load.sku-catalog.poll-interval", defaultValue = "60S")
+  Duration pollInterval;
+
+  /**
+   * Snapshot of all promos sorted by {@link #SKU_RANKING}, {@code null} until the first load completes
+   */
+  private volatile List<PromoSku> skus;
+
+  /**
+   * Lookup structure built from {@link #skus}
+   */
+  private volatile PromoSkuIndex index = PromoSkuIndex.EMPTY;
+
+  private Cancellable watcher;
+
+  /**
+   * Set while a reload requested by {@link #requestRefresh()} is running
+   */
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+
+  /**
+   * Set when changes arrived after the running reload read the collection
+   */
+  private final AtomicBoolean dirty = new AtomicBoolean();
+
+  void onStart(@Observes StartupEvent ev) {
+    if (enabled) {
+      watchChanges();
+      refresh().subscribe().with(ignored -> {},
+        ex -> Log.error("Unable to load promo sku catalog, falling back to database lookups", ex));
+    }
+  }
+
+  void onStop(@Observes ShutdownEvent ev) {
+    if (watcher != null) {
+      watcher.cancel();
+    }
+  }
+
+  /**
+   * Reloads the whole {@code promo_sku} collection to memory.
+   *
+   * @return {@link Uni} completing once the new snapshot is in place
+   */
+  public Uni<Void> refresh() {
+    return repo.listCatalog().invoke(this::load).replaceWithVoid();
+  }
+
+  /**
+   * Schedules a reload of the catalog, coalescing bursts of changes: at most one reload runs at a time and
+   * changes arriving meanwhile are picked up by a single reload after it.
+   */
+  public void requestRefresh() {
+    dirty.set(true);
+    if (refreshing.compareAndSet(false, true)) {
+      runRefresh();
+    }
+  }
+
+  private void runRefresh() {
+    dirty.set(false);
+    refresh().subscribe().with(ignored -> refreshDone(), ex -> {
+      Log.error("Unable to reload promo sku catalog", ex);
+      refreshDone();
+    });
+  }
+
+  private void refreshDone() {
+    refreshing.set(false);
+    if (dirty.get() && refreshing.compareAndSet(false, true)) {
+      runRefresh();
+    }
+  }
+
+  /**
+   * Replaces the current snapshot with the given promos.
+   *
+   * @param promos All promos in the collection
+   */
+  protected void load(List<PromoSku> promos) {
+    var ranked = promos.stream().sorted(SKU_RANKING).toList();
+    index = PromoSkuIndex.build(ranked);
+    loadEngine.compileRoutes(ranked);
+    skus = ranked;
+    Log.info("Loaded " + skus.size() + " promo sku to catalog");
+  }
+
+  /**
+   * Checks if the catalog can serve lookups.
+   *
+   * @return {@code true} if enabled and a snapshot has been loaded
+   */
+  public boolean isLoaded() {
+    return enabled && skus != null;
+  }
+
+  /**
+   * Finds the best {@link PromoSku} for the given telco and keyword or ranged denomination.
+   *
+   * @param telco   Operator of the promo
+   * @param keyword Keyword or denomination of the promo
+   * @return {@link PromoSku} found
+   */
+  public Optional<PromoSku> findByTelcoAndDenominationOrKeyword(Telco telco, String keyword) {
+    return Optional.ofNullable(index.resolve(telco, keyword));
+  }
+
+  /**
+   * Finds the best {@link PromoSku} across all operators for the given keyword or ranged denomination.
+   *
+   * @param keyword Keyword or denomination of the promo
+   * @return {@link PromoSku} found
+   */
+  public Optional<PromoSku> findByKeyword(String keyword) {
+    return Optional.ofNullable(index.resolve(keyword));
+  }
+
+  private void watchChanges() {
+    watcher = repo.mongoCollection().watch()
+      .subscribe().with(change -> requestRefresh(), ex -> {
+        Log.warn("Promo sku change stream unavailable, polling every " + pollInterval + ": " + ex.getMessage());
+        pollChanges();
+      });
+  }
+
+  private void pollChanges() {
+    watcher = Multi.createFrom().ticks().every(pollInterval)
+      .onOverflow().drop()
+      .onItem().transformToUniAndConcatenate(tick -> refresh()
+        .onFailure().invoke(ex -> Log.error("Unable to reload promo sku catalog", ex))
+        .onFailure().recoverWithNull())
+      .subscribe().with(ignored -> {});
+  }
+
+  static BigDecimal maxWholesaleDiscount(PromoSku sku) {
+    if (sku.getOffers() == null) {
+      return null;
+    }
+    return sku.getOffers().stream()
+      .map(ProviderOffer::getWholesaleDiscount)
+      .filter(Objects::nonNull)
+      .max(Comparator.naturalOrder())
+      .orElse(null);
+  }
+
+  static int typeOrd(PromoSku sku) {
+    return sku.getType() == null ? Integer.MIN_VALUE : sku.getType().getId();
+  }
+
+}
@@ -0,0 +1,254 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service.load;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.abavilla.fpi.load.entity.enums.SkuType;
+import com.abavilla.fpi.load.entity.load.PromoSku;
+import com.abavilla.fpi.telco.ext.enums.Telco;
+
+/**
+ * Immutable lookup structure for resolving a keyword or denomination to the best {@link PromoSku}.
+ *
+ * <p>Each {@link Telco} (plus one partition spanning all telcos) holds a hash map of keyword to the ranked
+ * {@link SkuType#BUNDLE}/{@link SkuType#CREDITS} candidates and a sorted array of denomination segments for
+ * {@link SkuType#RANGED} promos, each segment pointing to the best ranked promo covering it. A resolve is a hash
+ * lookup plus a binary search and does not allocate.</p>
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public final class PromoSkuIndex {
+
+  /**
+   * Index with no promos
+   */
+  public static final PromoSkuIndex EMPTY = build(List.of());
+
+  private final Map<Telco, Partition> byTelco;
+
+  private final Partition allTelco;
+
+  private PromoSkuIndex(Map<Telco, Partition> byTelco, Partition allTelco) {
+    this.byTelco = byTelco;
+    this.allTelco = allTelco;
+  }
+
+  /**
+   * Builds the index from promos already sorted by rank, the first item being the most preferred.
+   *
+   * @param rankedSkus Promos sorted by rank
+   * @return the index
+   */
+  public static PromoSkuIndex build(List<PromoSku> rankedSkus) {
+    var telcoSkus = new EnumMap<Telco, List<Ranked>>(Telco.class);
+    var allSkus = new ArrayList<Ranked>(rankedSkus.size());
+    for (int rank = 0; rank < rankedSkus.size(); rank++) {
+      var ranked = new Ranked(rankedSkus.get(rank), rank);
+      allSkus.add(ranked);
+      if (ranked.sku().getTelco() != null) {
+        telcoSkus.computeIfAbsent(ranked.sku().getTelco(), telco -> new ArrayList<>()).add(ranked);
+      }
+    }
+
+    var byTelco = new EnumMap<Telco, Partition>(Telco.class);
+    telcoSkus.forEach((telco, skus) -> byTelco.put(telco, Partition.of(skus)));
+    return new PromoSkuIndex(byTelco, Partition.of(allSkus));
+  }
+
+  /**
+   * Resolves the best promo for the telco and keyword or denomination.
+   *
+   * @param telco   Operator of the promo
+   * @param keyword Keyword or denomination of the promo
+   * @return {@link PromoSku} found, {@code null} if nothing matches
+   */
+  public PromoSku resolve(Telco telco, String keyword) {
+    var partition = byTelco.get(telco);
+    return partition == null ? null : partition.resolve(keyword);
+  }
+
+  /**
+   * Resolves the best promo across all telcos for the keyword or denomination.
+   *
+   * @param keyword Keyword or denomination of the promo
+   * @return {@link PromoSku} found, {@code null} if nothing matches
+   */
+  public PromoSku resolve(String keyword) {
+    return allTelco.resolve(keyword);
+  }
+
+  /**
+   * Parses the keyword as a denomination, following {@code NumberUtils.toInt} where anything that is not a valid
+   * integer is treated as zero, but without throwing and catching an exception for every non-numeric keyword.
+   *
+   * @param keyword Keyword to parse
+   * @return the denomination or zero
+   */
+  static int toDenomination(String keyword) {
+    if (keyword == null || keyword.isEmpty()) {
+      return 0;
+    }
+    int i = 0;
+    boolean negative = false;
+    char first = keyword.charAt(0);
+    if (first == '-' || first == '+') {
+      if (keyword.length() == 1) {
+        return 0;
+      }
+      negative = first == '-';
+      i++;
+    }
+    long value = 0;
+    for (; i < keyword.length(); i++) {
+      int digit = Character.digit(keyword.charAt(i), 10);
+      if (digit < 0) {
+        return 0;
+      }
+      value = value * 10 + digit;
+      if (value > (long) Integer.MAX_VALUE + 1) {
+        return 0;
+      }
+    }
+    value = negative ? -value : value;
+    return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? 0 : (int) value;
+  }
+
+  private record Ranked(PromoSku sku, int rank) {
+  }
+
+  private static final class Partition {
+
+    /**
+     * Keyword to bundle and credit promos, sorted by rank
+     */
+    private final Map<String, Ranked[]> keywords;
+
+    /**
+     * Start (inclusive) of each denomination segment, sorted ascending
+     */
+    private final long[] segmentStarts;
+
+    /**
+     * Best ranked promo covering the segment, {@code null} for gaps
+     */
+    private final Ranked[] segmentBest;
+
+    private Partition(Map<String, Ranked[]> keywords, long[] segmentStarts, Ranked[] segmentBest) {
+      this.keywords = keywords;
+      this.segmentStarts = segmentStarts;
+      this.segmentBest = segmentBest;
+    }
+
+    static Partition of(List<Ranked> skus) {
+      var keywordLists = new HashMap<String, List<Ranked>>();
+      var ranged = new ArrayList<long[]>();
+      var rangedSkus = new ArrayList<Ranked>();
+
+      for (var ranked : skus) { // already in rank order, so candidate lists stay sorted
+        var sku = ranked.sku();
+        if (sku.getType() == SkuType.BUNDLE || sku.getType() == SkuType.CREDITS) {
+          if (sku.getKeywords() != null) {
+            sku.getKeywords().stream().distinct().forEach(keyword ->
+              keywordLists.computeIfAbsent(keyword, k -> new ArrayList<>()).add(ranked));
+          }
+        } else if (sku.getType() == SkuType.RANGED) {
+          var bounds = toIntBounds(sku);
+          if (bounds != null) {
+            ranged.add(bounds);
+            rangedSkus.add(ranked);
+          }
+        }
+      }
+
+      var keywords = new HashMap<String, Ranked[]>(keywordLists.size() * 2);
+      keywordLists.forEach((keyword, list) -> keywords.put(keyword, list.toArray(Ranked[]::new)));
+
+      // every interval start and every position right after an interval end opens a new segment
+      var points = new TreeSet<Long>();
+      for (var bounds : ranged) {
+        points.add(bounds[0]);
+        points.add(bounds[1] + 1);
+      }
+      long[] starts = points.stream().mapToLong(Long::longValue).toArray();
+      var best = new Ranked[starts.length];
+      for (int seg = 0; seg < starts.length; seg++) {
+        for (int i = 0; i < ranged.size(); i++) {
+          var bounds = ranged.get(i);
+          var candidate = rangedSkus.get(i);
+          if (bounds[0] <= starts[seg] && starts[seg] <= bounds[1] &&
+            (best[seg] == null || candidate.rank() < best[seg].rank())) {
+            best[seg] = candidate;
+          }
+        }
+      }
+      return new Partition(keywords, starts, best);
+    }
+
+    PromoSku resolve(String keyword) {
+      Ranked found = null;
+      var byKeyword = keyword == null ? null : keywords.get(keyword);
+      if (byKeyword != null) {
+        found = byKeyword[0];
+      }
+
+      int idx = Arrays.binarySearch(segmentStarts, toDenomination(keyword));
+      if (idx < 0) {
+        idx = -idx - 2; // segment whose start precedes the denomination
+      }
+      if (idx >= 0) {
+        var ranged = segmentBest[idx];
+        if (ranged != null && (found == null || ranged.rank() < found.rank())) {
+          found = ranged;
+        }
+      }
+      return found == null ? null : found.sku();
+    }
+
+    /**
+     * Converts the promo denomination to an inclusive integer range since the denomination looked up is always an
+     * integer.
+     *
+     * @param sku Ranged promo
+     * @return lower and upper bounds, {@code null} if no integer falls in the range
+     */
+    private static long[] toIntBounds(PromoSku sku) {
+      if (sku.getDenomination() == null ||
+        sku.getDenomination().getMin() == null || sku.getDenomination().getMax() == null) {
+        return null;
+      }
+      var min = sku.getDenomination().getMin().setScale(0, RoundingMode.CEILING)
+        .max(BigDecimal.valueOf(Integer.MIN_VALUE));
+      var max = sku.getDenomination().getMax().setScale(0, RoundingMode.FLOOR)
+        .min(BigDecimal.valueOf(Integer.MAX_VALUE));
+      if (min.compareTo(max) > 0) {
+        return null;
+      }
+      return new long[]{min.longValueExact(), max.longValueExact()};
+    }
+  }
+}
@@ -42,9 +42,35 @@ public class PromoSkuSvc extends AbsRepoSvc<PromoSkuDto, PromoSku, PromoSkuRepo>
   @Inject
   PromoSkuMapper mapper;
 
+  /**
+   * In-memory copy of promos, used for lookups when loaded
+   */
+  @Inject
+  PromoSkuCatalog catalog;
+
+  /**
+   * Finds the {@link PromoSku} given the load request, matching the telco and the keyword or ranged denomination.
+   *
+   * @param loadReq {@link LoadReqDto} object containing the SKU information
+   * @return {@link PromoSku} promo found
+   */
   public Uni<Optional<PromoSku>> findSku(LoadReqDto loadReq) {
-    return repo.findByTelcoAndDenominationOrKeyword(
-        Telco.fromValue(loadReq.getTelco()), loadReq.getSku());
+    return findSku(loadReq.getTelco(), loadReq.getSku());
+  }
+
+  /**
+   * Finds the {@link PromoSku} matching the telco and the keyword or ranged denomination.
+   *
+   * @param telco Telco name
+   * @param sku   Keyword or denomination
+   * @return {@link PromoSku} promo found
+   */
+  public Uni<Optional<PromoSku>> findSku(String telco, String sku) {
+    var telcoEnum = Telco.fromValue(telco);
+    if (catalog.isLoaded()) {
+      return Uni.createFrom().item(catalog.findByTelcoAndDenominationOrKeyword(telcoEnum, sku));
+    }
+    return repo.findByTelcoAndDenominationOrKeyword(telcoEnum, sku);
   }
 
   /**
@@ -54,7 +80,20 @@ public class PromoSkuSvc extends AbsRepoSvc<PromoSkuDto, PromoSku, PromoSkuRepo>
    * @return {@link PromoSku} promo found
    */
   public Uni<Optional<PromoSku>> findSkuByDefaultOperator(LoadReqDto loadReq) {
-    return repo.findByKeyword(loadReq.getSku());
+    return findSkuByDefaultOperator(loadReq.getSku());
+  }
+
+  /**
+   * Finds the {@link PromoSku} given the keyword, it returns the first result found.
+   *
+   * @param sku Keyword
+   * @return {@link PromoSku} promo found
+   */
+  public Uni<Optional<PromoSku>> findSkuByDefaultOperator(String sku) {
+    if (catalog.isLoaded()) {
+      return Uni.createFrom().item(catalog.findByKeyword(sku));
+    }
+    return repo.findByKeyword(sku);
   }
 
   /**
@@ -0,0 +1,235 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service.load;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.abavilla.fpi.fw.exceptions.FPISvcEx;
+import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.load.dto.load.LoadBatchItemDto;
+import com.abavilla.fpi.load.dto.load.LoadReqDto;
+import com.abavilla.fpi.load.engine.load.ProviderRoute;
+import com.abavilla.fpi.load.entity.load.PromoSku;
+import com.abavilla.fpi.load.entity.load.RewardsTransStatus;
+import com.abavilla.fpi.load.repo.load.RewardsTransRepo;
+import com.abavilla.fpi.load.service.LoadTracing;
+import com.abavilla.fpi.load.util.LoadConst;
+import com.abavilla.fpi.telco.ext.enums.ApiStatus;
+import io.quarkus.logging.Log;
+import io.quarkus.security.identity.SecurityIdentity;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.RestResponse;
+
+/**
+ * Service for submitting many load requests at once, e.g. for promo campaigns.
+ *
+ * <p>Skus are resolved once per distinct telco and sku, the initial {@link RewardsTransStatus} of every
+ * request is written with a single insert and the provider calls are dispatched with a concurrency cap per
+ * provider. Each request then follows the same failover and callback flow as a single
+ * {@link RewardsSvc#reloadNumber(LoadReqDto) reload}.</p>
+ *
+ * <p>Batches are not affected by {@link LoadWriteJournal write-behind}, the single insert of the batch is
+ * already written before any provider call and each transaction is then updated with its response.</p>
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class RewardsBatchSvc {
+
+  /**
+   * Maximum number of load requests accepted in a single batch
+   */
+  @ConfigProperty(name = "fpi.load.batch.max-size", defaultValue = "5000")
+  int maxBatchSize;
+
+  /**
+   * Maximum number of in-flight provider calls per provider, can be overridden for a provider through
+   * {@code fpi.load.batch.provider-concurrency.<provider name>}
+   */
+  @ConfigProperty(name = "fpi.load.batch.concurrency", defaultValue = "8")
+  int concurrency;
+
+  @Inject
+  Config config;
+
+  @Inject
+  RewardsSvc rewardsSvc;
+
+  @Inject
+  RewardsTransRepo advRepo;
+
+  @Inject
+  SecurityIdentity identity;
+
+  @Inject
+  LoadTracing loadTracing;
+
+  /**
+   * Maximum number of load requests accepted in a single batch, a streamed batch can stop reading after one
+   * request more than this.
+   *
+   * @return maximum batch size
+   */
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /**
+   * Submits the given load requests, streaming the outcome of each request as it completes.
+   *
+   * @param loadReqs Load requests
+   * @return {@link Multi} of {@link LoadBatchItemDto}, one for each request in completion order
+   */
+  public Multi<LoadBatchItemDto> reloadBatch(List<LoadReqDto> loadReqs) {
+    if (loadReqs.size() > maxBatchSize) {
+      return Multi.createFrom().failure(new FPISvcEx("Too many load requests, maximum is " + maxBatchSize,
+        RestResponse.StatusCode.BAD_REQUEST));
+    }
+    if (loadReqs.isEmpty()) {
+      return Multi.createFrom().empty();
+    }
+
+    var fpiUser = identity.getPrincipal().getName();
+    var traceparent = loadTracing.currentTraceparent();
+    var logs = loadReqs.stream()
+      .map(loadReq -> rewardsSvc.newRewardsLog(loadReq, fpiUser, traceparent))
+      .toList();
+    return resolveSkus(loadReqs).onItem().transformToMulti(skus -> {
+      var items = new ArrayList<BatchItem>(loadReqs.size());
+      var rejected = new ArrayList<LoadBatchItemDto>();
+      for (int i = 0; i < loadReqs.size(); i++) {
+        var loadReq = loadReqs.get(i);
+        var promo = skus.getOrDefault(SkuKey.of(loadReq), Optional.empty());
+        var routes = rewardsSvc.selectProviders(promo);
+        if (routes.isEmpty()) {
+          rejected.add(buildItem(i, loadReq, ApiStatus.REJ, LoadConst.NO_LOAD_PROVIDER_AVAILABLE));
+          continue;
+        }
+
+        var log = logs.get(i);
+        log.setLoadProvider(routes.get(0).provider().getProviderName());
+        log.setDateUpdated(DateUtil.now());
+        items.add(new BatchItem(i, loadReq, log, promo.get(), routes));
+      }
+      if (items.isEmpty()) {
+        return Multi.createFrom().iterable(rejected);
+      }
+
+      // a single insertMany for the whole batch, see the class docs on write-behind
+      return advRepo.persist(items.stream().map(BatchItem::log).toList())
+        .onItem().transformToMulti(saved -> dispatch(items, rejected));
+    });
+  }
+
+  /**
+   * Looks up the promo of every distinct telco and sku in the batch.
+   */
+  private Uni<Map<SkuKey, Optional<PromoSku>>> resolveSkus(List<LoadReqDto> loadReqs) {
+    var keys = loadReqs.stream().map(SkuKey::of).distinct().toList();
+    var lookups = keys.stream().map(this::findSku).toList();
+    return Uni.join().all(lookups).andFailFast().map(promos -> {
+      var skus = new LinkedHashMap<SkuKey, Optional<PromoSku>>();
+      for (int i = 0; i < keys.size(); i++) {
+        skus.put(keys.get(i), promos.get(i));
+      }
+      return skus;
+    });
+  }
+
+  /**
+   * Looks up the promo by the normalized key, so requests grouped under the same key resolve alike.
+   */
+  private Uni<Optional<PromoSku>> findSku(SkuKey key) {
+    return Uni.createFrom().deferred(() -> rewardsSvc.findSku(key.telco(), key.sku()))
+      .onFailure().invoke(ex -> Log.warn("Unable to resolve sku " + key.sku() +
+        " of telco " + key.telco(), ex))
+      .onFailure().recoverWithItem(Optional.empty());
+  }
+
+  /**
+   * Sends the saved requests to their providers, each provider with its own concurrency cap, merging the
+   * results as they complete.
+   */
+  private Multi<LoadBatchItemDto> dispatch(List<BatchItem> items, List<LoadBatchItemDto> rejected) {
+    var byProvider = items.stream().collect(Collectors.groupingBy(
+      item -> item.log().getLoadProvider(), LinkedHashMap::new, Collectors.toList()));
+
+    var streams = new ArrayList<Multi<LoadBatchItemDto>>(byProvider.size() + 1);
+    streams.add(Multi.createFrom().iterable(rejected));
+    byProvider.forEach((provider, providerItems) -> streams.add(Multi.createFrom().iterable(providerItems)
+      .onItem().transformToUni(this::reload)
+      .merge(getConcurrency(provider))));
+    return Multi.createBy().merging().streams(streams);
+  }
+
+  private Uni<LoadBatchItemDto> reload(BatchItem item) {
+    return rewardsSvc.reloadAndUpdateDb(item.log(), item.loadReq(), item.promo(), item.routes())
+      .map(resp -> {
+        var result = buildItem(item.index(), item.loadReq(), resp.getStatus(), resp.getError());
+        result.setTransactionId(resp.getTransactionId());
+        result.setSmsTransactionId(resp.getSmsTransactionId());
+        return result;
+      })
+      .onFailure().recoverWithItem(ex -> {
+        Log.error("Batch load failed for " + item.log().getId(), ex);
+        var result = buildItem(item.index(), item.loadReq(), ApiStatus.REJ, ex.getMessage());
+        result.setTransactionId(item.log().getId().toString());
+        return result;
+      });
+  }
+
+  private int getConcurrency(String provider) {
+    return config.getOptionalValue("fpi.load.batch.provider-concurrency." + provider, Integer.class)
+      .orElse(concurrency);
+  }
+
+  private LoadBatchItemDto buildItem(int index, LoadReqDto loadReq, ApiStatus status, String error) {
+    var item = new LoadBatchItemDto();
+    item.setIndex(index);
+    item.setMobile(loadReq.getMobile());
+    item.setSku(loadReq.getSku());
+    item.setStatus(status);
+    item.setError(error);
+    return item;
+  }
+
+  /**
+   * Telco and sku a promo is resolved by, a blank telco resolves by the default operator.
+   */
+  private record SkuKey(String telco, String sku) {
+    static SkuKey of(LoadReqDto loadReq) {
+      return new SkuKey(StringUtils.trimToNull(loadReq.getTelco()), loadReq.getSku());
+    }
+  }
+
+  private record BatchItem(int index, LoadReqDto loadReq, RewardsTransStatus log, PromoSku promo,
+                           List<ProviderRoute> routes) {
+  }
+}
@@ -19,8 +19,7 @@
 package com.abavilla.fpi.load.service.load;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.util.Optional;
 import java.util.function.Function;
 
 import com.abavilla.fpi.fw.dto.impl.NullDto;
@@ -31,15 +30,21 @@ import com.abavilla.fpi.fw.service.AbsSvc;
 import com.abavilla.fpi.fw.util.DateUtil;
 import com.abavilla.fpi.load.dto.load.gl.GLRewardsCallbackDto;
 import com.abavilla.fpi.load.entity.dtone.DVSCallback;
+import com.abavilla.fpi.load.entity.enums.InboxState;
+import com.abavilla.fpi.load.entity.load.AckStatus;
 import com.abavilla.fpi.load.entity.load.CallBack;
+import com.abavilla.fpi.load.entity.load.CallbackInbox;
 import com.abavilla.fpi.load.entity.load.RewardsTransStatus;
 import com.abavilla.fpi.load.mapper.load.dtone.DTOneMapper;
 import com.abavilla.fpi.load.mapper.load.gl.GLMapper;
+import com.abavilla.fpi.load.repo.load.CallbackInboxRepo;
 import com.abavilla.fpi.load.repo.load.RewardsLeakRepo;
 import com.abavilla.fpi.load.repo.load.RewardsTransRepo;
+import com.abavilla.fpi.load.service.LoadMetrics;
+import com.abavilla.fpi.load.service.LoadTracing;
+import com.abavilla.fpi.load.service.MsisdnNormalizer;
 import com.abavilla.fpi.load.util.LoadConst;
 import com.abavilla.fpi.login.ext.dto.UserDto;
-import com.abavilla.fpi.login.ext.rest.UserApi;
 import com.abavilla.fpi.msgr.ext.dto.MsgrMsgReqDto;
 import com.abavilla.fpi.msgr.ext.rest.MsgrReqApi;
 import com.abavilla.fpi.msgr.ext.rest.TelegramReqApi;
@@ -48,14 +53,15 @@ import com.abavilla.fpi.sms.ext.dto.MsgReqDto;
 import com.abavilla.fpi.sms.ext.rest.SmsApi;
 import com.abavilla.fpi.telco.ext.enums.ApiStatus;
 import com.dtone.dvs.dto.Transaction;
-import com.google.i18n.phonenumbers.NumberParseException;
-import com.google.i18n.phonenumbers.PhoneNumberUtil;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.opentelemetry.api.trace.SpanKind;
 import io.quarkus.logging.Log;
+import io.smallrye.mutiny.TimeoutException;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.apache.commons.lang3.StringUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 
 @ApplicationScoped
@@ -67,8 +73,17 @@ public class RewardsCallbackSvc extends AbsSvc<GLRewardsCallbackDto, RewardsTran
   @Inject
   RewardsLeakRepo leakRepo;
 
-  @RestClient
-  UserApi userApi;
+  @Inject
+  CallbackInboxRepo inboxRepo;
+
+  @Inject
+  CallbackInboxWorker inboxWorker;
+
+  @Inject
+  PendingCallbackBuffer callbackBuffer;
+
+  @Inject
+  UserCache userCache;
 
   @Inject
   DTOneMapper dtOneMapper;
@@ -92,7 +107,25 @@ public class RewardsCallbackSvc extends AbsSvc<GLRewardsCallbackDto, RewardsTran
   ViberReqApi viberReqApi;
 
   @Inject
-  PhoneNumberUtil phoneNumberUtil;
+  MsisdnNormalizer msisdnNormalizer;
+
+  @Inject
+  LoadMetrics loadMetrics;
+
+  @Inject
+  LoadTracing loadTracing;
+
+  /**
+   * Time allowed for the acknowledgement message to the loader bot conversation
+   */
+  @ConfigProperty(name = "fpi.load.ack.bot-timeout", defaultValue = "15S")
+  Duration botAckTimeout;
+
+  /**
+   * Time allowed for an acknowledgement SMS
+   */
+  @ConfigProperty(name = "fpi.load.ack.sms-timeout", defaultValue = "15S")
+  Duration smsAckTimeout;
 
   public Uni<RespDto<NullDto>> storeCallback(GLRewardsCallbackDto callbackDto) {
     return storeCallback(
@@ -102,64 +135,124 @@ public class RewardsCallbackSvc extends AbsSvc<GLRewardsCallbackDto, RewardsTran
   }
 
   public Uni<RespDto<NullDto>> storeCallback(Transaction dvsCallbackTransaction) {
-    var dvsCallbackDto = dtOneMapper.mapDTOneTransactionToCallbackDto(dvsCallbackTransaction);
-    return storeCallback(
-      dtOneMapper.mapDTOneRespToEntity(dvsCallbackDto),
-      ApiStatus.fromDtOne(dvsCallbackDto.getStatus().getId()),
-      LoadConst.PROV_DTONE, dvsCallbackDto.getDtOneId());
+    var dvsCallback = dtOneMapper.mapDTOneTransactionToEntity(dvsCallbackTransaction);
+    return storeCallback(dvsCallback,
+      ApiStatus.fromDtOne(dvsCallback.getStatus().getId()),
+      LoadConst.PROV_DTONE, dvsCallback.getDtOneId());
   }
 
+  /**
+   * Appends the callback to the inbox and acknowledges it once stored, the callback is applied to its
+   * transaction asynchronously by the {@link CallbackInboxWorker}.
+   *
+   * @param callbackResponse Callback received
+   * @param status           Status of transaction
+   * @param provider         Provider that sent the callback
+   * @param transactionId    External transaction id
+   * @return {@link RespDto} acknowledgement
+   */
   private Uni<RespDto<NullDto>> storeCallback(AbsMongoItem callbackResponse, ApiStatus status,
                                   String provider, Long transactionId) {
-    var byTransId = advRepo.findByRespTransIdAndProvider(
-      String.valueOf(transactionId), provider);
-
-    byTransId.chain(transPulled -> checkIfTxExists(transPulled.orElse(null), transactionId))
-      .onFailure(ApiSvcEx.class).retry().withBackOff(
-        Duration.ofSeconds(3)).withJitter(0.2)
-      .atMost(5) // Retry for item not found and nothing else
-      .chain(transFound -> updateTransWithCallback(transFound, callbackResponse, status))
-      .chain(updatedTrans -> sendLoaderAckMsg(updatedTrans, callbackResponse, status))
-      .chain(updatedTrans -> sendFPIAckMsg(updatedTrans, callbackResponse, status)).onFailure()
-      .call(ex -> saveCallbackAsLeak(ex, callbackResponse, transactionId))
-      .subscribe().with(ignored -> {
-      });
+    var inbox = new CallbackInbox();
+    inbox.setContent(callbackResponse);
+    inbox.setStatus(status);
+    inbox.setLoadProvider(provider);
+    inbox.setTransactionId(transactionId);
+    inbox.setState(InboxState.PENDING);
+    inbox.setTraceparent(loadTracing.currentTraceparent());
+    inbox.setDateCreated(DateUtil.now());
+    inbox.setDateUpdated(DateUtil.now());
 
-    return Uni.createFrom().item(this::buildAckResponse);
+    return inboxRepo.persist(inbox)
+      .invoke(inboxWorker::signal)
+      .map(stored -> buildAckResponse());
   }
 
   /**
-   * Checks if rewards transaction have been logged in the db, if not, throw an {@link ApiSvcEx} exception.
+   * Applies a callback from the inbox to its rewards transaction and notifies the loader and customer.
+   * Callbacks received before the transaction id is stored are parked in the {@link PendingCallbackBuffer},
+   * and saved as a leak if still unmatched once the park expires, as are callbacks that cannot be applied.
    *
-   * @param rewardsTransStatus Entity in DB found
-   * @param transactionId      External transaction id
-   * @return @return {@link Function} callback
+   * @param inbox Callback claimed from the inbox
+   * @return {@link Uni} with {@code true} once the callback is fully processed, {@code false} if parked
    */
-  private Uni<? extends RewardsTransStatus> checkIfTxExists(RewardsTransStatus rewardsTransStatus, Long transactionId) {
-    if (rewardsTransStatus != null) {
-      return Uni.createFrom().item(rewardsTransStatus);
-    } else {
-      throw new ApiSvcEx("Trans Id for rewards callback not found: " + transactionId);
-    }
+  Uni<Boolean> processCallback(CallbackInbox inbox) {
+    var callbackResponse = inbox.getContent();
+    var transactionId = inbox.getTransactionId();
+
+    return findTrans(inbox).chain(transPulled -> {
+      if (transPulled.isPresent()) {
+        return applyCallback(transPulled.get(), inbox).replaceWith(Boolean.TRUE);
+      }
+      if (inbox.getParkedUntil() != null && !inbox.getParkedUntil().isAfter(DateUtil.now())) {
+        return saveCallbackAsLeak(new ApiSvcEx("Trans Id for rewards callback not found: " + transactionId),
+          callbackResponse, inbox.getLoadProvider(), transactionId).replaceWith(Boolean.TRUE);
+      }
+      // transaction id not yet stored by the load request, wait for it to be released
+      return callbackBuffer.park(inbox)
+        .chain(() -> findTrans(inbox)) // id may have been stored while parking
+        .chain(transRechecked -> transRechecked.isPresent() ?
+          callbackBuffer.release(inbox.getLoadProvider(), transactionId) :
+          Uni.createFrom().voidItem())
+        .replaceWith(Boolean.FALSE);
+    });
+  }
+
+  private Uni<Optional<RewardsTransStatus>> findTrans(CallbackInbox inbox) {
+    return advRepo.findByRespTransIdAndProvider(
+      String.valueOf(inbox.getTransactionId()), inbox.getLoadProvider());
+  }
+
+  private Uni<Void> applyCallback(RewardsTransStatus trans, CallbackInbox inbox) {
+    // linked rather than parented, the originating query trace ended long before the callback
+    return loadTracing.traced("load.callback.apply", SpanKind.INTERNAL, null,
+      LoadTracing.parseTraceparent(trans.getTraceparent()),
+      () -> updateAndAcknowledge(trans, inbox));
+  }
+
+  private Uni<Void> updateAndAcknowledge(RewardsTransStatus trans, CallbackInbox inbox) {
+    var callbackResponse = inbox.getContent();
+    var status = inbox.getStatus();
+    return updateTransWithCallback(trans, inbox).onFailure()
+      .call(ex -> saveCallbackAsLeak(ex, callbackResponse, trans.getLoadProvider(), inbox.getTransactionId()))
+      .onFailure().recoverWithNull()
+      .chain(updatedTrans -> {
+        if (updatedTrans == null || updatedTrans.isEmpty()) { // leaked, or acknowledged on a previous attempt
+          return Uni.createFrom().voidItem();
+        }
+        if (status == ApiStatus.DEL) {
+          loadMetrics.recordDelivered(updatedTrans.get());
+        }
+        return sendAckMsgs(updatedTrans.get(), callbackResponse, status);
+      });
   }
 
   /**
    * Updates the rewards transaction with the callback status.
    *
    * @param rewardsTrans Rewards transaction
-   * @param field        Callback status
-   * @param status       Status of transaction
-   * @return {@link Function} callback
+   * @param inbox        Callback from the inbox
+   * @return the updated transaction, empty if the callback was already applied by a previous attempt
    */
-  private Uni<? extends RewardsTransStatus> updateTransWithCallback(RewardsTransStatus rewardsTrans, AbsMongoItem field,
-                                                                    ApiStatus status) {
+  private Uni<Optional<RewardsTransStatus>> updateTransWithCallback(RewardsTransStatus rewardsTrans,
+                                                                   CallbackInbox inbox) {
     CallBack callBack = new CallBack();
-    callBack.setContent(field);
+    callBack.setContent(inbox.getContent());
     callBack.setDateReceived(DateUtil.now());
-    callBack.setStatus(status);
-    rewardsTrans.getApiCallback().add(callBack);
-    rewardsTrans.setDateUpdated(LocalDateTime.now(ZoneOffset.UTC));
-    return repo.update(rewardsTrans);
+    callBack.setStatus(inbox.getStatus());
+    callBack.setInboxId(inbox.getId());
+    var start = System.nanoTime();
+    return advRepo.pushCallback(rewardsTrans.getId(), callBack)
+      .onItemOrFailure().invoke((updated, ex) -> loadMetrics.recordRewardsLogWrite(LoadMetrics.WRITE_CALLBACK,
+        updated != null, System.nanoTime() - start))
+      .chain(updated -> updated != null ? Uni.createFrom().item(Optional.of(updated)) :
+        advRepo.findById(rewardsTrans.getId()).map(existing -> {
+          if (existing == null) {
+            throw new ApiSvcEx("Rewards transaction removed: " + rewardsTrans.getId());
+          }
+          Log.info("Callback " + inbox.getId() + " already applied to " + rewardsTrans.getId());
+          return Optional.<RewardsTransStatus>empty();
+        }));
   }
 
   /**
@@ -167,14 +260,16 @@ public class RewardsCallbackSvc extends AbsSvc<GLRewardsCallbackDto, RewardsTran
    *
    * @param ex            Failed transaction
    * @param field         Load transaction
+   * @param provider      Load provider that sent the callback
    * @param transactionId External transaction id
    * @return {@link Function} callback
    */
-  private Uni<?> saveCallbackAsLeak(Throwable ex, AbsMongoItem field, Long transactionId) {
+  Uni<?> saveCallbackAsLeak(Throwable ex, AbsMongoItem field, String provider, Long transactionId) {
     Log.error("Rewards leak " + transactionId, ex);
     field.setDateCreated(DateUtil.now());
     field.setDateUpdated(DateUtil.now());
     return leakRepo.persist(field)
+      .onItemOrFailure().invoke((saved, persistEx) -> loadMetrics.countLeak(provider, persistEx == null))
       .onFailure().recoverWithNull();
   }
 
@@ -185,24 +280,21 @@ public class RewardsCallbackSvc extends AbsSvc<GLRewardsCallbackDto, RewardsTran
    * @param status             Load status
    * @return {@link Function} callback
    */
-  private Uni<?> sendFPIAckMsg(RewardsTransStatus rewardsTransStatus, AbsMongoItem callbackResponse,
-                               ApiStatus status) {
+  private Uni<Boolean> sendFPIAckMsg(RewardsTransStatus rewardsTransStatus, AbsMongoItem callbackResponse,
+                                     ApiStatus status) {
     if (rewardsTransStatus.getLoadRequest() != null &&
       rewardsTransStatus.getLoadRequest().getSendAckMsg()) {
       Log.info("Sending FPI acknowledgement message " +
         rewardsTransStatus.getLoadSmsId() + " apiStatus: " + status);
       if (status == ApiStatus.DEL) {
         var req = new MsgReqDto();
-        try {
-          var number = phoneNumberUtil.parse(rewardsTransStatus.getLoadRequest().getMobile(),
-            LoadConst.PH_REGION_CODE);
-          req.setMobileNumber(phoneNumberUtil
-            .format(number, PhoneNumberUtil.PhoneNumberFormat.E164));
-        } catch (NumberParseException e) {
+        var number = msisdnNormalizer.normalize(rewardsTransStatus.getLoadRequest().getMobile());
+        if (!number.parsable()) {
           Log.warn("Invalid recipient number, not sending ack message: " +
             rewardsTransStatus.getLoadRequest().getMobile());
-          return Uni.createFrom().voidItem();
+          return Uni.createFrom().item(Boolean.FALSE);
         }
+        req.setMobileNumber(number.e164());
         var pin = retrievePinFromCallBack(rewardsTransStatus, callbackResponse);
         String msgContent;
         if (StringUtils.isBlank(pin)) {
@@ -225,14 +317,14 @@ public class RewardsCallbackSvc extends AbsSvc<GLRewardsCallbackDto, RewardsTran
             pin, rewardsTransStatus.getLoadSmsId());
         }
         req.setContent(msgContent);
-        return smsApi.sendSms(req);
+        return smsApi.sendSms(req).replaceWith(Boolean.TRUE);
       } else {
-        return Uni.createFrom().voidItem();
+        return Uni.createFrom().item(Boolean.FALSE);
       }
     } else {
       Log.info("Skipping FPI acknowledgement message for " +
         rewardsTransStatus.getLoadSmsId() + " apiStatus: " + status);
-      return Uni.createFrom().voidItem();
+      return Uni.createFrom().item(Boolean.FALSE);
     }
   }
 
@@ -247,11 +339,85 @@ public class RewardsCallbackSvc extends AbsSvc<GLRewardsCallbackDto, RewardsTran
     return pin;
   }
 
-  private Uni<? extends RewardsTransStatus> sendLoaderAckMsg(RewardsTransStatus rewardsTransStatus,
-                                                             AbsMongoItem callbackResponse,
-                                                             ApiStatus status) {
+  /**
+   * Sends the acknowledgement messages to the loader bot conversation, the loader mobile and the customer
+   * concurrently. Each channel has its own timeout and failure handling and its outcome is recorded on the
+   * transaction, a failing channel does not affect the others.
+   *
+   * @param rewardsTransStatus Rewards transaction, already updated with the callback
+   * @param callbackResponse   Callback received
+   * @param status             Load status
+   * @return {@link Uni} completing once every channel completed, failed or timed out
+   */
+  private Uni<Void> sendAckMsgs(RewardsTransStatus rewardsTransStatus, AbsMongoItem callbackResponse,
+                                ApiStatus status) {
     Log.info("Sending ack message to loader: " + rewardsTransStatus);
-    String fpiUser = rewardsTransStatus.getFpiUser();
+    var msgContent = buildLoaderAckMsg(rewardsTransStatus, callbackResponse, status);
+    var loader = userCache.get(rewardsTransStatus.getFpiUser()); // shared by both loader channels
+
+    var botMsg = new MsgrMsgReqDto();
+    botMsg.setContent(msgContent);
+    return Uni.join().all(
+        dispatchAck(rewardsTransStatus, LoadConst.ACK_CH_LOADER_BOT, botAckTimeout, status,
+          loader.chain(user -> sendToBotSource(rewardsTransStatus, user, botMsg))),
+        dispatchAck(rewardsTransStatus, LoadConst.ACK_CH_LOADER_SMS, smsAckTimeout, status,
+          loader.chain(user -> sendLoaderSms(user, msgContent))),
+        dispatchAck(rewardsTransStatus, LoadConst.ACK_CH_CUSTOMER_SMS, smsAckTimeout, status,
+          sendFPIAckMsg(rewardsTransStatus, callbackResponse, status)))
+      .andFailFast()
+      .replaceWithVoid();
+  }
+
+  /**
+   * Runs the send of a single acknowledgement channel and records its outcome, never fails.
+   *
+   * @param rewardsTransStatus Rewards transaction
+   * @param channel            Acknowledgement channel
+   * @param timeout            Time allowed for the send
+   * @param status             Load status
+   * @param send               Send job, emitting {@code false} if the channel does not apply
+   * @return {@link Uni} completing once the outcome is recorded
+   */
+  private Uni<Void> dispatchAck(RewardsTransStatus rewardsTransStatus, String channel, Duration timeout,
+                                ApiStatus status, Uni<Boolean> send) {
+    var ackStatus = new AckStatus();
+    ackStatus.setChannel(channel);
+    ackStatus.setLoadStatus(status);
+    var start = System.nanoTime();
+    return send
+      .ifNoItem().after(timeout).fail()
+      .map(sent -> Boolean.TRUE.equals(sent) ? LoadConst.ACK_SENT : null)
+      .onFailure(TimeoutException.class).recoverWithItem(LoadConst.ACK_TIMEOUT)
+      .onFailure().recoverWithItem(ex -> {
+        Log.warn("Unable to send " + channel + " ack for " + rewardsTransStatus.getLoadSmsId(), ex);
+        ackStatus.setError(ex.getMessage());
+        return LoadConst.ACK_FAILED;
+      })
+      .chain(outcome -> {
+        if (outcome == null) { // channel not applicable
+          return Uni.createFrom().voidItem();
+        }
+        loadMetrics.recordAck(channel, outcome, System.nanoTime() - start);
+        ackStatus.setOutcome(outcome);
+        ackStatus.setDateSent(DateUtil.now());
+        return advRepo.pushAckStatus(rewardsTransStatus.getId(), ackStatus).replaceWithVoid();
+      })
+      .onFailure().invoke(ex -> Log.error("Unable to record " + channel + " ack outcome", ex))
+      .onFailure().recoverWithNull();
+  }
+
+  private Uni<Boolean> sendLoaderSms(UserDto user, String msgContent) {
+    if (StringUtils.isBlank(user.getMobile())) {
+      return Uni.createFrom().item(Boolean.FALSE);
+    }
+    var msg = new MsgReqDto();
+    msg.setContent(msgContent);
+    msg.setMobileNumber(user.getMobile());
+    return smsApi.sendSms(msg).replaceWith(Boolean.TRUE);
+  }
+
+  private String buildLoaderAckMsg(RewardsTransStatus rewardsTransStatus, AbsMongoItem callbackResponse,
+                                   ApiStatus status) {
     String msgContentFormat;
     var pin = retrievePinFromCallBack(rewardsTransStatus, callbackResponse);
 
@@ -277,24 +443,11 @@ public class RewardsCallbackSvc extends AbsSvc<GLRewardsCallbackDto, RewardsTran
           rewardsTransStatus.getLoadRequest().getMobile() : rewardsTransStatus.getLoadRequest().getAccountNo(),
         pin, String.valueOf(status), rewardsTransStatus.getLoadSmsId());
     }
-
-    final var msgContent = msgContentFormat; // force to final for lambda usage
-    return userApi.getById(fpiUser).chain(resp -> {
-      var botMsg = new MsgrMsgReqDto();
-      botMsg.setContent(msgContent);
-      var sendLoaderMsg = sendToBotSource(rewardsTransStatus, resp.getResp(), botMsg);
-      if (StringUtils.isNotBlank(resp.getResp().getMobile())) {
-        var msg = new MsgReqDto();
-        msg.setContent(msgContent);
-        msg.setMobileNumber(resp.getResp().getMobile());
-        sendLoaderMsg = sendLoaderMsg.chain(() -> smsApi.sendSms(msg));
-      }
-      return sendLoaderMsg;
-    }).chain(() -> Uni.createFrom().item(rewardsTransStatus));
+    return msgContentFormat;
   }
 
-  private Uni<?> sendToBotSource(RewardsTransStatus rewardsTransStatus, UserDto user, MsgrMsgReqDto msgrMsg) {
-    return switch (rewardsTransStatus.getSource()) {
+  private Uni<Boolean> sendToBotSource(RewardsTransStatus rewardsTransStatus, UserDto user, MsgrMsgReqDto msgrMsg) {
+    Uni<?> send = switch (rewardsTransStatus.getSource()) {
       case FB_MSGR -> {
         msgrMsg.setRecipient(user.getMetaId());
         yield msgrApi.toggleTyping(user.getMetaId(), true)
@@ -310,8 +463,9 @@ public class RewardsCallbackSvc extends AbsSvc<GLRewardsCallbackDto, RewardsTran
         msgrMsg.setRecipient(user.getViberId());
         yield viberReqApi.sendMsg(msgrMsg, user.getId());
       }
-      default -> Uni.createFrom().voidItem();
+      default -> null;
     };
+    return send == null ? Uni.createFrom().item(Boolean.FALSE) : send.replaceWith(Boolean.TRUE);
   }
 
   public RespDto<NullDto> buildAckResponse() {
@@ -18,18 +18,34 @@
 
 package com.abavilla.fpi.load.service.load;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import com.abavilla.fpi.fw.exceptions.FPISvcEx;
 import com.abavilla.fpi.fw.service.AbsSvc;
 import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.load.dto.load.LoadRefDto;
 import com.abavilla.fpi.load.dto.load.LoadReqDto;
 import com.abavilla.fpi.load.dto.load.gl.GLRewardsReqDto;
 import com.abavilla.fpi.load.engine.load.LoadEngine;
+import com.abavilla.fpi.load.engine.load.ProviderHealthTracker;
+import com.abavilla.fpi.load.engine.load.ProviderRoute;
 import com.abavilla.fpi.load.entity.load.PromoSku;
 import com.abavilla.fpi.load.entity.load.RewardsTransStatus;
+import com.abavilla.fpi.load.exceptions.ProviderThrottledEx;
 import com.abavilla.fpi.load.ext.dto.LoadRespDto;
 import com.abavilla.fpi.load.mapper.load.RewardsTransStatusMapper;
+import com.abavilla.fpi.load.repo.load.RewardsTransRepo;
+import com.abavilla.fpi.load.service.LoadMetrics;
+import com.abavilla.fpi.load.service.LoadTracing;
+import com.abavilla.fpi.load.service.MsisdnNormalizer;
 import com.abavilla.fpi.load.util.LoadConst;
 import com.abavilla.fpi.load.util.LoadUtil;
 import com.abavilla.fpi.telco.ext.enums.ApiStatus;
@@ -39,6 +55,9 @@ import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.bson.types.ObjectId;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.resteasy.reactive.RestResponse;
 
 @ApplicationScoped
@@ -53,46 +72,260 @@ public class RewardsSvc extends AbsSvc<GLRewardsReqDto, RewardsTransStatus> {
   @Inject
   LoadEngine loadEngine;
 
+  @Inject
+  ProviderHealthTracker healthTracker;
+
   @Inject
   SecurityIdentity identity;
 
+  @Inject
+  PendingCallbackBuffer callbackBuffer;
+
+  @Inject
+  RewardsTransRepo advRepo;
+
+  @Inject
+  LoadWriteJournal writeJournal;
+
+  @Inject
+  MsisdnNormalizer msisdnNormalizer;
+
+  @Inject
+  LoadMetrics loadMetrics;
+
+  @Inject
+  LoadTracing loadTracing;
+
+  /**
+   * Maximum number of load sms ids resolved in a single lookup
+   */
+  @ConfigProperty(name = "fpi.load.ref-lookup.max-batch", defaultValue = "500")
+  int maxRefBatch;
+
   public Uni<LoadRespDto> reloadNumber(LoadReqDto loadReqDto) {
     Log.info("Charging credits to :" + loadReqDto);
     // create log to db
+    var log = newRewardsLog(loadReqDto, identity.getPrincipal().getName(), loadTracing.currentTraceparent());
+
+    return findSku(loadReqDto.getTelco(), loadReqDto.getSku()).chain(promo -> {
+      var routes = selectProviders(promo);
+      if (!routes.isEmpty()) {
+        log.setLoadProvider(routes.get(0).provider().getProviderName());
+        log.setDateUpdated(DateUtil.now());
+        return saveBeforeCall(log)
+          .chain(savedLog -> reloadAndUpdateDb(savedLog, loadReqDto, promo.get(), routes));
+      } else {
+        return buildRejectedResponse();
+      }
+    });
+  }
+
+  /**
+   * Creates the rewards transaction of a load request and normalizes the mobile number of the request, the
+   * same way for single and {@link RewardsBatchSvc batch} reloads.
+   *
+   * @param loadReqDto  Load request, its normalized mobile number is attached to it
+   * @param fpiUser     User submitting the request
+   * @param traceparent Trace of the request, for linking the callback back to it
+   * @return {@link RewardsTransStatus} with its id assigned, the provider is set once selected
+   */
+  RewardsTransStatus newRewardsLog(LoadReqDto loadReqDto, String fpiUser, String traceparent) {
     var log = new RewardsTransStatus();
+    log.setId(new ObjectId()); // assigned here so the provider call does not depend on the insert
     rewardsMapper.mapLoadReqToEntity(loadReqDto, log);
-    log.setFpiUser(identity.getPrincipal().getName());
+    log.setFpiUser(fpiUser);
     log.setDateCreated(DateUtil.now());
+    log.setTraceparent(traceparent); // for linking the callback back to this query
+    if (StringUtils.isNotBlank(loadReqDto.getMobile())) {
+      msisdnNormalizer.normalize(loadReqDto); // parsed once here for the providers and callbacks
+    }
+    return log;
+  }
 
-    Uni<Optional<PromoSku>> skuLookup;
-    if (StringUtils.isBlank(loadReqDto.getTelco())) {
-      // if no telco is provided in request, use the promo found first using keywords
-      skuLookup = promoSkuSvc.findSkuByDefaultOperator(loadReqDto);
-    } else {
-      skuLookup = promoSkuSvc.findSku(loadReqDto);
+  /**
+   * Looks up the promo of a load request and records the lookup time.
+   *
+   * @param telco Telco name, if blank the promo found first using the sku is used
+   * @param sku   Keyword or denomination
+   * @return {@link PromoSku} promo found
+   */
+  Uni<Optional<PromoSku>> findSku(String telco, String sku) {
+    var skuStart = System.nanoTime();
+    var skuLookup = StringUtils.isBlank(telco) ?
+      promoSkuSvc.findSkuByDefaultOperator(sku) : promoSkuSvc.findSku(telco, sku);
+    return skuLookup.onItemOrFailure().invoke((promo, ex) -> loadMetrics.recordSkuLookup(
+      System.nanoTime() - skuStart, ex != null ? null : promo.isPresent()));
+  }
+
+  /**
+   * Selects the provider candidates for a promo and records the selection time.
+   *
+   * @param promo Promo found, if any
+   * @return Candidates in order of preference, empty if none can take the load
+   */
+  List<ProviderRoute> selectProviders(Optional<PromoSku> promo) {
+    var selectStart = System.nanoTime();
+    List<ProviderRoute> routes = promo
+      .map(promoSku -> loadEngine.getCandidates(promoSku))
+      .orElse(List.of());
+    loadMetrics.recordProviderSelection(System.nanoTime() - selectStart);
+    return routes;
+  }
+
+  Uni<? extends LoadRespDto> reloadAndUpdateDb(RewardsTransStatus savedLog, LoadReqDto loadReqDto,
+                                               PromoSku promo, List<ProviderRoute> routes) {
+    loadReqDto.setTransactionId(savedLog.getId().toString()); // map mongo id to load request
+    return reloadWithFailover(savedLog, loadReqDto, loadReqDto.getMobile(), promo, routes, 0)
+      .onFailure(ProviderThrottledEx.class).call(ex -> updateRequestInDb(buildThrottledResponse(ex), savedLog))
+      .onFailure().call(() -> writeJournal.isPending(savedLog.getId()) ?
+        saveJournaled(savedLog) : Uni.createFrom().voidItem())
+      .chain(resp -> updateRequestInDb(resp, savedLog));
+  }
+
+  /**
+   * Writes the transaction before the provider call, a minimal insert or in write-behind mode only a journal
+   * entry.
+   *
+   * @param logEntity Transaction with its id assigned
+   * @return the given {@link RewardsTransStatus} once durable
+   */
+  private Uni<RewardsTransStatus> saveBeforeCall(RewardsTransStatus logEntity) {
+    if (writeJournal.isEnabled()) {
+      return timeWrite(LoadMetrics.WRITE_JOURNAL, writeJournal.begin(logEntity).replaceWith(logEntity));
     }
+    return timeWrite(LoadMetrics.WRITE_INSERT, advRepo.insert(logEntity));
+  }
 
-    return skuLookup.chain(promo -> {
-      ILoadProviderSvc loadSvc = promo
-        .map(promoSku -> loadEngine.getProvider(promoSku))
-        .orElse(null);
+  /**
+   * Inserts a transaction held in the write-behind journal and clears its journal entry.
+   */
+  private Uni<RewardsTransStatus> saveJournaled(RewardsTransStatus logEntity) {
+    return timeWrite(LoadMetrics.WRITE_INSERT, advRepo.insert(logEntity))
+      .call(() -> writeJournal.complete(logEntity.getId()));
+  }
 
-      if (loadSvc != null) {
-        log.setLoadProvider(loadSvc.getProviderName());
-        log.setDateUpdated(DateUtil.now());
-        return repo.persist(log)
-          .chain(savedLog -> reloadAndUpdateDb(savedLog, loadReqDto, promo.get(), loadSvc));
-      } else {
-        return buildRejectedResponse();
+  private <T> Uni<T> timeWrite(String op, Uni<T> write) {
+    var start = System.nanoTime();
+    return write.onItemOrFailure().invoke((saved, ex) ->
+      loadMetrics.recordRewardsLogWrite(op, ex == null, System.nanoTime() - start));
+  }
+
+  /**
+   * Sends the load to the candidate provider at the given index, moving on to the next candidate if the
+   * provider definitively rejected or was too busy to take the load. Only rejections the provider flagged as
+   * {@link LoadRespDto#isDefinitiveRejection() definitive} and throttled calls fail over, a call with no
+   * response or a server error may still have been processed by the provider so it is never retried elsewhere
+   * to avoid loading twice. When routing by health the provider is claimed right before the call, a provider
+   * whose half open probe was taken by another request in the meantime is skipped unless it is the last
+   * candidate, which is called anyway as every other candidate was tried.
+   */
+  private Uni<LoadRespDto> reloadWithFailover(RewardsTransStatus savedLog, LoadReqDto loadReqDto,
+                                              String mobile, PromoSku promo, List<ProviderRoute> routes,
+                                              int idx) {
+    var loadSvcProvider = routes.get(idx).provider();
+    if (loadEngine.isFailoverEnabled() && !healthTracker.tryAcquireProbe(loadSvcProvider.getProviderName()) &&
+      idx + 1 < routes.size()) {
+      return reloadWithFailover(savedLog, loadReqDto, mobile, promo, routes, idx + 1);
+    }
+    savedLog.setLoadProvider(loadSvcProvider.getProviderName());
+    loadReqDto.setMobile(mobile); // providers reformat the number in place
+    return loadSvcProvider.reload(loadReqDto, promo)
+      .chain(resp -> {
+        if (resp.getStatus() == ApiStatus.REJ && resp.isDefinitiveRejection() &&
+          loadEngine.isFailoverEnabled() && idx + 1 < routes.size()) {
+          Log.warn(loadSvcProvider.getProviderName() + " rejected " + loadReqDto.getTransactionId() +
+            ", failing over to " + routes.get(idx + 1).provider().getProviderName());
+          return reloadWithFailover(savedLog, loadReqDto, mobile, promo, routes, idx + 1);
+        }
+        return Uni.createFrom().item(resp);
+      })
+      .onFailure(ex -> ex instanceof ProviderThrottledEx throttled &&
+        StringUtils.equals(throttled.getProviderName(), loadSvcProvider.getProviderName()) &&
+        loadEngine.isFailoverEnabled() && idx + 1 < routes.size())
+      .recoverWithUni(() -> {
+        Log.warn(loadSvcProvider.getProviderName() + " is saturated for " + loadReqDto.getTransactionId() +
+          ", failing over to " + routes.get(idx + 1).provider().getProviderName());
+        return reloadWithFailover(savedLog, loadReqDto, mobile, promo, routes, idx + 1);
+      });
+  }
+
+  /**
+   * Resolves a load sms id quoted by a customer back to its rewards transaction.
+   *
+   * @param loadSmsId Load sms id
+   * @return {@link LoadRefDto} of the transaction, fails with {@link FPISvcEx} if invalid or not found
+   */
+  public Uni<LoadRefDto> findByLoadSmsId(String loadSmsId) {
+    return findByLoadSmsIds(List.of(StringUtils.defaultString(loadSmsId))).map(refs -> {
+      var ref = refs.get(0);
+      if (ref.getError() != null) {
+        throw new FPISvcEx(ref.getError(), ref.getTransactionId() == null ?
+          RestResponse.StatusCode.BAD_REQUEST : RestResponse.StatusCode.NOT_FOUND);
       }
+      return ref;
     });
   }
 
-  private Uni<? extends LoadRespDto> reloadAndUpdateDb(RewardsTransStatus savedLog, LoadReqDto loadReqDto,
-                                                       PromoSku promo, ILoadProviderSvc loadSvcProvider) {
-    loadReqDto.setTransactionId(savedLog.getId().toString()); // map mongo id to load request
-    return loadSvcProvider.reload(loadReqDto, promo)
-      .chain(resp -> updateRequestInDb(resp, savedLog));
+  /**
+   * Resolves load sms ids back to their rewards transactions using a single query. Each id is decoded to
+   * the provider initial and provider transaction id, ids that are invalid or not found are returned with
+   * an error instead of failing the whole lookup.
+   *
+   * @param loadSmsIds Load sms ids
+   * @return {@link LoadRefDto} for each id, in the same order
+   */
+  public Uni<List<LoadRefDto>> findByLoadSmsIds(List<String> loadSmsIds) {
+    if (loadSmsIds.size() > maxRefBatch) {
+      return Uni.createFrom().failure(new FPISvcEx("Too many load sms ids, maximum is " + maxRefBatch,
+        RestResponse.StatusCode.BAD_REQUEST));
+    }
+
+    var refs = new ArrayList<LoadRefDto>(loadSmsIds.size());
+    var providers = new HashSet<String>();
+    var transIds = new HashSet<String>();
+    for (var loadSmsId : loadSmsIds) {
+      var ref = new LoadRefDto();
+      ref.setLoadSmsId(loadSmsId);
+      try {
+        ref.setTransactionId(String.valueOf(LoadUtil.decodeId(StringUtils.trim(loadSmsId))));
+        transIds.add(ref.getTransactionId());
+        providers.addAll(loadEngine.getProviderNamesByInitial(StringUtils.trim(loadSmsId).charAt(0)));
+      } catch (IllegalArgumentException e) {
+        ref.setError("Invalid load sms id: " + loadSmsId);
+      }
+      refs.add(ref);
+    }
+    if (transIds.isEmpty() || providers.isEmpty()) {
+      return Uni.createFrom().item(resolveRefs(refs, Map.of()));
+    }
+
+    return advRepo.findByRespTransIdsAndProviders(transIds, providers)
+      .map(found -> resolveRefs(refs, found.stream()
+        .collect(Collectors.toMap(
+          trans -> refKey(trans.getLoadProvider().charAt(0), trans.getTransactionId()),
+          Function.identity(),
+          BinaryOperator.maxBy(Comparator.comparing(RewardsTransStatus::getDateCreated,
+            Comparator.nullsFirst(Comparator.naturalOrder())))))));
+  }
+
+  private List<LoadRefDto> resolveRefs(List<LoadRefDto> refs, Map<String, RewardsTransStatus> found) {
+    return refs.stream().map(ref -> {
+      if (ref.getError() != null) {
+        return ref;
+      }
+      var trans = found.get(refKey(StringUtils.trim(ref.getLoadSmsId()).charAt(0), ref.getTransactionId()));
+      if (trans == null) {
+        ref.setError("Transaction not found for load sms id: " + ref.getLoadSmsId());
+        return ref;
+      }
+      var resolved = rewardsMapper.mapEntityToLoadRef(trans);
+      resolved.setLoadSmsId(ref.getLoadSmsId());
+      return resolved;
+    }).toList();
+  }
+
+  private static String refKey(char providerInitial, String transactionId) {
+    return Character.toUpperCase(providerInitial) + ":" + transactionId;
   }
 
   private Uni<LoadRespDto> buildRejectedResponse() {
@@ -104,6 +337,17 @@ public class RewardsSvc extends AbsSvc<GLRewardsReqDto, RewardsTransStatus> {
     return Uni.createFrom().failure(ex);
   }
 
+  /**
+   * Builds the response recorded on a transaction that no provider could take, the caller gets the
+   * {@link ProviderThrottledEx} itself so it can tell a busy provider apart from a rejected load.
+   */
+  private LoadRespDto buildThrottledResponse(Throwable ex) {
+    var resp = new LoadRespDto();
+    resp.setStatus(ApiStatus.REJ);
+    resp.setError(ex.getMessage());
+    return resp;
+  }
+
   private Uni<? extends LoadRespDto> updateRequestInDb(LoadRespDto loadRespDto, RewardsTransStatus logEntity) {
     rewardsMapper.mapLoadRespDtoToEntity(loadRespDto, logEntity);
     if (loadRespDto.getStatus() == ApiStatus.WAIT ||
@@ -114,7 +358,10 @@ public class RewardsSvc extends AbsSvc<GLRewardsReqDto, RewardsTransStatus> {
     }
 
     logEntity.setDateUpdated(DateUtil.now());
-    return repo.update(logEntity)
+    var saved = writeJournal.isPending(logEntity.getId()) ?
+      saveJournaled(logEntity) : timeWrite(LoadMetrics.WRITE_UPDATE, advRepo.updateLoadResponse(logEntity));
+    return saved
+      .call(this::releaseEarlyCallbacks)
       .map(res -> {
         Log.info("saved logEntity: " + res);
         loadRespDto.setSmsTransactionId(res.getLoadSmsId());
@@ -122,4 +369,20 @@ public class RewardsSvc extends AbsSvc<GLRewardsReqDto, RewardsTransStatus> {
       });
   }
 
+  /**
+   * Releases callbacks that the provider sent before the transaction id was stored.
+   *
+   * @param logEntity Saved rewards transaction
+   * @return {@link Uni} completing once released, failures are only logged as the callbacks still expire
+   */
+  private Uni<Void> releaseEarlyCallbacks(RewardsTransStatus logEntity) {
+    if (!NumberUtils.isDigits(logEntity.getTransactionId())) {
+      return Uni.createFrom().voidItem();
+    }
+    return callbackBuffer.release(logEntity.getLoadProvider(), NumberUtils.toLong(logEntity.getTransactionId()))
+      .onFailure().invoke(ex -> Log.error("Unable to release early callbacks for " +
+        logEntity.getTransactionId(), ex))
+      .onFailure().recoverWithNull();
+  }
+
 }
@@ -0,0 +1,192 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service.load;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.abavilla.fpi.fw.dto.impl.RespDto;
+import com.abavilla.fpi.load.dto.load.UserCacheStatsDto;
+import com.abavilla.fpi.load.service.LoadMetrics;
+import com.abavilla.fpi.login.ext.dto.UserDto;
+import com.abavilla.fpi.login.ext.rest.UserApi;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+/**
+ * Bounded, time limited cache of {@link UserDto} lookups used when acknowledging loads to the loader. Concurrent
+ * lookups of the same user share a single in-flight call to the user api, failed lookups are not cached. Hits,
+ * misses, evictions and size are exported through {@link LoadMetrics}.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class UserCache {
+
+  @RestClient
+  UserApi userApi;
+
+  /**
+   * Time a user is served from cache before it is looked up again
+   */
+  @ConfigProperty(name = "fpi.load.user-cache.ttl", defaultValue = "10M")
+  Duration ttl;
+
+  /**
+   * Maximum number of users cached
+   */
+  @ConfigProperty(name = "fpi.load.user-cache.max-size", defaultValue = "500")
+  int maxSize;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder evictions = new LongAdder();
+
+  @Inject
+  LoadMetrics loadMetrics;
+
+  @PostConstruct
+  void init() {
+    loadMetrics.bindUserCache(this, cache -> cache.hits.sum(), cache -> cache.misses.sum(),
+      cache -> cache.evictions.sum(), cache -> cache.entries.size());
+  }
+
+  /**
+   * Retrieves the user, from cache if present and not expired.
+   *
+   * @param userId Id of the user
+   * @return {@link UserDto} found
+   */
+  public Uni<UserDto> get(String userId) {
+    var now = System.nanoTime();
+    var created = new boolean[1];
+    var entry = entries.compute(userId, (id, current) -> {
+      if (current != null && current.expiresAt - now > 0) {
+        return current;
+      }
+      created[0] = true;
+      return newEntry(id, now + ttl.toNanos());
+    });
+    if (created[0]) {
+      misses.increment();
+      trim(now);
+    } else {
+      hits.increment();
+    }
+    return entry.user;
+  }
+
+  /**
+   * Removes a user from the cache.
+   *
+   * @param userId Id of the user
+   * @return {@code true} if the user was cached
+   */
+  public boolean evict(String userId) {
+    var removed = entries.remove(userId) != null;
+    if (removed) {
+      evictions.increment();
+    }
+    return removed;
+  }
+
+  /**
+   * Removes all users from the cache.
+   *
+   * @return number of users removed
+   */
+  public int evictAll() {
+    var removed = entries.size();
+    entries.clear();
+    evictions.add(removed);
+    return removed;
+  }
+
+  /**
+   * Retrieves the cache statistics.
+   *
+   * @return {@link UserCacheStatsDto}
+   */
+  public UserCacheStatsDto stats() {
+    var stats = new UserCacheStatsDto();
+    stats.setSize(entries.size());
+    stats.setMaxSize(maxSize);
+    stats.setHits(hits.sum());
+    stats.setMisses(misses.sum());
+    stats.setEvictions(evictions.sum());
+    return stats;
+  }
+
+  private Entry newEntry(String userId, long expiresAt) {
+    var entry = new Entry(expiresAt);
+    entry.user = userApi.getById(userId)
+      .map(RespDto::getResp)
+      .onFailure().invoke(() -> entries.remove(userId, entry))
+      .memoize().indefinitely();
+    return entry;
+  }
+
+  /**
+   * Drops expired users, then the users closest to expiry, until the cache is within its maximum size.
+   */
+  private void trim(long now) {
+    if (entries.size() <= maxSize) {
+      return;
+    }
+    entries.entrySet().removeIf(e -> {
+      var expired = e.getValue().expiresAt - now <= 0;
+      if (expired) {
+        evictions.increment();
+      }
+      return expired;
+    });
+    var excess = entries.size() - maxSize;
+    if (excess > 0) {
+      entries.entrySet().stream()
+        .sorted(Comparator.comparingLong(e -> e.getValue().expiresAt))
+        .limit(excess)
+        .toList()
+        .forEach(e -> {
+          if (entries.remove(e.getKey(), e.getValue())) {
+            evictions.increment();
+          }
+        });
+    }
+  }
+
+  private static final class Entry {
+    private final long expiresAt;
+    private Uni<UserDto> user;
+
+    private Entry(long expiresAt) {
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,419 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service.load.dtone;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import com.abavilla.fpi.fw.exceptions.FPISvcEx;
+import com.abavilla.fpi.load.dto.load.dtone.CatalogOfferChangeDto;
+import com.abavilla.fpi.load.dto.load.dtone.CatalogSyncDto;
+import com.abavilla.fpi.load.dto.load.dtone.DTOneProductDto;
+import com.abavilla.fpi.load.entity.enums.SkuType;
+import com.abavilla.fpi.load.entity.load.PromoSku;
+import com.abavilla.fpi.load.entity.load.ProviderOffer;
+import com.abavilla.fpi.load.repo.load.PromoSkuRepo;
+import com.abavilla.fpi.load.repo.load.dtone.DTOneProductApiRepo;
+import com.abavilla.fpi.load.service.LoadMetrics;
+import com.abavilla.fpi.load.service.LoadTracing;
+import com.abavilla.fpi.load.service.load.PromoSkuCatalog;
+import com.abavilla.fpi.load.util.LoadConst;
+import com.mongodb.client.model.WriteModel;
+import io.opentelemetry.api.trace.SpanKind;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.resteasy.reactive.RestResponse;
+
+/**
+ * Keeps the DT One offers of the {@code promo_sku} collection in line with the live DT One product catalog.
+ * The products are fetched a page at a time and indexed by product id, then every DT One offer is checked
+ * against the index:
+ * <ul>
+ *   <li>offers of a live product get the wholesale discount of its current prices,</li>
+ *   <li>offers of a withdrawn product are moved to the live product of the same operator and amount, if
+ *   exactly one exists (credits only, bundles cannot be told apart by amount),</li>
+ *   <li>remaining offers of withdrawn products are removed so they are no longer routed to.</li>
+ * </ul>
+ * All changes are written in a single bulk write, then a catalog reload is requested so the routes pick
+ * them up.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+@ApplicationScoped
+public class DTOneCatalogSyncSvc {
+
+  /**
+   * Wholesale discount of the offer changed
+   */
+  public static final String ACTION_UPDATE = "update";
+
+  /**
+   * Product of the offer was replaced by another live product
+   */
+  public static final String ACTION_REMAP = "remap";
+
+  /**
+   * Product of the offer is no longer offered
+   */
+  public static final String ACTION_REMOVE = "remove";
+
+  /**
+   * DT One product type of fixed value airtime
+   */
+  private static final String FIXED_VALUE_RECHARGE = "FIXED_VALUE_RECHARGE";
+
+  /**
+   * Scale of the computed wholesale discounts
+   */
+  private static final int DISCOUNT_SCALE = 4;
+
+  @RestClient
+  DTOneProductApiRepo productApi;
+
+  @Inject
+  PromoSkuRepo repo;
+
+  @Inject
+  PromoSkuCatalog catalog;
+
+  @Inject
+  LoadMetrics loadMetrics;
+
+  @Inject
+  LoadTracing loadTracing;
+
+  /**
+   * Flag to run the sync periodically, the report and manual runs are always available
+   */
+  @ConfigProperty(name = "fpi.load.dtone-sync.enabled", defaultValue = "false")
+  boolean enabled;
+
+  /**
+   * Interval between periodic syncs
+   */
+  @ConfigProperty(name = "fpi.load.dtone-sync.interval", defaultValue = "6H")
+  Duration interval;
+
+  /**
+   * Number of products requested per page
+   */
+  @ConfigProperty(name = "fpi.load.dtone-sync.page-size", defaultValue = "100")
+  int pageSize;
+
+  /**
+   * Upper bound of pages fetched, a listing cut short would remove the offers of the unfetched products
+   * so the sync fails instead
+   */
+  @ConfigProperty(name = "fpi.load.dtone-sync.max-pages", defaultValue = "50")
+  int maxPages;
+
+  /**
+   * ISO 3166-1 alpha-3 code of the country whose products are fetched
+   */
+  @ConfigProperty(name = "fpi.load.dtone-sync.country", defaultValue = "PHL")
+  String country;
+
+  private final AtomicBoolean running = new AtomicBoolean();
+
+  private Cancellable poller;
+
+  void onStart(@Observes StartupEvent ev) {
+    if (enabled) {
+      poller = Multi.createFrom().ticks().every(interval)
+        .onOverflow().drop()
+        .onItem().transformToUniAndConcatenate(tick -> sync(false)
+          .onFailure().invoke(ex -> Log.error("Unable to sync DTOne product catalog", ex))
+          .onFailure().recoverWithNull())
+        .subscribe().with(ignored -> {});
+    }
+  }
+
+  void onStop(@Observes ShutdownEvent ev) {
+    if (poller != null) {
+      poller.cancel();
+    }
+  }
+
+  /**
+   * Compares the DT One offers with the live products and, unless on a dry run, writes the changes.
+   *
+   * @param dryRun {@code true} to only report the changes
+   * @return {@link CatalogSyncDto} with the changes found
+   */
+  public Uni<CatalogSyncDto> sync(boolean dryRun) {
+    if (!dryRun && !running.compareAndSet(false, true)) {
+      return Uni.createFrom().failure(new FPISvcEx("DTOne catalog sync is already running",
+        RestResponse.StatusCode.CONFLICT));
+    }
+    var start = System.nanoTime();
+    return Uni.combine().all().unis(fetchProducts(), repo.listCatalog()).asTuple()
+      .chain(tuple -> {
+        var live = tuple.getItem1();
+        var outOfRange = findDiscountsOutOfRange(tuple.getItem2());
+        if (!outOfRange.isEmpty()) {
+          Log.warn("Wholesale discounts of " + outOfRange.size() + " offers are not fractions and are ranked " +
+            "against the synced ones, fix them in the catalog: " + outOfRange.stream()
+            .map(offer -> offer.getProviderName() + " " + offer.getProductCode() + "=" +
+              offer.getWholesaleDiscount())
+            .collect(Collectors.joining(", ")));
+        }
+        var changes = diff(live, tuple.getItem2());
+        var report = new CatalogSyncDto();
+        report.setDryRun(dryRun);
+        report.setPages(live.pages);
+        report.setProducts(live.products.size());
+        report.setChanges(changes.stream().map(OfferChange::toDto).toList());
+        if (dryRun || changes.isEmpty()) {
+          return Uni.createFrom().item(report);
+        }
+        return apply(changes).map(modified -> {
+          report.setModified(modified);
+          return report;
+        });
+      })
+      .invoke(report -> Log.info("DTOne catalog sync" + (dryRun ? " (dry run)" : "") + " checked " +
+        report.getProducts() + " products, " + report.getChanges().size() + " offer changes, " +
+        report.getModified() + " promos modified"))
+      .onItemOrFailure().invoke((report, ex) ->
+        loadMetrics.recordCatalogSync(LoadConst.PROV_DTONE, dryRun, ex == null, System.nanoTime() - start))
+      .onTermination().invoke(() -> {
+        if (!dryRun) {
+          running.set(false);
+        }
+      });
+  }
+
+  private Uni<Long> apply(List<OfferChange> changes) {
+    var updates = new ArrayList<WriteModel<PromoSku>>(changes.size());
+    for (var change : changes) {
+      updates.add(ACTION_REMOVE.equals(change.action()) ?
+        repo.removeOffer(change.sku().getId(), LoadConst.PROV_DTONE, change.offer().getProductCode()) :
+        repo.updateOffer(change.sku().getId(), LoadConst.PROV_DTONE, change.offer().getProductCode(),
+          change.productCode(), change.wholesaleDiscount()));
+    }
+    return repo.bulkWrite(updates)
+      .invoke(() -> changes.stream()
+        .collect(Collectors.groupingBy(OfferChange::action, Collectors.counting()))
+        .forEach((action, count) ->
+          loadMetrics.countCatalogChanges(LoadConst.PROV_DTONE, action, count.intValue())))
+      .map(result -> {
+        if (catalog.isLoaded()) {
+          catalog.requestRefresh();
+        }
+        return (long) result.getModifiedCount();
+      });
+  }
+
+  /**
+   * Fetches the products of the configured country, following the pages until the last one.
+   */
+  private Uni<LiveProducts> fetchProducts() {
+    return fetchPage(1, new LiveProducts())
+      .onItem().transformToUni(live -> live.products.isEmpty() ?
+        Uni.createFrom().failure(new FPISvcEx("DTOne returned no products for " + country,
+          RestResponse.StatusCode.BAD_GATEWAY)) :
+        Uni.createFrom().item(live));
+  }
+
+  private Uni<LiveProducts> fetchPage(int page, LiveProducts live) {
+    return loadTracing.traced("dtone.getProducts", SpanKind.CLIENT, () ->
+        productApi.getProducts(country, page, pageSize))
+      .chain(resp -> {
+        live.add(resp.getEntity());
+        var next = NumberUtils.toInt(resp.getHeaderString(DTOneProductApiRepo.NEXT_PAGE));
+        if (next <= page) {
+          return Uni.createFrom().item(live);
+        }
+        if (live.pages >= maxPages) {
+          return Uni.createFrom().failure(new FPISvcEx("DTOne product listing exceeds " + maxPages + " pages",
+            RestResponse.StatusCode.BAD_GATEWAY));
+        }
+        return fetchPage(next, live);
+      });
+  }
+
+  /**
+   * Finds the DT One offers that differ from the live products. Offers whose discount would not be a fraction
+   * are left unchanged and logged.
+   *
+   * @param live Live products
+   * @param skus All promos
+   * @return Changes to apply, in promo order
+   */
+  List<OfferChange> diff(LiveProducts live, List<PromoSku> skus) {
+    var changes = new ArrayList<OfferChange>();
+    for (var sku : skus) {
+      if (sku.getOffers() == null) {
+        continue;
+      }
+      for (var offer : sku.getOffers()) {
+        if (!StringUtils.equals(LoadConst.PROV_DTONE, offer.getProviderName())) {
+          continue;
+        }
+        var action = ACTION_UPDATE;
+        var product = live.products.get(offer.getProductCode());
+        if (product == null) {
+          action = ACTION_REMAP;
+          product = live.replacement(sku);
+        }
+        if (product == null) {
+          changes.add(new OfferChange(sku, offer, ACTION_REMOVE, null, null));
+          continue;
+        }
+        var productCode = String.valueOf(product.getId());
+        var discount = Objects.requireNonNullElse(wholesaleDiscount(product), offer.getWholesaleDiscount());
+        if (!isFraction(discount)) {
+          Log.warn("Skipping DTOne offer " + offer.getProductCode() + ", wholesale discount " + discount +
+            " of product " + productCode + " is not a fraction");
+          continue;
+        }
+        if (!productCode.equals(offer.getProductCode()) || !sameAmount(discount, offer.getWholesaleDiscount())) {
+          changes.add(new OfferChange(sku, offer, action, productCode, discount));
+        }
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * Computes the discount of the wholesale price from the retail price, as a fraction like
+   * {@link ProviderOffer#getWholesaleDiscount()}.
+   *
+   * @param product Live product
+   * @return Discount, {@code null} if the product has no usable prices
+   */
+  static BigDecimal wholesaleDiscount(DTOneProductDto product) {
+    var prices = product.getPrices();
+    if (prices == null || prices.getRetail() == null || prices.getWholesale() == null) {
+      return null;
+    }
+    var retail = prices.getRetail().getAmount();
+    var wholesale = prices.getWholesale().getAmount();
+    if (retail == null || wholesale == null || retail <= 0) {
+      return null;
+    }
+    return BigDecimal.valueOf(retail).subtract(BigDecimal.valueOf(wholesale))
+      .divide(BigDecimal.valueOf(retail), DISCOUNT_SCALE, RoundingMode.HALF_UP);
+  }
+
+  /**
+   * Finds the offers of any provider whose discount is not a fraction. Synced discounts are fractions and are
+   * ranked against the curated ones, discounts of another unit skew the routing so they are reported on each
+   * sync. Only the offers the sync writes are held back, see {@link #diff}.
+   *
+   * @param skus All promos
+   * @return Offers out of range, in promo order
+   */
+  static List<ProviderOffer> findDiscountsOutOfRange(List<PromoSku> skus) {
+    return skus.stream()
+      .filter(sku -> sku.getOffers() != null)
+      .flatMap(sku -> sku.getOffers().stream())
+      .filter(offer -> !isFraction(offer.getWholesaleDiscount()))
+      .toList();
+  }
+
+  /**
+   * @return {@code true} if the discount is missing or within 0 and 1
+   */
+  private static boolean isFraction(BigDecimal discount) {
+    return discount == null || (discount.signum() >= 0 && discount.compareTo(BigDecimal.ONE) <= 0);
+  }
+
+  private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+    return a == null || b == null ? a == b : a.compareTo(b) == 0;
+  }
+
+  /**
+   * Products fetched so far, indexed by product id.
+   */
+  static class LiveProducts {
+
+    final Map<String, DTOneProductDto> products = new HashMap<>();
+
+    int pages;
+
+    void add(List<DTOneProductDto> page) {
+      pages++;
+      if (page != null) {
+        page.forEach(product -> products.put(String.valueOf(product.getId()), product));
+      }
+    }
+
+    /**
+     * Finds the only fixed airtime product of the promo's operator and denomination.
+     *
+     * @param sku Promo whose product was withdrawn
+     * @return Replacement product, {@code null} if none or more than one match
+     */
+    DTOneProductDto replacement(PromoSku sku) {
+      if (sku.getType() != SkuType.CREDITS || sku.getTelco() == null || sku.getDenomination() == null ||
+        sku.getDenomination().getMin() == null || !sameAmount(sku.getDenomination().getMin(),
+        sku.getDenomination().getMax())) {
+        return null;
+      }
+      var amount = sku.getDenomination().getMin();
+      var candidates = products.values().stream()
+        .filter(product -> FIXED_VALUE_RECHARGE.equals(product.getType()))
+        .filter(product -> product.getOperator() != null &&
+          StringUtils.containsIgnoreCase(product.getOperator().getName(), sku.getTelco().getValue()))
+        .filter(product -> product.getDestination() != null && product.getDestination().getAmount() != null &&
+          BigDecimal.valueOf(product.getDestination().getAmount()).compareTo(amount) == 0)
+        .limit(2)
+        .toList();
+      return candidates.size() == 1 ? candidates.get(0) : null;
+    }
+  }
+
+  /**
+   * Change to a DT One offer of a promo.
+   *
+   * @param sku               Promo of the offer
+   * @param offer             Offer as stored
+   * @param action            One of {@link #ACTION_UPDATE}, {@link #ACTION_REMAP} or {@link #ACTION_REMOVE}
+   * @param productCode       Live product code, {@code null} on removal
+   * @param wholesaleDiscount Live wholesale discount, {@code null} on removal
+   */
+  record OfferChange(PromoSku sku, ProviderOffer offer, String action, String productCode,
+                     BigDecimal wholesaleDiscount) {
+
+    CatalogOfferChangeDto toDto() {
+      return new CatalogOfferChangeDto(sku.getId() == null ? null : sku.getId().toString(), sku.getName(),
+        action, offer.getProductCode(), productCode, offer.getWholesaleDiscount(), wholesaleDiscount);
+    }
+  }
+}
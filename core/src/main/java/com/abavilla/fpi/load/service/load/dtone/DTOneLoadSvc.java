@@ -18,6 +18,8 @@
 
 package com.abavilla.fpi.load.service.load.dtone;
 
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.abavilla.fpi.fw.util.FWConst;
@@ -36,12 +38,11 @@ import com.dtone.dvs.dto.PartyIdentifier;
 import com.dtone.dvs.dto.Source;
 import com.dtone.dvs.dto.TransactionRequest;
 import com.dtone.dvs.dto.UnitTypes;
-import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import io.opentelemetry.api.trace.SpanKind;
 import io.quarkus.logging.Log;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import lombok.SneakyThrows;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
@@ -56,6 +57,14 @@ public class DTOneLoadSvc extends AbsLoadProviderSvc {
   @ConfigProperty(name = "com.dtone.callback-url")
   String callbackUrl;
 
+  /**
+   * DVS error codes of transactions refused before being processed, a rejection is only failed over to
+   * another provider if all its errors are listed
+   */
+  @ConfigProperty(name = "fpi.load.failover.dtone.reject-codes",
+    defaultValue = "1000401,1003001,1005003,1008004")
+  Set<Long> rejectCodes;
+
   @Override
   public void init() {
     priority = 1;
@@ -65,8 +74,9 @@ public class DTOneLoadSvc extends AbsLoadProviderSvc {
   @Override
   public Uni<LoadRespDto> callSvc(LoadReqDto req, PromoSku promo) {
     var dvsReq = buildRngRequest(req, promo);
-    var dvsRespJob = Uni.createFrom()
-        .completionStage(() -> dvsClient.createTransaction(dvsReq))
+    // the dvs client is not instrumented, trace the call here
+    var dvsRespJob = loadTracing.traced("dtone.createTransaction", SpanKind.CLIENT, () -> Uni.createFrom()
+            .completionStage(() -> dvsClient.createTransaction(dvsReq)))
         .onFailure().recoverWithItem(throwable -> {
           Log.error("error", throwable);
           return null;
@@ -84,6 +94,7 @@ public class DTOneLoadSvc extends AbsLoadProviderSvc {
           loadRespMapper.mapDTRespToDto(dvsResp.getResult(), loadResp);
         } else {
           loadResp.setStatus(ApiStatus.REJ);
+          loadResp.setDefinitiveRejection(isDefinitiveRejection(dvsResp.getErrors()));
           loadResp.setError(dvsResp.getErrors()
               .stream().map(ApiError::getMessage)
               .collect(Collectors.joining(FWConst.COMMA_SEP)));
@@ -94,6 +105,11 @@ public class DTOneLoadSvc extends AbsLoadProviderSvc {
     });
   }
 
+  private boolean isDefinitiveRejection(List<ApiError> errors) {
+    return errors != null && !errors.isEmpty() && errors.stream()
+      .allMatch(error -> error.getCode() != null && rejectCodes.contains(error.getCode()));
+  }
+
   private TransactionRequest buildRngRequest(LoadReqDto loadRequest,
                                              PromoSku promo) {
     var dtoOneReq = new TransactionRequest();
@@ -122,10 +138,8 @@ public class DTOneLoadSvc extends AbsLoadProviderSvc {
     return dtoOneReq;
   }
 
-  @SneakyThrows
   @Override
   protected void parsePhoneNumber(LoadReqDto loadReqDto) {
-    var number = phoneNumberUtil.parse(loadReqDto.getMobile(), LoadConst.PH_REGION_CODE);
-    loadReqDto.setMobile(phoneNumberUtil.format(number, PhoneNumberUtil.PhoneNumberFormat.E164));
+    loadReqDto.setMobile(msisdnNormalizer.normalize(loadReqDto).e164());
   }
 }
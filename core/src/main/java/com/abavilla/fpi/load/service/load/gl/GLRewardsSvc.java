@@ -29,14 +29,12 @@ import com.abavilla.fpi.load.repo.load.gl.GLLoadApiRepo;
 import com.abavilla.fpi.load.service.load.AbsLoadProviderSvc;
 import com.abavilla.fpi.load.util.LoadConst;
 import com.abavilla.fpi.telco.ext.enums.ApiStatus;
-import com.google.i18n.phonenumbers.PhoneNumberUtil;
 import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import lombok.SneakyThrows;
-import org.apache.commons.lang3.StringUtils;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.jboss.resteasy.reactive.RestResponse;
 
 @ApplicationScoped
 public class GLRewardsSvc extends AbsLoadProviderSvc {
@@ -91,6 +89,7 @@ public class GLRewardsSvc extends AbsLoadProviderSvc {
             loadResp.setStatus(ApiStatus.WAIT);
           } else {
             loadResp.setStatus(ApiStatus.REJ);
+            loadResp.setDefinitiveRejection(isClientError(resp.getLastEx()));
           }
           rewardsMapper.mapGLRespToDto(resp, loadResp);
           loadResp.setApiResponse(resp);
@@ -98,13 +97,20 @@ public class GLRewardsSvc extends AbsLoadProviderSvc {
         });
   }
 
-  @SneakyThrows
+  /**
+   * Globe Labs answers requests it refused with a 4xx status, anything else (5xx, gateway or read timeouts)
+   * may have been processed. A request timeout is ambiguous as well.
+   */
+  private static boolean isClientError(Exception ex) {
+    if (ex instanceof ApiSvcEx apiEx) {
+      var status = apiEx.getHttpResponseStatus();
+      return status >= 400 && status < 500 && status != RestResponse.StatusCode.REQUEST_TIMEOUT;
+    }
+    return false;
+  }
+
   @Override
   protected void parsePhoneNumber(LoadReqDto loadReqDto) {
-    var number = phoneNumberUtil.parse(loadReqDto.getMobile(), LoadConst.PH_REGION_CODE);
-    String sanitizedNumber = phoneNumberUtil.format(number, PhoneNumberUtil.PhoneNumberFormat.NATIONAL);
-    sanitizedNumber = StringUtils.deleteWhitespace(sanitizedNumber); // remove all white spaces
-    sanitizedNumber = StringUtils.substring(sanitizedNumber, 1); // remove first digit 0
-    loadReqDto.setMobile(sanitizedNumber);
+    loadReqDto.setMobile(msisdnNormalizer.normalize(loadReqDto).glFormat());
   }
 }
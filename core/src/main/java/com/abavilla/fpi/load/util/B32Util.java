@@ -19,10 +19,16 @@
 package com.abavilla.fpi.load.util;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * A simple Base32 encoder and decoder based on the character set proposed by Douglas Crockford.
  *
+ * <p>Encoding fills a fixed size buffer from right to left and decoding validates and converts the input in a
+ * single pass through lookup tables, the {@link #encodeTo(long, boolean, int, int, char[], int) encodeTo} and
+ * {@link #decode(CharSequence, boolean)} variants do not allocate unless the input is invalid.</p>
+ *
  * @author D.Fichtmueller
  * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
  * @see <a href="http://www.crockford.com/wrmg/base32.html">Base32 Encoding by Douglas Crockford</a>
@@ -35,6 +41,44 @@ public abstract class B32Util {
       '*', '~', '$', '=', 'U',
   };
 
+  private static final char BLOCK_SEPARATOR = '-';
+
+  /**
+   * Value of each ASCII character as a regular symbol, -1 if not a letter or digit
+   */
+  private static final byte[] DECODE_TABLE = new byte[128];
+
+  /**
+   * Value of each ASCII character as a check symbol, -1 if not allowed as check symbol
+   */
+  private static final byte[] DECODE_CHECK_TABLE = new byte[128];
+
+  static {
+    Arrays.fill(DECODE_TABLE, (byte) -1);
+    for (int i = 0; i < 32; i++) {
+      DECODE_TABLE[CHARACTER_TABLE[i]] = (byte) i;
+      DECODE_TABLE[Character.toLowerCase(CHARACTER_TABLE[i])] = (byte) i;
+    }
+    // commonly misread symbols
+    mapAlias('O', 0);
+    mapAlias('I', 1);
+    mapAlias('L', 1);
+    //Deviation from the standard: u and U are not specified for the regular Base32 characters (only for the check symbols).
+    //However, when they are not in the check symbol they are treated as a misread V instead of causing an exception
+    mapAlias('U', 27);
+
+    System.arraycopy(DECODE_TABLE, 0, DECODE_CHECK_TABLE, 0, DECODE_TABLE.length);
+    for (int i = 32; i < CHARACTER_TABLE.length; i++) {
+      DECODE_CHECK_TABLE[CHARACTER_TABLE[i]] = (byte) i;
+      DECODE_CHECK_TABLE[Character.toLowerCase(CHARACTER_TABLE[i])] = (byte) i;
+    }
+  }
+
+  private static void mapAlias(char upper, int value) {
+    DECODE_TABLE[upper] = (byte) value;
+    DECODE_TABLE[Character.toLowerCase(upper)] = (byte) value;
+  }
+
   /**
    * Encodes a non negative long into a Crockford Base32 String.
    *
@@ -45,52 +89,98 @@ public abstract class B32Util {
    * @return a Crockford base32 string which represents the number given as parameter
    */
   public static String encode(long number, boolean withCheckChar, int length, int blockWidth){
-    //check if number is not negative
-    if(number<0){
-      throw new IllegalArgumentException("The number parameter can not be negative.");
-    }
-
-    StringBuilder response = new StringBuilder();
-    //calculate the checksum already, even if it is not required, as the number will be changed during the conversion
-    int checksum = (int)(number % 37);
-
-    do{
-      //convert the number into the string, by calculating the module 32 of the current number,
-      //looking up the corresponding encoding symbol for this value and putting it in front of the already existing result string
-      int remainder = (int)(number % 32);
-      response.insert(0, CHARACTER_TABLE[remainder]);
-
-      //calculate the next higher digit by dividing by 32 (long division without fractions)
-      number = number/32;
-    }while(number > 0);
+    var buf = new char[encodedLength(number, withCheckChar, length, blockWidth)];
+    encodeTo(number, withCheckChar, length, blockWidth, buf, 0);
+    return new String(buf);
+  }
 
-    if(withCheckChar){
-      response.append(CHARACTER_TABLE[checksum]);
+  /**
+   * Encodes a non negative long into the given buffer, producing the same characters as
+   * {@link #encode(long, boolean, int, int)} without allocating.
+   *
+   * @param number the non negative number to encode. An IllegalArgumentException is thrown when the number is negative.
+   * @param withCheckChar a boolean indicating whether the last character should be a checksum character.
+   * @param length the minimum length of the result, excluding dashes.
+   * @param blockWidth the number of characters after which a dash (-) is introduced, ignored if zero or negative.
+   * @param dest buffer to write to, must have room for {@link #encodedLength(long, boolean, int, int)} characters
+   * @param offset position in the buffer to start writing at
+   * @return the number of characters written
+   */
+  public static int encodeTo(long number, boolean withCheckChar, int length, int blockWidth, char[] dest, int offset) {
+    int encodedLength = encodedLength(number, withCheckChar, length, blockWidth);
+    if (offset < 0 || dest.length - offset < encodedLength) {
+      throw new IndexOutOfBoundsException("Buffer too small, need " + encodedLength + " characters from " + offset);
     }
-
-    //add padding zeros to the beginning if the result string length is shorter than the length parameter
-    if(length>0){
-      while(response.length()<length){
-        response.insert(0, "0");
+    int symbols = symbolCount(number, withCheckChar, length);
+    int pos = symbols - 1;
+    if (withCheckChar) {
+      dest[offset + outputIndex(pos--, blockWidth)] = CHARACTER_TABLE[(int) (number % 37)];
+    }
+    do {
+      dest[offset + outputIndex(pos--, blockWidth)] = CHARACTER_TABLE[(int) (number & 31)];
+      number >>>= 5;
+    } while (number > 0);
+    while (pos >= 0) { // zero padding
+      dest[offset + outputIndex(pos--, blockWidth)] = CHARACTER_TABLE[0];
+    }
+    if (blockWidth > 0) {
+      for (int i = blockWidth; i < symbols; i += blockWidth) {
+        dest[offset + outputIndex(i, blockWidth) - 1] = BLOCK_SEPARATOR;
       }
     }
+    return encodedLength;
+  }
 
-    //insert spaces for better readability if the block width is given
-    if(blockWidth>0){
-      StringBuilder spacedResponse = new StringBuilder();
-      //copy the response character by character
-      for(int i=0;i<response.length();i++){
-        //if the current character position is a pure multiple of blockWidth but not at the first character (i=0), then add a dash
-        if(i%blockWidth == 0 && i > 0){
-          spacedResponse.append("-");
-        }
-        //add the character at the current position
-        spacedResponse.append(response.substring(i, i+1));
+  /**
+   * Encodes a non negative long as ASCII bytes into the given buffer, starting at its current position, producing
+   * the same characters as {@link #encode(long, boolean, int, int)} without allocating.
+   *
+   * @param number the non negative number to encode. An IllegalArgumentException is thrown when the number is negative.
+   * @param withCheckChar a boolean indicating whether the last character should be a checksum character.
+   * @param length the minimum length of the result, excluding dashes.
+   * @param blockWidth the number of characters after which a dash (-) is introduced, ignored if zero or negative.
+   * @param dest buffer to write to, its position is advanced by the number of bytes written
+   * @return the number of bytes written
+   */
+  public static int encodeTo(long number, boolean withCheckChar, int length, int blockWidth, ByteBuffer dest) {
+    int encodedLength = encodedLength(number, withCheckChar, length, blockWidth);
+    if (dest.remaining() < encodedLength) {
+      throw new IndexOutOfBoundsException("Buffer too small, need " + encodedLength + " bytes");
+    }
+    int start = dest.position();
+    int symbols = symbolCount(number, withCheckChar, length);
+    int pos = symbols - 1;
+    if (withCheckChar) {
+      dest.put(start + outputIndex(pos--, blockWidth), (byte) CHARACTER_TABLE[(int) (number % 37)]);
+    }
+    do {
+      dest.put(start + outputIndex(pos--, blockWidth), (byte) CHARACTER_TABLE[(int) (number & 31)]);
+      number >>>= 5;
+    } while (number > 0);
+    while (pos >= 0) { // zero padding
+      dest.put(start + outputIndex(pos--, blockWidth), (byte) CHARACTER_TABLE[0]);
+    }
+    if (blockWidth > 0) {
+      for (int i = blockWidth; i < symbols; i += blockWidth) {
+        dest.put(start + outputIndex(i, blockWidth) - 1, (byte) BLOCK_SEPARATOR);
       }
-      response = spacedResponse;
     }
+    dest.position(start + encodedLength);
+    return encodedLength;
+  }
 
-    return response.toString();
+  /**
+   * Computes the number of characters {@link #encode(long, boolean, int, int)} produces for the given parameters.
+   *
+   * @param number the non negative number to encode. An IllegalArgumentException is thrown when the number is negative.
+   * @param withCheckChar a boolean indicating whether the last character should be a checksum character.
+   * @param length the minimum length of the result, excluding dashes.
+   * @param blockWidth the number of characters after which a dash (-) is introduced, ignored if zero or negative.
+   * @return the length of the encoded string, including dashes
+   */
+  public static int encodedLength(long number, boolean withCheckChar, int length, int blockWidth) {
+    int symbols = symbolCount(number, withCheckChar, length);
+    return blockWidth > 0 ? symbols + (symbols - 1) / blockWidth : symbols;
   }
 
   /**
@@ -109,49 +199,50 @@ public abstract class B32Util {
    * @throws IOException when the check symbol doesn't match the character.
    */
   public static long decode(String string, boolean withCheckChar) throws IOException, IllegalArgumentException{
-    //check if string only contains valid characters
-    if(string.length()==0){
+    return decode((CharSequence) string, withCheckChar);
+  }
+
+  /**
+   * Decodes a Crowford Base32 character sequence into a number without allocating, follows the same rules as
+   * {@link #decode(String, boolean)}.
+   *
+   * @param chars The characters to be decoded.
+   * @param withCheckChar a boolean indicating that the last character is a check sum character
+   * @return a long to represent the number encoded by the Crowford Base32 String.
+   * @throws IllegalArgumentException when the given string is not a valid Crowford Base32 String
+   * @throws IOException when the check symbol doesn't match the character.
+   */
+  public static long decode(CharSequence chars, boolean withCheckChar) throws IOException, IllegalArgumentException {
+    int length = chars.length();
+    if (length == 0) {
       throw new IllegalArgumentException("The given string is not a valid Crowford Base32 String. It must not be of zero length.");
-    }else if(withCheckChar){
-      if(!string.matches("^[0-9a-zA-Z\\-]+[0-9a-zA-Z*~$=]-?$")){
-        if(string.length()<2){
-          throw new IllegalArgumentException("'"+string+"' not a valid Crowford Base32 String. It must must be at least two characters long, if it is supposed to contain a check symbol.");
-        }
+    }
 
-        throw new IllegalArgumentException("'"+string+"' is not a valid Crowford Base32 String.");
-      }
-    }else{
-      if(!string.matches("^[0-9a-zA-Z\\-]+$")){
-        if(string.matches("^[0-9a-zA-Z\\-]+[0-9a-zA-Z*~$=]-?$")){
-          throw new IllegalArgumentException("'"+string+"' is not a valid Crowford Base32 String without check symbol. However it is a valid Crowford Base32 String if the last character is a check symbol. Please adjust the call accordingly to decode it.");
-        }
-        String illegalSymbols = string.replaceAll("[0-9a-zA-Z\\-]", "");
-        throw new IllegalArgumentException("'"+string+"' is not a valid Crowford Base32 String. The following symbols from the string are not allowed: "+illegalSymbols);
+    // the check symbol may be followed by a single dash and must be preceded by at least one character
+    int checkPos = -1;
+    if (withCheckChar) {
+      checkPos = chars.charAt(length - 1) == BLOCK_SEPARATOR ? length - 2 : length - 1;
+      if (checkPos < 1 || checkValue(chars.charAt(checkPos)) < 0) {
+        throw invalidWithCheckChar(chars);
       }
     }
-
-    //ignore dashes, according to the specification
-    String processedString = string.replaceAll("-", "");
+    int end = withCheckChar ? checkPos : length;
 
     long result = 0;
-
-    //go through the characters
-    for(int i=0; i<processedString.length(); i++){
-      if(i==processedString.length()-1 && withCheckChar){
-        //if this is the last character and it is the check symbol, use the special check character table to decode it
-        long checkCharValue = decodeCheckChar(processedString.charAt(i));
-        //check if the check character value is different from the check value of the decoded string, if so throw an exception
-        if(result%37 != checkCharValue){
-          throw new IOException("Check Symbol for '"+string+"' is not correct.");
+    for (int i = 0; i < end; i++) {
+      char c = chars.charAt(i);
+      if (c != BLOCK_SEPARATOR) {
+        int value = symbolValue(c);
+        if (value < 0) {
+          throw withCheckChar ? invalidWithCheckChar(chars) : invalidWithoutCheckChar(chars);
         }
-      }else{
-        //read the current character, decode it its character value
-        long charValue = decode(processedString.charAt(i));
-        //calculate the new result by multiplying the previous result with 32 and adding the value of the current character
-        result = result*32 + charValue;
+        result = result * 32 + value;
       }
     }
 
+    if (withCheckChar && result % 37 != checkValue(chars.charAt(checkPos))) {
+      throw new IOException("Check Symbol for '" + chars + "' is not correct.");
+    }
     return result;
   }
 
@@ -254,57 +345,80 @@ public abstract class B32Util {
     return decode(string, false);
   }
 
-  private static long decode(char digit) {
-    return switch (digit) {
-      case '0', 'O', 'o' -> 0;
-      case '1', 'I', 'i', 'L', 'l' -> 1;
-      case '2' -> 2;
-      case '3' -> 3;
-      case '4' -> 4;
-      case '5' -> 5;
-      case '6' -> 6;
-      case '7' -> 7;
-      case '8' -> 8;
-      case '9' -> 9;
-      case 'A', 'a' -> 10;
-      case 'B', 'b' -> 11;
-      case 'C', 'c' -> 12;
-      case 'D', 'd' -> 13;
-      case 'E', 'e' -> 14;
-      case 'F', 'f' -> 15;
-      case 'G', 'g' -> 16;
-      case 'H', 'h' -> 17;
-      case 'J', 'j' -> 18;
-      case 'K', 'k' -> 19;
-      case 'M', 'm' -> 20;
-      case 'N', 'n' -> 21;
-      case 'P', 'p' -> 22;
-      case 'Q', 'q' -> 23;
-      case 'R', 'r' -> 24;
-      case 'S', 's' -> 25;
-      case 'T', 't' -> 26;
-
-      //Deviation from the standard: u and U are not specified for the regular Base32 characters (only for the check symbols).
-      //However, when they are not in the check symbol they are treated as a misread V instead of causing an exception
-      //if a check symbol is decoded it checks the special characters first and then checks this code section, so when there is
-      //a U as the check symbol it is recognized as having the value 36 first, before check here and become a 27.
-      case 'U', 'u', 'V', 'v' -> 27;
-      case 'W', 'w' -> 28;
-      case 'X', 'x' -> 29;
-      case 'Y', 'y' -> 30;
-      case 'Z', 'z' -> 31;
-      default -> -1;
-    };
+  /**
+   * Decodes a Crowford Base32 character sequence into a number without allocating.
+   *
+   * <p>is the same as calling <code>{@link #decode(CharSequence, boolean) decode(chars, false)}</code></p>
+   * @param chars The characters to be decoded.
+   * @return a long to represent the number encoded by the Crowford Base32 String.
+   * @throws IllegalArgumentException when the given string is not a valid Crowford Base32 String
+   * @throws IOException when the check symbol doesn't match the character.
+   */
+  public static long decode(CharSequence chars) throws IllegalArgumentException, IOException {
+    return decode(chars, false);
   }
 
-  private static long decodeCheckChar(char digit) {
-    return switch (digit) {
-      case '*' -> 32;
-      case '~' -> 33;
-      case '$' -> 34;
-      case '=' -> 35;
-      case 'U', 'u' -> 36;
-      default -> decode(digit);
-    };
+  /**
+   * Number of symbols of the encoded number including check symbol and padding, excluding dashes.
+   */
+  private static int symbolCount(long number, boolean withCheckChar, int length) {
+    //check if number is not negative
+    if(number<0){
+      throw new IllegalArgumentException("The number parameter can not be negative.");
+    }
+    int digits = number == 0 ? 1 : (Long.SIZE - Long.numberOfLeadingZeros(number) + 4) / 5;
+    int symbols = withCheckChar ? digits + 1 : digits;
+    return Math.max(symbols, length);
+  }
+
+  /**
+   * Position of the symbol at the given index once dashes are inserted every block width symbols.
+   */
+  private static int outputIndex(int symbolIndex, int blockWidth) {
+    return blockWidth > 0 ? symbolIndex + symbolIndex / blockWidth : symbolIndex;
+  }
+
+  private static int symbolValue(char c) {
+    return c < DECODE_TABLE.length ? DECODE_TABLE[c] : -1;
+  }
+
+  private static int checkValue(char c) {
+    return c < DECODE_CHECK_TABLE.length ? DECODE_CHECK_TABLE[c] : -1;
+  }
+
+  private static IllegalArgumentException invalidWithCheckChar(CharSequence chars) {
+    if (chars.length() < 2) {
+      return new IllegalArgumentException("'"+chars+"' not a valid Crowford Base32 String. It must must be at least two characters long, if it is supposed to contain a check symbol.");
+    }
+    return new IllegalArgumentException("'"+chars+"' is not a valid Crowford Base32 String.");
+  }
+
+  private static IllegalArgumentException invalidWithoutCheckChar(CharSequence chars) {
+    if (isValidWithCheckChar(chars)) {
+      return new IllegalArgumentException("'"+chars+"' is not a valid Crowford Base32 String without check symbol. However it is a valid Crowford Base32 String if the last character is a check symbol. Please adjust the call accordingly to decode it.");
+    }
+    var illegalSymbols = new StringBuilder();
+    for (int i = 0; i < chars.length(); i++) {
+      char c = chars.charAt(i);
+      if (c != BLOCK_SEPARATOR && symbolValue(c) < 0) {
+        illegalSymbols.append(c);
+      }
+    }
+    return new IllegalArgumentException("'"+chars+"' is not a valid Crowford Base32 String. The following symbols from the string are not allowed: "+illegalSymbols);
+  }
+
+  private static boolean isValidWithCheckChar(CharSequence chars) {
+    int length = chars.length();
+    int checkPos = chars.charAt(length - 1) == BLOCK_SEPARATOR ? length - 2 : length - 1;
+    if (checkPos < 1 || checkValue(chars.charAt(checkPos)) < 0) {
+      return false;
+    }
+    for (int i = 0; i < checkPos; i++) {
+      char c = chars.charAt(i);
+      if (c != BLOCK_SEPARATOR && symbolValue(c) < 0) {
+        return false;
+      }
+    }
+    return true;
   }
 }
@@ -61,4 +61,34 @@ public abstract class LoadConst {
    * Failed status code for dtone provider when number is not in operator
    */
   public static final long DT_OPMISMATCH_STS = 90200L;
+
+  /**
+   * Acknowledgement channel for the bot conversation of the loader
+   */
+  public static final String ACK_CH_LOADER_BOT = "LOADER_BOT";
+
+  /**
+   * Acknowledgement channel for the SMS to the loader
+   */
+  public static final String ACK_CH_LOADER_SMS = "LOADER_SMS";
+
+  /**
+   * Acknowledgement channel for the SMS to the customer
+   */
+  public static final String ACK_CH_CUSTOMER_SMS = "CUSTOMER_SMS";
+
+  /**
+   * Acknowledgement message was sent
+   */
+  public static final String ACK_SENT = "SENT";
+
+  /**
+   * Acknowledgement message failed to send
+   */
+  public static final String ACK_FAILED = "FAILED";
+
+  /**
+   * Acknowledgement message did not complete in time
+   */
+  public static final String ACK_TIMEOUT = "TIMEOUT";
 }
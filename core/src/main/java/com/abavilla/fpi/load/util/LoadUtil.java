@@ -18,6 +18,8 @@
 
 package com.abavilla.fpi.load.util;
 
+import java.io.IOException;
+
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 
@@ -47,4 +49,23 @@ public abstract class LoadUtil {
 
     return prov.charAt(0) + B32Util.encode(Long.parseLong(provId), false, STANDARD_ID_LENGTH, STANDARD_ID_LENGTH);
   }
+
+  /**
+   * Decodes the provider id from a load sms id generated by {@link #encodeId(String, String)}.
+   * @param loadSmsId Load sms id, dashes and lowercase letters are accepted
+   *
+   * @return Provider id
+   */
+  public static long decodeId(String loadSmsId) {
+    if (StringUtils.length(loadSmsId) < 2) {
+      throw new IllegalArgumentException("Load sms id too short, given: " + loadSmsId);
+    }
+
+    try {
+      return B32Util.decode(loadSmsId.subSequence(1, loadSmsId.length()), false);
+    } catch (IOException e) {
+      // only thrown for check symbols, which load sms ids do not have
+      throw new IllegalArgumentException("Invalid load sms id, given: " + loadSmsId, e);
+    }
+  }
 }
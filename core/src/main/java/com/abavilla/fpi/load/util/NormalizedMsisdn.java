@@ -0,0 +1,40 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.util;
+
+import com.abavilla.fpi.telco.ext.enums.Telco;
+
+/**
+ * A mobile number parsed once with every representation the load flow needs.
+ *
+ * @param raw       Number as given in the request
+ * @param parsable  Whether the number could be parsed at all, account numbers usually cannot
+ * @param valid     Whether the number is a valid phone number
+ * @param e164      Number in E.164 format, e.g. {@code +639171234567}, {@code null} if not parsable
+ * @param national  Number in national format, e.g. {@code 0917 123 4567}, {@code null} if not parsable
+ * @param glFormat  Number in the format expected by GlobeLabs, e.g. {@code 9171234567}, {@code null} if not
+ *                  parsable
+ * @param carrier   Name of the original carrier of the number, empty if unknown or not valid
+ * @param telco     {@link Telco} of the carrier
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public record NormalizedMsisdn(String raw, boolean parsable, boolean valid, String e164, String national,
+                               String glFormat, String carrier, Telco telco) {
+}
@@ -0,0 +1,165 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.engine.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the {@link ProviderHealth} circuit breaker cycle, driven by a manual clock.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+class ProviderHealthTest {
+
+  private static final Duration SLOW_CALL = Duration.ofSeconds(15);
+
+  private static final Duration OPEN_DURATION = Duration.ofSeconds(60);
+
+  private static final long FAST_CALL = TimeUnit.MILLISECONDS.toNanos(200);
+
+  private long now;
+
+  private ProviderHealth health;
+
+  @BeforeEach
+  void setUp() {
+    now = TimeUnit.HOURS.toNanos(1);
+    health = new ProviderHealth("test", 10, 4, 0.5, SLOW_CALL, OPEN_DURATION, () -> now);
+  }
+
+  @Test
+  void opensOnceFailuresReachThreshold() {
+    record(FAST_CALL, ProviderHealth.OUTCOME_SUCCESS);
+    record(FAST_CALL, ProviderHealth.OUTCOME_ERROR);
+    record(FAST_CALL, ProviderHealth.OUTCOME_SUCCESS);
+    assertState(CircuitState.CLOSED);
+    assertTrue(health.canRoute());
+    assertTrue(health.tryAcquireProbe());
+
+    record(FAST_CALL, ProviderHealth.OUTCOME_REJECTED);
+    assertState(CircuitState.OPEN);
+    assertFalse(health.canRoute());
+    assertFalse(health.tryAcquireProbe());
+  }
+
+  @Test
+  void slowCallsCountAsFailures() {
+    for (int i = 0; i < 4; i++) {
+      record(SLOW_CALL.toNanos(), ProviderHealth.OUTCOME_SUCCESS);
+    }
+    assertState(CircuitState.OPEN);
+  }
+
+  @Test
+  void canRouteDoesNotClaimProbe() {
+    openAndWait();
+    assertState(CircuitState.HALF_OPEN);
+    for (int i = 0; i < 10; i++) {
+      assertTrue(health.canRoute());
+    }
+    assertTrue(health.tryAcquireProbe());
+  }
+
+  @Test
+  void successfulProbeClosesCircuit() {
+    openAndWait();
+    assertTrue(health.tryAcquireProbe());
+    assertFalse(health.canRoute());
+    assertFalse(health.tryAcquireProbe(), "only a single probe is let through");
+
+    record(FAST_CALL, ProviderHealth.OUTCOME_SUCCESS);
+    assertState(CircuitState.CLOSED);
+    assertEquals(0, health.snapshot().samples(), "window starts over once closed");
+    assertTrue(health.canRoute());
+    assertTrue(health.tryAcquireProbe());
+  }
+
+  @Test
+  void failedProbeReopensCircuit() {
+    openAndWait();
+    assertTrue(health.tryAcquireProbe());
+
+    record(FAST_CALL, ProviderHealth.OUTCOME_ERROR);
+    assertState(CircuitState.OPEN);
+    assertFalse(health.canRoute());
+
+    now += OPEN_DURATION.toNanos();
+    assertState(CircuitState.HALF_OPEN);
+    assertTrue(health.tryAcquireProbe());
+    record(FAST_CALL, ProviderHealth.OUTCOME_SUCCESS);
+    assertState(CircuitState.CLOSED);
+  }
+
+  @Test
+  void callsStartedBeforeProbeDoNotDecide() {
+    openAndWait();
+    assertTrue(health.tryAcquireProbe());
+    now += FAST_CALL;
+
+    // completes after the probe was claimed but started before the circuit opened
+    health.record(OPEN_DURATION.toNanos(), ProviderHealth.OUTCOME_SUCCESS);
+    assertState(CircuitState.HALF_OPEN);
+    assertFalse(health.canRoute());
+
+    record(FAST_CALL, ProviderHealth.OUTCOME_SUCCESS);
+    assertState(CircuitState.CLOSED);
+  }
+
+  @Test
+  void probeWithoutOutcomeExpiresAfterSlowCallThreshold() {
+    openAndWait();
+    assertTrue(health.tryAcquireProbe());
+
+    now += SLOW_CALL.toNanos() - 1;
+    assertFalse(health.canRoute());
+    assertFalse(health.tryAcquireProbe());
+
+    now += 1;
+    assertTrue(health.canRoute());
+    assertTrue(health.tryAcquireProbe());
+    assertFalse(health.tryAcquireProbe());
+  }
+
+  private void openAndWait() {
+    for (int i = 0; i < 4; i++) {
+      record(FAST_CALL, ProviderHealth.OUTCOME_ERROR);
+    }
+    assertState(CircuitState.OPEN);
+    now += OPEN_DURATION.toNanos() - 1;
+    assertState(CircuitState.OPEN);
+    now += 1;
+  }
+
+  private void record(long latencyNanos, byte outcome) {
+    now += latencyNanos;
+    health.record(latencyNanos, outcome);
+  }
+
+  private void assertState(CircuitState expected) {
+    assertEquals(expected, health.snapshot().state());
+  }
+}
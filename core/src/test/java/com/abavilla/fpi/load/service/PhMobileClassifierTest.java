@@ -0,0 +1,143 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import com.abavilla.fpi.load.util.LoadConst;
+import com.google.i18n.phonenumbers.PhoneNumberToCarrierMapper;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential tests of the {@link PhMobileClassifier} fast path against libphonenumber. The prefix table is
+ * derived from three samples per five digit prefix, so these tests check that every number of a prefix in the
+ * table is valid and has the same carrier according to the carrier data, and that {@link MsisdnNormalizer}
+ * yields the same result with and without the fast path.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+class PhMobileClassifierTest {
+
+  private static final long SEED = 0x63_9171L;
+
+  /**
+   * Digits after the five digit prefix checked exhaustively, each sub range is also sampled randomly
+   */
+  private static final int SUB_RANGE_DIGITS = 2;
+
+  private static final int SUB_RANGE_SIZE = 1_000;
+
+  private static final int SAMPLES = 100_000;
+
+  private static final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+
+  private static final PhoneNumberToCarrierMapper carrierMapper = PhoneNumberToCarrierMapper.getInstance();
+
+  private static PhMobileClassifier classifier;
+
+  private static MsisdnNormalizer fastNormalizer;
+
+  private static MsisdnNormalizer slowNormalizer;
+
+  @BeforeAll
+  static void setUp() {
+    classifier = newClassifier(true);
+    fastNormalizer = newNormalizer(classifier);
+    slowNormalizer = newNormalizer(newClassifier(false));
+  }
+
+  @Test
+  void tableIsDerivedFromCarrierData() {
+    assertTrue(classifier.refresh() > 0, "No PH mobile prefix derived from the carrier data");
+  }
+
+  @Test
+  void everyNumberOfTablePrefixesIsValidWithSameCarrier() {
+    var rnd = new Random(SEED);
+    var number = new Phonenumber.PhoneNumber().setCountryCode(63);
+    for (int prefix = 90_000; prefix < 100_000; prefix++) {
+      var carrier = classifier.carrierOf(Integer.toString(prefix) + "00000", 0);
+      if (carrier == null) {
+        continue;
+      }
+      for (int sub = 0; sub < (int) Math.pow(10, SUB_RANGE_DIGITS); sub++) {
+        long first = prefix * 100_000L + (long) sub * SUB_RANGE_SIZE;
+        for (long sample : new long[] {first, first + rnd.nextInt(SUB_RANGE_SIZE), first + SUB_RANGE_SIZE - 1}) {
+          number.setNationalNumber(sample);
+          assertTrue(phoneNumberUtil.isValidNumber(number), "Not a valid number: " + sample);
+          assertEquals(carrier, carrierMapper.getNameForValidNumber(number, LoadConst.DEFAULT_LOCALE),
+            "Carrier of " + sample);
+        }
+      }
+    }
+  }
+
+  @Test
+  void normalizeMatchesLibphonenumber() {
+    var rnd = new Random(SEED);
+    for (int i = 0; i < SAMPLES; i++) {
+      var significant = Long.toString(9_000_000_000L + (long) (rnd.nextDouble() * 1_000_000_000L));
+      var mobile = switch (rnd.nextInt(4)) {
+        case 0 -> significant;
+        case 1 -> "0" + significant;
+        case 2 -> "63" + significant;
+        default -> "+63" + significant;
+      };
+      assertEquals(slowNormalizer.normalize(mobile), fastNormalizer.normalize(mobile), mobile);
+    }
+  }
+
+  @Test
+  void unrecognizedFormsAreLeftToLibphonenumber() {
+    for (var mobile : new String[] {null, "", "917123456", "91712345678", "19171234567", "0817123456",
+        "64917123456", "+64917123456", "0917-123-4567", "+63 917 123 4567", "917123456a"}) {
+      int start = PhMobileClassifier.significantStart(mobile);
+      assertEquals(-1, start, mobile);
+      assertNull(classifier.carrierOf(mobile, start), mobile);
+    }
+  }
+
+  private static PhMobileClassifier newClassifier(boolean enabled) {
+    var classifier = new PhMobileClassifier();
+    classifier.phoneNumberUtil = phoneNumberUtil;
+    classifier.carrierMapper = carrierMapper;
+    classifier.config = ConfigProvider.getConfig();
+    classifier.enabled = enabled;
+    classifier.derive = true;
+    classifier.refresh();
+    return classifier;
+  }
+
+  private static MsisdnNormalizer newNormalizer(PhMobileClassifier classifier) {
+    var normalizer = new MsisdnNormalizer();
+    normalizer.phoneNumberUtil = phoneNumberUtil;
+    normalizer.carrierMapper = carrierMapper;
+    normalizer.phMobileClassifier = classifier;
+    normalizer.maxSize = 0;
+    return normalizer;
+  }
+}
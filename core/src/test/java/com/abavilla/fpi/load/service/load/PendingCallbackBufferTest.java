@@ -0,0 +1,156 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.abavilla.fpi.fw.util.DateUtil;
+import com.abavilla.fpi.load.entity.enums.InboxState;
+import com.abavilla.fpi.load.entity.load.CallbackInbox;
+import com.abavilla.fpi.load.repo.load.CallbackInboxRepo;
+import com.mongodb.client.result.UpdateResult;
+import io.smallrye.mutiny.Uni;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of parking an early callback and releasing it once its transaction id is stored, against an in-memory
+ * inbox.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+class PendingCallbackBufferTest {
+
+  private static final String PROVIDER = "GlobeLabs";
+
+  private static final Duration PARK_TTL = Duration.ofMinutes(10);
+
+  private InMemoryInboxRepo inboxRepo;
+
+  private CountingWorker inboxWorker;
+
+  private PendingCallbackBuffer buffer;
+
+  @BeforeEach
+  void setUp() {
+    inboxRepo = new InMemoryInboxRepo();
+    inboxWorker = new CountingWorker();
+    buffer = new PendingCallbackBuffer();
+    buffer.inboxRepo = inboxRepo;
+    buffer.inboxWorker = inboxWorker;
+    buffer.parkTtl = PARK_TTL;
+  }
+
+  @Test
+  void earlyCallbackIsReleasedOnceTransactionIsStored() {
+    var early = inboxRepo.add(PROVIDER, 1001L);
+    var before = DateUtil.now();
+    buffer.park(early).await().indefinitely();
+    assertEquals(InboxState.PARKED, early.getState());
+    assertFalse(early.getParkedUntil().isBefore(before.plus(PARK_TTL)), "parked for the configured ttl");
+
+    buffer.release(PROVIDER, 1001L).await().indefinitely();
+    assertEquals(InboxState.PENDING, early.getState());
+    assertEquals(1, inboxWorker.signals, "worker woken for the released callback");
+  }
+
+  @Test
+  void releaseOnlyMatchesProviderAndTransaction() {
+    var early = inboxRepo.add(PROVIDER, 1001L);
+    buffer.park(early).await().indefinitely();
+
+    buffer.release(PROVIDER, 1002L).await().indefinitely();
+    buffer.release("DTOne", 1001L).await().indefinitely();
+    assertEquals(InboxState.PARKED, early.getState());
+    assertEquals(0, inboxWorker.signals);
+  }
+
+  @Test
+  void releaseWithoutParkedCallbackDoesNotWakeWorker() {
+    buffer.release(PROVIDER, 1001L).await().indefinitely();
+    assertEquals(1, inboxRepo.releases, "release always goes through the inbox, it may be parked elsewhere");
+    assertEquals(0, inboxWorker.signals);
+  }
+
+  @Test
+  void reparkKeepsOriginalExpiry() {
+    var early = inboxRepo.add(PROVIDER, 1001L);
+    var parkedUntil = DateUtil.now().plusMinutes(1);
+    early.setParkedUntil(parkedUntil);
+    buffer.park(early).await().indefinitely();
+    assertEquals(parkedUntil, early.getParkedUntil());
+  }
+
+  /**
+   * Inbox holding its entries in memory, implementing only what {@link PendingCallbackBuffer} uses.
+   */
+  private static class InMemoryInboxRepo extends CallbackInboxRepo {
+    private final Map<ObjectId, CallbackInbox> entries = new LinkedHashMap<>();
+    private int releases;
+
+    CallbackInbox add(String provider, Long transactionId) {
+      var item = new CallbackInbox();
+      item.setId(new ObjectId());
+      item.setLoadProvider(provider);
+      item.setTransactionId(transactionId);
+      item.setState(InboxState.PROCESSING);
+      entries.put(item.getId(), item);
+      return item;
+    }
+
+    @Override
+    public Uni<UpdateResult> park(ObjectId id, LocalDateTime parkedUntil) {
+      var item = entries.get(id);
+      item.setState(InboxState.PARKED);
+      item.setParkedUntil(parkedUntil);
+      return Uni.createFrom().item(UpdateResult.acknowledged(1, 1L, null));
+    }
+
+    @Override
+    public Uni<UpdateResult> releaseParked(String provider, Long transactionId) {
+      releases++;
+      long modified = 0;
+      for (var item : entries.values()) {
+        if (item.getState() == InboxState.PARKED && Objects.equals(item.getLoadProvider(), provider) &&
+          Objects.equals(item.getTransactionId(), transactionId)) {
+          item.setState(InboxState.PENDING);
+          modified++;
+        }
+      }
+      return Uni.createFrom().item(UpdateResult.acknowledged(modified, modified, null));
+    }
+  }
+
+  private static class CountingWorker extends CallbackInboxWorker {
+    private int signals;
+
+    @Override
+    public void signal() {
+      signals++;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.service.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import com.abavilla.fpi.load.entity.enums.SkuType;
+import com.abavilla.fpi.load.entity.load.Pricing;
+import com.abavilla.fpi.load.entity.load.PromoSku;
+import com.abavilla.fpi.load.entity.load.ProviderOffer;
+import com.abavilla.fpi.telco.ext.enums.Telco;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential tests of {@link PromoSkuIndex} against the linear match over the ranked catalog it replaced, which
+ * mirrors the filter of the repository queries. Catalogs and lookups are generated from a fixed seed, with
+ * overlapping ranges, fractional and inverted bounds, shared keywords and missing fields.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+class PromoSkuIndexTest {
+
+  private static final long SEED = 0x5EED_5C0L;
+
+  private static final int CATALOGS = 300;
+
+  private static final int LOOKUPS = 500;
+
+  private static final String[] KEYWORDS = {"GOSURF50", "GIGA99", "ALLNET30", "TNT10", "50", "100", "1000"};
+
+  private static final String[] AMOUNTS = {"0", "1", "5", "9", "10", "15", "49", "50", "99", "100", "101", "150",
+    "500", "999", "1000", "-5", "+50", "050", "2147483647", "2147483648", "-2147483648", "99999999999", "", null,
+    "abc", "5a", "1.5", " 50", "-", "+"};
+
+  private static final Telco[] TELCOS = Telco.values();
+
+  private static final SkuType[] TYPES = SkuType.values();
+
+  @Test
+  void resolveMatchesLinearScan() {
+    var rnd = new Random(SEED);
+    for (int c = 0; c < CATALOGS; c++) {
+      var ranked = randomCatalog(rnd, 1 + rnd.nextInt(c < CATALOGS / 2 ? 20 : 200)).stream()
+        .sorted(PromoSkuCatalog.SKU_RANKING).toList();
+      var index = PromoSkuIndex.build(ranked);
+
+      for (int i = 0; i < LOOKUPS; i++) {
+        var keyword = rnd.nextBoolean() ? pick(rnd, KEYWORDS) : pick(rnd, AMOUNTS);
+        var telco = pick(rnd, TELCOS);
+        var description = "catalog " + c + ", telco " + telco + ", keyword '" + keyword + "'";
+        assertSame(linearMatch(ranked, telco, keyword), index.resolve(telco, keyword), description);
+        assertSame(linearMatch(ranked, null, keyword), index.resolve(keyword), description);
+      }
+    }
+  }
+
+  @Test
+  void emptyIndexResolvesNothing() {
+    for (var keyword : AMOUNTS) {
+      assertSame(null, PromoSkuIndex.EMPTY.resolve(keyword));
+      assertSame(null, PromoSkuIndex.EMPTY.resolve(Telco.GLOBE, keyword));
+    }
+  }
+
+  @Test
+  void toDenominationFollowsNumberUtils() {
+    for (var keyword : AMOUNTS) {
+      assertEquals(NumberUtils.toInt(keyword), PromoSkuIndex.toDenomination(keyword), keyword);
+    }
+    for (var keyword : KEYWORDS) {
+      assertEquals(NumberUtils.toInt(keyword), PromoSkuIndex.toDenomination(keyword), keyword);
+    }
+  }
+
+  /**
+   * Previous lookup of {@link PromoSkuCatalog}, the first promo in rank order matching the keyword.
+   *
+   * @param ranked  Catalog sorted by {@link PromoSkuCatalog#SKU_RANKING}
+   * @param telco   Telco of the promo, {@code null} to match any telco
+   * @param keyword Keyword or denomination
+   * @return the promo found, {@code null} if none
+   */
+  private static PromoSku linearMatch(List<PromoSku> ranked, Telco telco, String keyword) {
+    int amount = NumberUtils.toInt(keyword);
+    return ranked.stream()
+      .filter(sku -> telco == null || sku.getTelco() == telco)
+      .filter(sku -> isMatch(sku, keyword, amount))
+      .findFirst()
+      .orElse(null);
+  }
+
+  private static boolean isMatch(PromoSku sku, String keyword, int amount) {
+    return switch (Objects.requireNonNullElse(sku.getType(), SkuType.UNKNOWN)) {
+      case BUNDLE, CREDITS -> sku.getKeywords() != null && sku.getKeywords().contains(keyword);
+      case RANGED -> sku.getDenomination() != null &&
+        sku.getDenomination().getMin() != null && sku.getDenomination().getMax() != null &&
+        sku.getDenomination().getMin().compareTo(BigDecimal.valueOf(amount)) <= 0 &&
+        sku.getDenomination().getMax().compareTo(BigDecimal.valueOf(amount)) >= 0;
+      default -> false;
+    };
+  }
+
+  private static List<PromoSku> randomCatalog(Random rnd, int size) {
+    var catalog = new ArrayList<PromoSku>(size);
+    for (int i = 0; i < size; i++) {
+      var sku = new PromoSku();
+      sku.setId(new ObjectId());
+      sku.setType(rnd.nextInt(10) == 0 ? null : pick(rnd, TYPES));
+      sku.setTelco(rnd.nextInt(10) == 0 ? null : pick(rnd, TELCOS));
+      if (rnd.nextInt(8) != 0) {
+        var keywords = new ArrayList<String>();
+        for (int k = rnd.nextInt(4); k > 0; k--) {
+          keywords.add(pick(rnd, KEYWORDS)); // duplicates included
+        }
+        sku.setKeywords(keywords);
+      }
+      if (rnd.nextInt(8) != 0) {
+        var denomination = new Pricing();
+        var min = randomAmount(rnd);
+        denomination.setMin(rnd.nextInt(12) == 0 ? null : min);
+        denomination.setMax(rnd.nextInt(12) == 0 ? null :
+          rnd.nextInt(6) == 0 ? min.subtract(BigDecimal.ONE) : min.add(randomAmount(rnd)));
+        sku.setDenomination(denomination);
+      }
+      if (rnd.nextInt(8) != 0) {
+        var offers = new ArrayList<ProviderOffer>();
+        for (int o = 1 + rnd.nextInt(2); o > 0; o--) {
+          // few distinct discounts so ties are broken by type and id
+          offers.add(new ProviderOffer("Provider" + o,
+            rnd.nextInt(6) == 0 ? null : BigDecimal.valueOf(rnd.nextInt(5), 2), "P" + i));
+        }
+        sku.setOffers(offers);
+      }
+      catalog.add(sku);
+    }
+    return catalog;
+  }
+
+  /**
+   * Amount up to a thousand, sometimes fractional or negative
+   */
+  private static BigDecimal randomAmount(Random rnd) {
+    var amount = BigDecimal.valueOf(rnd.nextInt(1_000));
+    if (rnd.nextInt(5) == 0) {
+      amount = amount.add(BigDecimal.valueOf(rnd.nextInt(100), 2));
+    }
+    return rnd.nextInt(20) == 0 ? amount.negate() : amount;
+  }
+
+  private static <T> T pick(Random rnd, T[] values) {
+    return values[rnd.nextInt(values.length)];
+  }
+}
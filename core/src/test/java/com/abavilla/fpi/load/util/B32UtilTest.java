@@ -0,0 +1,223 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential tests of {@link B32Util} against {@link LegacyB32Util}, the implementation it replaced. Inputs are
+ * generated from a fixed seed so a failure is reproducible, the failing input is part of the assertion message.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+class B32UtilTest {
+
+  private static final long SEED = 0x5EED_B32L;
+
+  private static final int SAMPLES = 200_000;
+
+  /**
+   * Fewer samples for decoding, the legacy decoder validates through regular expressions and is much slower.
+   */
+  private static final int DECODE_SAMPLES = 40_000;
+
+  /**
+   * Symbols the decoder input is drawn from: regular symbols in both cases, misread aliases, check symbols, dashes
+   * and characters that are never valid, including non ASCII.
+   */
+  private static final char[] DECODE_ALPHABET =
+      "0123456789ABCDEFGHJKMNPQRSTVWXYZabcdefghjkmnpqrstvwxyzOoIiLlUu*~$=---- _+#/\u00e9\u0660\uff21".toCharArray();
+
+  @Test
+  void encodeMatchesLegacy() {
+    var rnd = new Random(SEED);
+    for (int i = 0; i < SAMPLES; i++) {
+      long number = randomNumber(rnd);
+      boolean withCheckChar = rnd.nextBoolean();
+      int length = rnd.nextInt(22) - 2;
+      int blockWidth = rnd.nextInt(10) - 2;
+      String input = describe(number, withCheckChar, length, blockWidth);
+
+      String expected = LegacyB32Util.encode(number, withCheckChar, length, blockWidth);
+      assertEquals(expected, B32Util.encode(number, withCheckChar, length, blockWidth), input);
+      assertEquals(expected.length(), B32Util.encodedLength(number, withCheckChar, length, blockWidth), input);
+
+      int offset = rnd.nextInt(4);
+      var chars = new char[offset + expected.length() + 2];
+      Arrays.fill(chars, '.');
+      assertEquals(expected.length(), B32Util.encodeTo(number, withCheckChar, length, blockWidth, chars, offset), input);
+      assertEquals(expected, new String(chars, offset, expected.length()), input);
+      assertEquals('.', chars[offset + expected.length()], input);
+
+      var bytes = ByteBuffer.allocate(offset + expected.length() + 2);
+      bytes.position(offset);
+      assertEquals(expected.length(), B32Util.encodeTo(number, withCheckChar, length, blockWidth, bytes), input);
+      assertEquals(offset + expected.length(), bytes.position(), input);
+      assertArrayEquals(expected.getBytes(StandardCharsets.US_ASCII),
+          Arrays.copyOfRange(bytes.array(), offset, offset + expected.length()), input);
+    }
+  }
+
+  @Test
+  void encodeShorthandsMatchLegacy() {
+    var rnd = new Random(SEED);
+    for (int i = 0; i < SAMPLES; i++) {
+      long number = randomNumber(rnd);
+      int length = rnd.nextInt(22) - 2;
+      int blockWidth = rnd.nextInt(10) - 2;
+      String input = describe(number, false, length, blockWidth);
+
+      assertEquals(LegacyB32Util.encode(number), B32Util.encode(number), input);
+      assertEquals(LegacyB32Util.encode(number, true), B32Util.encode(number, true), input);
+      assertEquals(LegacyB32Util.encode(number, length), B32Util.encode(number, length), input);
+      assertEquals(LegacyB32Util.encode(number, true, length), B32Util.encode(number, true, length), input);
+      assertEquals(LegacyB32Util.encode(number, length, blockWidth), B32Util.encode(number, length, blockWidth), input);
+    }
+  }
+
+  @Test
+  void encodeRejectsNegativeNumbers() {
+    var rnd = new Random(SEED);
+    for (int i = 0; i < 1_000; i++) {
+      long number = rnd.nextLong() | Long.MIN_VALUE;
+      var expected = assertThrows(IllegalArgumentException.class, () -> LegacyB32Util.encode(number, true, 8, 4));
+      var actual = assertThrows(IllegalArgumentException.class, () -> B32Util.encode(number, true, 8, 4));
+      assertEquals(expected.getMessage(), actual.getMessage());
+      assertThrows(IllegalArgumentException.class, () -> B32Util.encodeTo(number, true, 8, 4, new char[32], 0));
+    }
+  }
+
+  @Test
+  void decodeRoundTrips() throws IOException {
+    var rnd = new Random(SEED);
+    for (int i = 0; i < SAMPLES; i++) {
+      long number = randomNumber(rnd);
+      boolean withCheckChar = rnd.nextBoolean();
+      int length = rnd.nextInt(14);
+      int blockWidth = rnd.nextInt(10) - 2;
+      String encoded = B32Util.encode(number, withCheckChar, length, blockWidth);
+
+      assertEquals(number, B32Util.decode(encoded, withCheckChar), encoded);
+      assertEquals(number, B32Util.decode(new StringBuilder(encoded), withCheckChar), encoded);
+      assertEquals(number, B32Util.decode(encoded.toLowerCase(), withCheckChar), encoded);
+    }
+  }
+
+  @Test
+  void decodeMatchesLegacy() {
+    var rnd = new Random(SEED);
+    for (int i = 0; i < DECODE_SAMPLES; i++) {
+      String input = rnd.nextInt(4) == 0
+          ? mutate(LegacyB32Util.encode(randomNumber(rnd), rnd.nextBoolean(), rnd.nextInt(14), rnd.nextInt(6)), rnd)
+          : randomString(rnd);
+      assertSameDecode(input, false);
+      assertSameDecode(input, true);
+    }
+  }
+
+  @Test
+  void decodeMatchesLegacyOnEdgeCases() {
+    for (String input : new String[] {"", "-", "--", "0", "0-", "-0", "U", "0U", "0U-", "0U--", "*", "0*", "0*0",
+        "00~", "o$", "1=", "ZZZZZZZZZZZZZ", "7ZZZZZZZZZZZZ", "7ZZZZZZZZZZZZ-", "1-2-3-4", "1--2", "IL0O", "\u00e9"}) {
+      assertSameDecode(input, false);
+      assertSameDecode(input, true);
+    }
+  }
+
+  private static void assertSameDecode(String input, boolean withCheckChar) {
+    String description = "'" + input + "' withCheckChar=" + withCheckChar;
+    Object expected = decodeOutcome(() -> LegacyB32Util.decode(input, withCheckChar));
+    assertEquals(expected, decodeOutcome(() -> B32Util.decode(input, withCheckChar)), description);
+    assertEquals(expected, decodeOutcome(() -> B32Util.decode(new StringBuilder(input), withCheckChar)), description);
+    assertEquals(LegacyB32Util.check(input, withCheckChar), B32Util.check(input, withCheckChar), description);
+  }
+
+  /**
+   * Either the decoded value or the type and message of the exception thrown, so results can be compared as values.
+   */
+  private static Object decodeOutcome(Decoder decoder) {
+    try {
+      return decoder.decode();
+    } catch (IOException | IllegalArgumentException e) {
+      return e.getClass().getName() + ": " + e.getMessage();
+    }
+  }
+
+  /**
+   * Numbers spread over every encoded length, with the boundaries of each length more likely than a uniform draw.
+   */
+  private static long randomNumber(Random rnd) {
+    int bits = rnd.nextInt(63);
+    return switch (rnd.nextInt(4)) {
+      case 0 -> (1L << bits << 1) - 1;
+      case 1 -> 1L << bits;
+      default -> rnd.nextLong() >>> (63 - bits);
+    };
+  }
+
+  private static String randomString(Random rnd) {
+    var chars = new char[rnd.nextInt(16)];
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = DECODE_ALPHABET[rnd.nextInt(DECODE_ALPHABET.length)];
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Replaces, inserts or drops a single character of a valid encoding, usually producing a near miss.
+   */
+  private static String mutate(String encoded, Random rnd) {
+    var sb = new StringBuilder(encoded);
+    int pos = rnd.nextInt(sb.length() + 1);
+    char c = DECODE_ALPHABET[rnd.nextInt(DECODE_ALPHABET.length)];
+    switch (rnd.nextInt(3)) {
+      case 0 -> sb.insert(pos, c);
+      case 1 -> {
+        if (pos < sb.length()) {
+          sb.setCharAt(pos, c);
+        }
+      }
+      default -> {
+        if (pos < sb.length()) {
+          sb.deleteCharAt(pos);
+        }
+      }
+    }
+    return sb.toString();
+  }
+
+  private static String describe(long number, boolean withCheckChar, int length, int blockWidth) {
+    return "number=" + number + " withCheckChar=" + withCheckChar + " length=" + length + " blockWidth=" + blockWidth;
+  }
+
+  @FunctionalInterface
+  private interface Decoder {
+    long decode() throws IOException;
+  }
+}
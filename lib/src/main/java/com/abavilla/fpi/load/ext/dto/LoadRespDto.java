@@ -37,4 +37,9 @@ public class LoadRespDto extends AbsDto {
   private String smsTransactionId;
   private transient Object apiResponse;
   private transient Object apiRequest;
+  /**
+   * Set by the provider when a {@link ApiStatus#REJ} is certain to have not been processed, only these loads
+   * may be sent to another provider
+   */
+  private transient boolean definitiveRejection;
 }
@@ -0,0 +1,148 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.sim;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The application under test, started from its jar with every upstream api pointed at the
+ * {@link FakeProviderServer}.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public class AppProcess implements AutoCloseable {
+
+  private final Process process;
+
+  private AppProcess(Process process) {
+    this.process = process;
+  }
+
+  /**
+   * Environment that points the application at the simulator.
+   *
+   * @param config   Simulator options
+   * @param mongoUri Connection string of the database
+   * @return the environment variables
+   */
+  public static Map<String, String> environment(SimConfig config, String mongoUri) {
+    var sim = config.simBaseUrl();
+    var env = new LinkedHashMap<String, String>();
+    env.put("PORT", String.valueOf(config.appPort()));
+    env.put("MONGO_CONN_STRING", mongoUri);
+    env.put("DB_NAME", config.database());
+    env.put("GL_REWARDS_API", sim + FakeProviderServer.GL_PATH);
+    env.put("DTONE_BASEURL", sim + FakeProviderServer.DVS_PATH);
+    env.put("DTONE_CALLBACK_URL", config.appBaseUrl() + "/fpi/load/callback/intlprov");
+    env.put("OIDC_AUTH_URL", sim + FakeProviderServer.OIDC_PATH);
+    for (var api : List.of("LOGIN_BASE_URI", "SMS_BASE_URI", "USER_BASE_URI", "MSGR_API_BASE_URI",
+      "TG_API_BASE_URI", "VIBER_API_BASE_URI")) {
+      env.put(api, sim + FakeProviderServer.STUB_PATH);
+    }
+    env.put("FPI_GEN_WEBHOOK_KEY", config.webhookKey());
+    env.put("FPI_SKU_CATALOG_POLL", "1S"); // a standalone mongod has no change streams
+    return env;
+  }
+
+  /**
+   * System properties for running offline: the policy enforcer needs a real Keycloak, and there is no
+   * collector to export traces to.
+   *
+   * @return the {@code -D} options
+   */
+  static List<String> systemProperties() {
+    return List.of(
+      "-Dquarkus.keycloak.policy-enforcer.enable=false",
+      "-Dquarkus.otel.sdk.disabled=true");
+  }
+
+  /**
+   * Starts the application jar and waits until it serves requests.
+   *
+   * @param config   Simulator options
+   * @param mongoUri Connection string of the database
+   * @param log      File the application output is written to
+   * @return the running {@link AppProcess}
+   * @throws IOException if the application does not start
+   */
+  public static AppProcess start(SimConfig config, String mongoUri, Path log) throws IOException {
+    if (!Files.isRegularFile(config.appJar())) {
+      throw new IOException("Application jar not found: " + config.appJar() + ", build it with ./mvnw package");
+    }
+    var command = new ArrayList<String>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(systemProperties());
+    command.add("-jar");
+    command.add(config.appJar().toString());
+    var builder = new ProcessBuilder(command)
+      .redirectErrorStream(true)
+      .redirectOutput(log.toFile());
+    builder.environment().putAll(environment(config, mongoUri));
+    var app = new AppProcess(builder.start());
+
+    var client = HttpClient.newHttpClient();
+    var probe = HttpRequest.newBuilder(URI.create(config.appBaseUrl() + "/q/metrics"))
+      .timeout(Duration.ofSeconds(2)).build();
+    var deadline = System.nanoTime() + config.startupTimeout().toNanos();
+    while (System.nanoTime() < deadline) {
+      if (!app.process.isAlive()) {
+        throw new IOException("Application exited with " + app.process.exitValue() + ", see " + log);
+      }
+      try {
+        if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+          return app;
+        }
+      } catch (IOException e) {
+        // not yet listening
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      try {
+        Thread.sleep(500);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    app.close();
+    throw new IOException("Application did not start within " + config.startupTimeout() + ", see " + log);
+  }
+
+  @Override
+  public void close() {
+    process.destroy();
+    try {
+      process.waitFor();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
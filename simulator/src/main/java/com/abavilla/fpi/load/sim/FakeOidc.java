@@ -0,0 +1,140 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.sim;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Minimal OpenID provider, just enough for the application to verify bearer tokens offline: a discovery
+ * document, a JWKS with a freshly generated RSA key and RS256 tokens signed with it.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public class FakeOidc {
+
+  private static final String KEY_ID = "fpi-sim";
+
+  private static final Base64.Encoder B64URL = Base64.getUrlEncoder().withoutPadding();
+
+  private final ObjectMapper mapper;
+
+  private final String issuer;
+
+  private final KeyPair keyPair;
+
+  /**
+   * Creates the provider.
+   *
+   * @param mapper Json mapper
+   * @param issuer Issuer url, the base path the discovery document is served under
+   */
+  public FakeOidc(ObjectMapper mapper, String issuer) {
+    this.mapper = mapper;
+    this.issuer = issuer;
+    try {
+      var generator = KeyPairGenerator.getInstance("RSA");
+      generator.initialize(2048);
+      keyPair = generator.generateKeyPair();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Builds the discovery document served at {@code .well-known/openid-configuration}.
+   *
+   * @return the document
+   */
+  public Map<String, Object> discovery() {
+    return Map.of(
+      "issuer", issuer,
+      "jwks_uri", issuer + "/protocol/openid-connect/certs",
+      "token_endpoint", issuer + "/protocol/openid-connect/token",
+      "authorization_endpoint", issuer + "/protocol/openid-connect/auth",
+      "id_token_signing_alg_values_supported", new String[]{"RS256"});
+  }
+
+  /**
+   * Builds the JWKS holding the public signing key.
+   *
+   * @return the key set
+   */
+  public Map<String, Object> jwks() {
+    var key = (RSAPublicKey) keyPair.getPublic();
+    return Map.of("keys", new Object[]{Map.of(
+      "kty", "RSA",
+      "kid", KEY_ID,
+      "use", "sig",
+      "alg", "RS256",
+      "n", B64URL.encodeToString(unsigned(key.getModulus())),
+      "e", B64URL.encodeToString(unsigned(key.getPublicExponent())))});
+  }
+
+  /**
+   * Issues a signed access token.
+   *
+   * @param username Preferred username, used by the application as the loader
+   * @param validity Validity of the token
+   * @return the compact serialized JWT
+   */
+  public String issueToken(String username, Duration validity) {
+    var now = Instant.now().getEpochSecond();
+    try {
+      var header = B64URL.encodeToString(mapper.writeValueAsBytes(
+        Map.of("alg", "RS256", "typ", "JWT", "kid", KEY_ID)));
+      var payload = B64URL.encodeToString(mapper.writeValueAsBytes(Map.of(
+        "iss", issuer,
+        "sub", username,
+        "preferred_username", username,
+        "aud", "account",
+        "typ", "Bearer",
+        "iat", now,
+        "exp", now + validity.toSeconds())));
+      var signer = Signature.getInstance("SHA256withRSA");
+      signer.initSign(keyPair.getPrivate());
+      signer.update((header + "." + payload).getBytes(StandardCharsets.US_ASCII));
+      return header + "." + payload + "." + B64URL.encodeToString(signer.sign());
+    } catch (JsonProcessingException | GeneralSecurityException e) {
+      throw new IllegalStateException("Unable to issue token", e);
+    }
+  }
+
+  private static byte[] unsigned(BigInteger value) {
+    var bytes = value.toByteArray();
+    if (bytes.length > 1 && bytes[0] == 0) { // drop the sign byte
+      var trimmed = new byte[bytes.length - 1];
+      System.arraycopy(bytes, 1, trimmed, 0, trimmed.length);
+      return trimmed;
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,284 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.sim;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process fakes of the upstream apis: the Globe Labs rewards api, the DT One DVS async transaction api,
+ * an OpenID provider and a catch-all for the other FPI apis. Accepted loads are answered after the configured
+ * latency and their callback is posted back to the application after the configured delay, the same way the
+ * real providers do.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public class FakeProviderServer implements AutoCloseable {
+
+  static final String GL_PATH = "/gl/rewards";
+
+  static final String DVS_PATH = "/dvs";
+
+  static final String OIDC_PATH = "/oidc";
+
+  static final String STUB_PATH = "/stub";
+
+  private static final String DVS_TRANSACTIONS = DVS_PATH + "/v1/async/transactions";
+
+  private static final DateTimeFormatter GL_TIMESTAMP = DateTimeFormatter
+    .ofPattern("EEE MMM dd yyyy HH:mm:ss 'GMT+0000 (UTC)'", Locale.US).withZone(ZoneOffset.UTC);
+
+  private final SimConfig config;
+
+  private final ObjectMapper mapper;
+
+  private final FakeOidc oidc;
+
+  private final HttpServer server;
+
+  private final ExecutorService handlers = Executors.newCachedThreadPool();
+
+  private final ScheduledExecutorService callbacks = Executors.newScheduledThreadPool(2);
+
+  private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+  private final AtomicLong glIds = new AtomicLong(900_000_000L);
+
+  private final AtomicLong dtOneIds = new AtomicLong(1_000_000_000L);
+
+  final AtomicLong glAccepted = new AtomicLong();
+
+  final AtomicLong glRejected = new AtomicLong();
+
+  final AtomicLong dtOneAccepted = new AtomicLong();
+
+  final AtomicLong dtOneRejected = new AtomicLong();
+
+  final AtomicLong callbacksScheduled = new AtomicLong();
+
+  final AtomicLong callbacksDelivered = new AtomicLong();
+
+  final AtomicLong callbacksUndelivered = new AtomicLong();
+
+  /**
+   * Creates the server, not yet started.
+   *
+   * @param config Simulator options
+   * @param mapper Json mapper
+   * @throws IOException if the port cannot be bound
+   */
+  public FakeProviderServer(SimConfig config, ObjectMapper mapper) throws IOException {
+    this.config = config;
+    this.mapper = mapper;
+    this.oidc = new FakeOidc(mapper, config.simBaseUrl() + OIDC_PATH);
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", config.simPort()), 512);
+    server.setExecutor(handlers);
+    server.createContext(GL_PATH, this::handleGL);
+    server.createContext(DVS_PATH, this::handleDvs);
+    server.createContext(OIDC_PATH, this::handleOidc);
+    server.createContext(STUB_PATH, exchange -> respond(exchange, 200, Map.of()));
+  }
+
+  /**
+   * Starts serving the fake endpoints.
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * Retrieves the OpenID provider, for issuing the tokens of the load generator.
+   *
+   * @return the {@link FakeOidc}
+   */
+  public FakeOidc oidc() {
+    return oidc;
+  }
+
+  /**
+   * Retrieves the number of callbacks scheduled but not yet posted.
+   *
+   * @return pending callbacks
+   */
+  public long pendingCallbacks() {
+    return callbacksScheduled.get() - callbacksDelivered.get() - callbacksUndelivered.get();
+  }
+
+  private void handleGL(HttpExchange exchange) throws IOException {
+    var req = mapper.readTree(exchange.getRequestBody()).path("outboundRewardRequest");
+    sleep(config.glLatency());
+    if (ThreadLocalRandom.current().nextDouble() < config.glRejectRate()) {
+      glRejected.incrementAndGet();
+      respond(exchange, 400, Map.of("error", "Simulated rejection"));
+      return;
+    }
+    glAccepted.incrementAndGet();
+    var body = new LinkedHashMap<String, Object>();
+    body.put("transaction_id", glIds.incrementAndGet());
+    body.put("status", "SUCCESS");
+    body.put("address", req.path("address").asText());
+    body.put("promo", req.path("promo").asText());
+    body.put("timestamp", GL_TIMESTAMP.format(Instant.now()));
+    var callback = new LinkedHashMap<>(body);
+    callback.put("status", failCallback() ? "FAILED" : "SUCCESS");
+    scheduleCallback(config.appBaseUrl() + "/fpi/load/callback/" + config.webhookKey(),
+      config.glCallbackDelay(), () -> {
+        callback.put("timestamp", GL_TIMESTAMP.format(Instant.now()));
+        return Map.of("outboundRewardRequest", callback);
+      });
+    respond(exchange, 201, Map.of("outboundRewardRequest", body));
+  }
+
+  private void handleDvs(HttpExchange exchange) throws IOException {
+    if (!DVS_TRANSACTIONS.equals(exchange.getRequestURI().getPath()) ||
+      !"POST".equals(exchange.getRequestMethod())) {
+      respond(exchange, 404, Map.of("errors", List.of(Map.of("code", 1000404, "message", "Not simulated"))));
+      return;
+    }
+    var req = mapper.readTree(exchange.getRequestBody());
+    sleep(config.dtOneLatency());
+    if (ThreadLocalRandom.current().nextDouble() < config.dtOneRejectRate()) {
+      dtOneRejected.incrementAndGet();
+      respond(exchange, 400, Map.of("errors", List.of(Map.of("code", 1003001, "message", "Simulated rejection"))));
+      return;
+    }
+    dtOneAccepted.incrementAndGet();
+    var transaction = buildDvsTransaction(dtOneIds.incrementAndGet(), req, 20000, "CONFIRMED");
+    var failed = failCallback();
+    var callbackUrl = req.path("callback_url").asText(config.appBaseUrl() + "/fpi/load/callback/intlprov");
+    scheduleCallback(callbackUrl, config.dtOneCallbackDelay(), () -> {
+      var callback = new LinkedHashMap<>(transaction);
+      callback.put("status", dvsStatus(failed ? 90000 : 70000, failed ? "DECLINED" : "COMPLETED"));
+      callback.put("confirmation_date", Instant.now().toString());
+      return callback;
+    });
+    respond(exchange, 201, transaction);
+  }
+
+  private Map<String, Object> buildDvsTransaction(long id, JsonNode req, long statusId, String status) {
+    var transaction = new LinkedHashMap<String, Object>();
+    transaction.put("id", id);
+    transaction.put("external_id", req.path("external_id").asText());
+    transaction.put("creation_date", Instant.now().toString());
+    transaction.put("status", dvsStatus(statusId, status));
+    transaction.put("operator_reference", "SIM" + id);
+    transaction.put("product", Map.of(
+      "id", req.path("product_id").asLong(),
+      "type", "FIXED_VALUE_RECHARGE",
+      "name", "Simulated product"));
+    transaction.put("credit_party_identifier", mapper.convertValue(req.path("credit_party_identifier"), Map.class));
+    transaction.put("callback_url", req.path("callback_url").asText());
+    transaction.put("benefits", List.of());
+    return transaction;
+  }
+
+  private static Map<String, Object> dvsStatus(long id, String message) {
+    return Map.of("id", id, "message", message,
+      "class", Map.of("id", id / 10000, "message", message));
+  }
+
+  private void handleOidc(HttpExchange exchange) throws IOException {
+    var path = exchange.getRequestURI().getPath().substring(OIDC_PATH.length());
+    switch (path) {
+      case "/.well-known/openid-configuration" -> respond(exchange, 200, oidc.discovery());
+      case "/protocol/openid-connect/certs" -> respond(exchange, 200, oidc.jwks());
+      default -> respond(exchange, 404, Map.of());
+    }
+  }
+
+  private boolean failCallback() {
+    return ThreadLocalRandom.current().nextDouble() < config.callbackFailRate();
+  }
+
+  /**
+   * Schedules the callback of a load, called before the load is acknowledged so it is already counted as
+   * pending once the application sees the response.
+   */
+  private void scheduleCallback(String url, LatencyModel delay,
+                                Supplier<Map<String, Object>> body) {
+    callbacksScheduled.incrementAndGet();
+    callbacks.schedule(() -> {
+      try {
+        var request = HttpRequest.newBuilder(URI.create(url))
+          .timeout(Duration.ofSeconds(30))
+          .header("Content-Type", "application/json")
+          .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body.get())))
+          .build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+          .whenComplete((resp, ex) -> {
+            if (ex == null && resp.statusCode() / 100 == 2) {
+              callbacksDelivered.incrementAndGet();
+            } else {
+              callbacksUndelivered.incrementAndGet();
+            }
+          });
+      } catch (IOException | RuntimeException e) {
+        callbacksUndelivered.incrementAndGet();
+      }
+    }, delay.sampleMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+    var bytes = mapper.writeValueAsBytes(body);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (var out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static void sleep(LatencyModel latency) {
+    try {
+      Thread.sleep(latency.sampleMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    callbacks.shutdownNow();
+    handlers.shutdownNow();
+  }
+}
@@ -0,0 +1,112 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.sim;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency distribution of a simulated provider, parsed from a spec such as {@code fixed:100ms},
+ * {@code uniform:50ms:300ms}, {@code exp:200ms} (mean) or {@code lognormal:200ms:2s} (median and p99).
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public abstract class LatencyModel {
+
+  /**
+   * z-score of the 99th percentile of the standard normal distribution
+   */
+  private static final double Z_P99 = 2.3263;
+
+  /**
+   * Draws a latency from the distribution.
+   *
+   * @return latency in milliseconds, never negative
+   */
+  public abstract long sampleMillis();
+
+  /**
+   * Parses a latency spec.
+   *
+   * @param spec Latency spec, e.g. {@code lognormal:200ms:2s}
+   * @return the {@link LatencyModel}
+   * @throws IllegalArgumentException if the spec is invalid
+   */
+  public static LatencyModel parse(String spec) {
+    var parts = spec.trim().split(":");
+    try {
+      switch (parts[0]) {
+        case "fixed" -> {
+          long value = millis(parts[1]);
+          return of(spec, () -> value);
+        }
+        case "uniform" -> {
+          long min = millis(parts[1]);
+          long max = millis(parts[2]);
+          return of(spec, () -> ThreadLocalRandom.current().nextLong(min, max + 1));
+        }
+        case "exp" -> {
+          double mean = millis(parts[1]);
+          return of(spec, () -> Math.round(-mean * Math.log(1 - ThreadLocalRandom.current().nextDouble())));
+        }
+        case "lognormal" -> {
+          double mu = Math.log(millis(parts[1]));
+          double sigma = (Math.log(millis(parts[2])) - mu) / Z_P99;
+          return of(spec, () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian())));
+        }
+        default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+      }
+    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid latency spec: " + spec, e);
+    }
+  }
+
+  /**
+   * Parses a duration such as {@code 250ms}, {@code 2s} or {@code 1m}, plain numbers are milliseconds.
+   *
+   * @param value Duration
+   * @return duration in milliseconds
+   */
+  static long millis(String value) {
+    var v = value.trim().toLowerCase();
+    if (v.endsWith("ms")) {
+      return Long.parseLong(v.substring(0, v.length() - 2));
+    } else if (v.endsWith("s")) {
+      return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1))).toMillis();
+    } else if (v.endsWith("m")) {
+      return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1))).toMillis();
+    }
+    return Long.parseLong(v);
+  }
+
+  private static LatencyModel of(String spec, LongSupplier sampler) {
+    return new LatencyModel() {
+      @Override
+      public long sampleMillis() {
+        return Math.max(0, sampler.getAsLong());
+      }
+
+      @Override
+      public String toString() {
+        return spec;
+      }
+    };
+  }
+}
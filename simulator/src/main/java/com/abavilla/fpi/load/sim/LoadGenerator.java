@@ -0,0 +1,172 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.sim;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Open-model load generator: queries are sent on a fixed schedule whether or not earlier ones completed, and
+ * latency is measured from the scheduled send time, so a stalled application shows up as latency instead of
+ * silently lowering the offered rate.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public class LoadGenerator {
+
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(120);
+
+  private final SimConfig config;
+
+  private final ObjectMapper mapper;
+
+  private final String bearer;
+
+  private final HttpClient client = HttpClient.newBuilder()
+    .connectTimeout(Duration.ofSeconds(10))
+    .build();
+
+  private final AtomicLong numbers = new AtomicLong();
+
+  private final LatencyRecorder latency = new LatencyRecorder();
+
+  private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+  private long elapsedNanos;
+
+  /**
+   * Creates the generator.
+   *
+   * @param config Simulator options
+   * @param mapper Json mapper
+   * @param bearer Access token the queries are sent with
+   */
+  public LoadGenerator(SimConfig config, ObjectMapper mapper, String bearer) {
+    this.config = config;
+    this.mapper = mapper;
+    this.bearer = bearer;
+  }
+
+  /**
+   * Sends load queries at the configured rate for the configured duration, then waits for the responses.
+   */
+  public void run() {
+    var uri = URI.create(config.appBaseUrl() + "/fpi/load/query");
+    var period = 1_000_000_000L / config.rps();
+    var total = config.duration().toNanos() / period;
+    var inFlight = new Phaser(1);
+    var start = System.nanoTime();
+    for (long i = 0; i < total; i++) {
+      var intended = start + i * period;
+      var wait = intended - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      inFlight.register();
+      client.sendAsync(request(uri), HttpResponse.BodyHandlers.ofByteArray())
+        .whenComplete((resp, ex) -> {
+          latency.record((System.nanoTime() - intended) / 1_000);
+          outcomes.computeIfAbsent(outcome(resp, ex), k -> new LongAdder()).increment();
+          inFlight.arriveAndDeregister();
+        });
+    }
+    inFlight.arriveAndAwaitAdvance();
+    elapsedNanos = System.nanoTime() - start;
+  }
+
+  /**
+   * Retrieves the latency of the load queries.
+   *
+   * @return the {@link LatencyRecorder}
+   */
+  public LatencyRecorder latency() {
+    return latency;
+  }
+
+  /**
+   * Retrieves the number of queries per outcome, the http status and the load status of the response.
+   *
+   * @return outcome counts, sorted by outcome
+   */
+  public Map<String, Long> outcomes() {
+    var sorted = new TreeMap<String, Long>();
+    outcomes.forEach((outcome, count) -> sorted.put(outcome, count.sum()));
+    return sorted;
+  }
+
+  /**
+   * Retrieves the achieved rate of completed queries.
+   *
+   * @return queries per second
+   */
+  public double throughput() {
+    return elapsedNanos == 0 ? 0 : latency.count() * 1e9 / elapsedNanos;
+  }
+
+  private HttpRequest request(URI uri) {
+    var query = config.sku() + " " + nextMobile();
+    try {
+      return HttpRequest.newBuilder(uri)
+        .timeout(REQUEST_TIMEOUT)
+        .header("Authorization", "Bearer " + bearer)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(Map.of("query", query))))
+        .build();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Generates a number not used before in the run, so queries are never rejected as duplicates.
+   *
+   * @return mobile number in local format
+   */
+  private String nextMobile() {
+    var prefixes = config.prefixes();
+    var prefix = prefixes.get(ThreadLocalRandom.current().nextInt(prefixes.size()));
+    return prefix + String.format("%07d", numbers.incrementAndGet() % 10_000_000);
+  }
+
+  private String outcome(HttpResponse<byte[]> resp, Throwable ex) {
+    if (ex != null) {
+      return ex.getClass().getSimpleName();
+    }
+    var status = "";
+    try {
+      status = mapper.readTree(resp.body()).path("status").asText();
+    } catch (Exception e) {
+      // not a json response
+    }
+    return status.isEmpty() ? String.valueOf(resp.statusCode()) : resp.statusCode() + " " + status;
+  }
+}
@@ -0,0 +1,119 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.sim;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Throwaway mongod on a temporary data directory and a free port, removed again on close. Runs the locally
+ * installed binary so no download is needed.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public class LocalMongo implements AutoCloseable {
+
+  private final Process process;
+
+  private final Path dataDir;
+
+  private final int port;
+
+  private LocalMongo(Process process, Path dataDir, int port) {
+    this.process = process;
+    this.dataDir = dataDir;
+    this.port = port;
+  }
+
+  /**
+   * Starts mongod and waits until it accepts connections.
+   *
+   * @param mongod  Path of the mongod binary
+   * @param timeout Time allowed for startup
+   * @return the running {@link LocalMongo}
+   * @throws IOException if mongod cannot be started
+   */
+  public static LocalMongo start(String mongod, Duration timeout) throws IOException {
+    var dataDir = Files.createTempDirectory("fpi-sim-mongo");
+    int port;
+    try (var socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    var process = new ProcessBuilder(mongod, "--dbpath", dataDir.toString(), "--port", String.valueOf(port),
+      "--bind_ip", "127.0.0.1", "--quiet")
+      .redirectErrorStream(true)
+      .redirectOutput(dataDir.resolve("mongod.log").toFile())
+      .start();
+    var mongo = new LocalMongo(process, dataDir, port);
+    var deadline = System.nanoTime() + timeout.toNanos();
+    while (System.nanoTime() < deadline) {
+      if (!process.isAlive()) {
+        mongo.close();
+        throw new IOException("mongod exited with " + process.exitValue());
+      }
+      try (var probe = new Socket()) {
+        probe.connect(new InetSocketAddress("127.0.0.1", port), 500);
+        return mongo;
+      } catch (IOException e) {
+        sleep();
+      }
+    }
+    mongo.close();
+    throw new IOException("mongod did not start within " + timeout);
+  }
+
+  /**
+   * Connection string of the database.
+   *
+   * @return the connection string
+   */
+  public String connectionString() {
+    return "mongodb://127.0.0.1:" + port;
+  }
+
+  @Override
+  public void close() {
+    process.destroy();
+    try {
+      process.waitFor();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try (Stream<Path> files = Files.walk(dataDir)) {
+      files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+    } catch (IOException e) {
+      System.err.println("Unable to remove " + dataDir + ": " + e.getMessage());
+    }
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(200);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
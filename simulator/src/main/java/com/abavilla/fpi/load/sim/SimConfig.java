@@ -0,0 +1,164 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.sim;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options of a simulator run, given as {@code --name=value} arguments.
+ *
+ * @param simPort            Port of the fake provider endpoints
+ * @param appPort            Port the application is started on
+ * @param appUrl             Url of an already running application, {@code null} to start the application jar
+ * @param appJar             Application jar to start
+ * @param mongoUri           Connection string of an existing database, {@code null} to start a local mongod
+ * @param mongod             Path of the mongod binary
+ * @param database           Database name
+ * @param glLatency          Response latency of the Globe Labs rewards api
+ * @param dtOneLatency       Response latency of the DT One DVS api
+ * @param glRejectRate       Share of Globe Labs loads rejected outright
+ * @param dtOneRejectRate    Share of DT One loads rejected outright
+ * @param glCallbackDelay    Delay until the Globe Labs callback is posted
+ * @param dtOneCallbackDelay Delay until the DT One callback is posted
+ * @param callbackFailRate   Share of callbacks reporting a failed load
+ * @param rps                Target rate of load queries per second
+ * @param duration           Duration of the load
+ * @param drain              Time allowed after the load for callbacks to be delivered and processed
+ * @param sku                Sku loaded by each query
+ * @param prefixes           Mobile prefixes the numbers are generated from
+ * @param webhookKey         Api key of the generic callback webhook
+ * @param loader             Username the queries are sent as
+ * @param startupTimeout     Time allowed for the application to start
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public record SimConfig(int simPort, int appPort, String appUrl, Path appJar, String mongoUri, String mongod,
+                        String database, LatencyModel glLatency, LatencyModel dtOneLatency, double glRejectRate,
+                        double dtOneRejectRate, LatencyModel glCallbackDelay, LatencyModel dtOneCallbackDelay,
+                        double callbackFailRate, int rps, Duration duration, Duration drain, String sku,
+                        List<String> prefixes, String webhookKey, String loader, Duration startupTimeout) {
+
+  static final String USAGE = """
+    Usage: java -jar simulator.jar [--name=value ...]
+
+      --sim-port=18090                      port of the fake provider endpoints
+      --app-port=18080                      port the application is started on
+      --app-url=http://host:port            use a running application instead of starting --app-jar
+      --app-jar=core/target/quarkus-app/quarkus-run.jar
+      --mongo-uri=mongodb://...             use an existing database instead of starting --mongod
+      --mongod=mongod                       mongod binary started on a temporary data directory
+      --db=fpi-sim
+      --gl-latency=lognormal:150ms:1500ms   fixed:<t> | uniform:<min>:<max> | exp:<mean> | lognormal:<p50>:<p99>
+      --dtone-latency=lognormal:300ms:3s
+      --gl-reject-rate=0.02
+      --dtone-reject-rate=0.02
+      --gl-callback-delay=lognormal:5s:60s
+      --dtone-callback-delay=lognormal:3s:30s
+      --callback-fail-rate=0.01
+      --rps=20
+      --duration=60s
+      --drain=90s
+      --sku=50
+      --prefixes=0917,0905,0918,0919
+      --webhook-key=FPISIMWEBHOOKKEY
+      --loader=sim-loader
+      --startup-timeout=120s
+    """;
+
+  /**
+   * Parses the command line arguments.
+   *
+   * @param args Arguments
+   * @return the {@link SimConfig}
+   * @throws IllegalArgumentException if an argument is unknown or invalid
+   */
+  public static SimConfig parse(String... args) {
+    var opts = new HashMap<String, String>();
+    for (var arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Invalid argument: " + arg);
+      }
+      opts.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+    }
+    var config = new SimConfig(
+      Integer.parseInt(take(opts, "sim-port", "18090")),
+      Integer.parseInt(take(opts, "app-port", "18080")),
+      take(opts, "app-url", null),
+      Path.of(take(opts, "app-jar", "core/target/quarkus-app/quarkus-run.jar")),
+      take(opts, "mongo-uri", null),
+      take(opts, "mongod", "mongod"),
+      take(opts, "db", "fpi-sim"),
+      LatencyModel.parse(take(opts, "gl-latency", "lognormal:150ms:1500ms")),
+      LatencyModel.parse(take(opts, "dtone-latency", "lognormal:300ms:3s")),
+      rate(take(opts, "gl-reject-rate", "0.02")),
+      rate(take(opts, "dtone-reject-rate", "0.02")),
+      LatencyModel.parse(take(opts, "gl-callback-delay", "lognormal:5s:60s")),
+      LatencyModel.parse(take(opts, "dtone-callback-delay", "lognormal:3s:30s")),
+      rate(take(opts, "callback-fail-rate", "0.01")),
+      Integer.parseInt(take(opts, "rps", "20")),
+      Duration.ofMillis(LatencyModel.millis(take(opts, "duration", "60s"))),
+      Duration.ofMillis(LatencyModel.millis(take(opts, "drain", "90s"))),
+      take(opts, "sku", "50"),
+      List.of(take(opts, "prefixes", "0917,0905,0918,0919").split(",")),
+      take(opts, "webhook-key", "FPISIMWEBHOOKKEY"),
+      take(opts, "loader", "sim-loader"),
+      Duration.ofMillis(LatencyModel.millis(take(opts, "startup-timeout", "120s"))));
+    if (!opts.isEmpty()) {
+      throw new IllegalArgumentException("Unknown arguments: " + opts.keySet());
+    }
+    if (config.rps() <= 0) {
+      throw new IllegalArgumentException("rps must be positive");
+    }
+    return config;
+  }
+
+  /**
+   * Base url of the application under test.
+   *
+   * @return the url, without a trailing slash
+   */
+  public String appBaseUrl() {
+    return appUrl != null ? appUrl.replaceAll("/+$", "") : "http://localhost:" + appPort;
+  }
+
+  /**
+   * Base url of the fake provider endpoints.
+   *
+   * @return the url, without a trailing slash
+   */
+  public String simBaseUrl() {
+    return "http://localhost:" + simPort;
+  }
+
+  private static String take(Map<String, String> opts, String name, String defaultValue) {
+    var value = opts.remove(name);
+    return value == null ? defaultValue : value;
+  }
+
+  private static double rate(String value) {
+    var rate = Double.parseDouble(value);
+    if (rate < 0 || rate > 1) {
+      throw new IllegalArgumentException("Rate must be between 0 and 1: " + value);
+    }
+    return rate;
+  }
+}
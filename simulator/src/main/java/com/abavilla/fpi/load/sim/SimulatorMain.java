@@ -0,0 +1,206 @@
+/******************************************************************************
+ * FPI Application - Abavilla                                                 *
+ * Copyright (C) 2022  Vince Jerald Villamora                                 *
+ *                                                                            *
+ * This program is free software: you can redistribute it and/or modify       *
+ * it under the terms of the GNU General Public License as published by       *
+ * the Free Software Foundation, either version 3 of the License, or          *
+ * (at your option) any later version.                                        *
+ *                                                                            *
+ * This program is distributed in the hope that it will be useful,            *
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of             *
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the              *
+ * GNU General Public License for more details.                               *
+ *                                                                            *
+ * You should have received a copy of the GNU General Public License          *
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.     *
+ ******************************************************************************/
+
+package com.abavilla.fpi.load.sim;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Runs the application end to end against the fake providers: starts the database, the fakes and the
+ * application, seeds the sku under test, drives load queries at the target rate, waits for the callbacks to
+ * drain and reports latency, throughput and leaked callbacks.
+ *
+ * @author <a href="mailto:vincevillamora@gmail.com">Vince Villamora</a>
+ */
+public class SimulatorMain {
+
+  private static final Duration MONGO_STARTUP = Duration.ofSeconds(30);
+
+  private static final Duration SETTLE = Duration.ofSeconds(5);
+
+  private static final Path APP_LOG = Path.of("simulator-app.log");
+
+  private static final String LEAK_METRIC = "fpi_load_leak_write_total";
+
+  private static final String DELIVERED_METRIC = "fpi_load_end_to_end_seconds_count";
+
+  private static final String CALLBACK_METRIC = "fpi_load_callback_lag_seconds_count";
+
+  public static void main(String[] args) throws Exception {
+    if (List.of(args).contains("--help")) {
+      System.out.println(SimConfig.USAGE);
+      return;
+    }
+    SimConfig config;
+    try {
+      config = SimConfig.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(SimConfig.USAGE);
+      System.exit(2);
+      return;
+    }
+    var resources = new ArrayList<AutoCloseable>();
+    try {
+      run(config, resources);
+    } finally {
+      for (int i = resources.size() - 1; i >= 0; i--) {
+        resources.get(i).close();
+      }
+    }
+    System.exit(0);
+  }
+
+  private static void run(SimConfig config, List<AutoCloseable> resources) throws Exception {
+    var mapper = new ObjectMapper();
+
+    var mongoUri = config.mongoUri();
+    if (mongoUri == null && config.appUrl() == null) {
+      var mongo = LocalMongo.start(config.mongod(), MONGO_STARTUP);
+      resources.add(mongo);
+      mongoUri = mongo.connectionString();
+      log("Started mongod at " + mongoUri);
+    }
+
+    var fakes = new FakeProviderServer(config, mapper);
+    resources.add(fakes);
+    fakes.start();
+    log("Fake providers listening at " + config.simBaseUrl());
+
+    if (config.appUrl() == null) {
+      log("Starting " + config.appJar() + ", output in " + APP_LOG);
+      resources.add(AppProcess.start(config, mongoUri, APP_LOG));
+    } else {
+      log("Using the application at " + config.appUrl() + ", it must be started with:");
+      AppProcess.environment(config, "<connection string>").forEach((name, value) ->
+        log("  " + name + "=" + value));
+      AppProcess.systemProperties().forEach(prop -> log("  " + prop));
+    }
+    log("Application ready at " + config.appBaseUrl());
+
+    var token = fakes.oidc().issueToken(config.loader(),
+      config.duration().plus(config.drain()).plus(config.startupTimeout()));
+    var http = HttpClient.newHttpClient();
+    seedSku(config, mapper, http, token);
+
+    log("Sending " + config.rps() + " queries/s for " + config.duration());
+    var generator = new LoadGenerator(config, mapper, token);
+    generator.run();
+
+    log("Waiting up to " + config.drain() + " for " + fakes.pendingCallbacks() + " pending callbacks");
+    var deadline = System.nanoTime() + config.drain().toNanos();
+    while (fakes.pendingCallbacks() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(500);
+    }
+    Thread.sleep(SETTLE.toMillis()); // let the application process the last callbacks
+
+    var metrics = scrape(config, http);
+    report(config, generator, fakes, metrics);
+  }
+
+  /**
+   * Registers the sku under test, offered by both providers, and waits for the catalog to pick it up.
+   */
+  private static void seedSku(SimConfig config, ObjectMapper mapper, HttpClient http, String token)
+    throws IOException, InterruptedException {
+    var sku = Map.of(
+      "type", "Credits",
+      "name", "Simulator " + config.sku(),
+      "denomination", Map.of("value", config.sku()),
+      "telco", "Globe",
+      "offers", List.of(
+        Map.of("providerName", "GlobeLabs", "productCode", "LOAD" + config.sku()),
+        Map.of("providerName", "DTOne", "productCode", "9" + config.sku())),
+      "keywords", List.of(config.sku()));
+    var req = HttpRequest.newBuilder(URI.create(config.appBaseUrl() + "/fpi/load/sku"))
+      .header("Authorization", "Bearer " + token)
+      .header("Content-Type", "application/json")
+      .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(sku)))
+      .build();
+    var resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+    if (resp.statusCode() >= 300) {
+      throw new IOException("Unable to seed sku " + config.sku() + ": " + resp.statusCode() + " " + resp.body());
+    }
+    Thread.sleep(SETTLE.toMillis()); // catalog refresh
+  }
+
+  /**
+   * Scrapes the prometheus endpoint of the application, summing each metric over its tags.
+   */
+  private static Map<String, Double> scrape(SimConfig config, HttpClient http) {
+    var req = HttpRequest.newBuilder(URI.create(config.appBaseUrl() + "/q/metrics")).build();
+    var totals = new HashMap<String, Double>();
+    try {
+      var body = http.send(req, HttpResponse.BodyHandlers.ofString()).body();
+      for (var line : body.split("\n")) {
+        for (var metric : List.of(LEAK_METRIC, DELIVERED_METRIC, CALLBACK_METRIC)) {
+          if (line.startsWith(metric + "{") || line.startsWith(metric + " ")) {
+            var value = Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+            totals.merge(metric, value, Double::sum);
+          }
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      log("Unable to scrape metrics: " + e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return totals;
+  }
+
+  private static void report(SimConfig config, LoadGenerator generator, FakeProviderServer fakes,
+                             Map<String, Double> metrics) {
+    var latency = generator.latency();
+    log("");
+    log("==== Simulator report ====");
+    log(String.format("Queries          %d sent at %d/s, %.1f/s completed", latency.count(), config.rps(),
+      generator.throughput()));
+    log(String.format("Query latency    p50 %s  p90 %s  p99 %s  max %s", ms(latency.percentile(50)),
+      ms(latency.percentile(90)), ms(latency.percentile(99)), ms(latency.max())));
+    generator.outcomes().forEach((outcome, count) -> log(String.format("  %-14s %d", outcome, count)));
+    log(String.format("Globe Labs       %d accepted, %d rejected", fakes.glAccepted.get(), fakes.glRejected.get()));
+    log(String.format("DT One           %d accepted, %d rejected", fakes.dtOneAccepted.get(),
+      fakes.dtOneRejected.get()));
+    log(String.format("Callbacks        %d scheduled, %d delivered, %d undelivered, %d pending",
+      fakes.callbacksScheduled.get(), fakes.callbacksDelivered.get(), fakes.callbacksUndelivered.get(),
+      fakes.pendingCallbacks()));
+    log(String.format("Application      %.0f callbacks applied, %.0f loads completed, %.0f callbacks leaked",
+      metrics.getOrDefault(CALLBACK_METRIC, 0d), metrics.getOrDefault(DELIVERED_METRIC, 0d),
+      metrics.getOrDefault(LEAK_METRIC, 0d)));
+  }
+
+  private static String ms(long micros) {
+    return String.format("%.1fms", micros / 1000d);
+  }
+
+  private static void log(String message) {
+    System.out.println(message);
+  }
+}